@@ -1,5 +1,6 @@
 package com.example.examplemod;
 
+import com.example.examplemod.export.ExportSettings;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.item.Item;
@@ -36,12 +37,109 @@ public class Config
             .comment("A list of items to log on common setup.")
             .defineListAllowEmpty("items", List.of("minecraft:iron_ingot"), Config::validateItemName);
 
+    private static final ForgeConfigSpec.ConfigValue<String> OUTPUT_DIRECTORY;
+    private static final ForgeConfigSpec.EnumValue<ExportSettings.OutputFormat> OUTPUT_FORMAT;
+    private static final ForgeConfigSpec.ConfigValue<String> DATAPACK_DIRECTORY;
+    private static final ForgeConfigSpec.EnumValue<ExportSettings.OutputMode> OUTPUT_MODE;
+    private static final ForgeConfigSpec.EnumValue<ExportSettings.ScriptStyle> SCRIPT_STYLE;
+    private static final ForgeConfigSpec.ConfigValue<String> BATCH_FILE_NAME;
+    private static final ForgeConfigSpec.IntValue FLUSH_INTERVAL_MILLIS;
+    private static final ForgeConfigSpec.IntValue WRITER_BUFFER_SIZE;
+    private static final ForgeConfigSpec.IntValue ASYNC_THREADS;
+    private static final CookingDefaultsValues SMELTING;
+    private static final CookingDefaultsValues BLASTING;
+    private static final CookingDefaultsValues SMOKING;
+    private static final CookingDefaultsValues CAMPFIRE;
+    private static final ForgeConfigSpec.IntValue EDITOR_PERMISSION_LEVEL;
+    private static final ForgeConfigSpec.IntValue PACKET_BURST;
+    private static final ForgeConfigSpec.DoubleValue PACKETS_PER_SECOND;
+    private static final ForgeConfigSpec.IntValue SESSION_BROADCAST_INTERVAL_TICKS;
+
+    static
+    {
+        ExportSettings defaults = ExportSettings.DEFAULTS;
+
+        BUILDER.comment("Recipe editor export settings").push("export");
+
+        OUTPUT_DIRECTORY = BUILDER
+                .comment("Directory, relative to the game directory, that generated scripts are written to")
+                .define("outputDirectory", defaults.outputDirectory());
+
+        OUTPUT_FORMAT = BUILDER
+                .comment("KUBEJS_SCRIPT writes event.custom(...) scripts, DATAPACK_JSON writes plain recipe JSON that loads without script evaluation")
+                .defineEnum("outputFormat", defaults.outputFormat());
+
+        DATAPACK_DIRECTORY = BUILDER
+                .comment("Datapack root, relative to the game directory, that DATAPACK_JSON recipes are written to (data/kubejs/recipes inside it)")
+                .define("datapackDirectory", defaults.datapackDirectory());
+
+        OUTPUT_MODE = BUILDER
+                .comment("FILE_PER_RECIPE writes one script per recipe, BATCHED collects all recipes into one script")
+                .defineEnum("outputMode", defaults.outputMode());
+
+        SCRIPT_STYLE = BUILDER
+                .comment("PRETTY writes indented scripts for editing by hand, MINIFIED writes one line per recipe with repeated item IDs hoisted into constants")
+                .defineEnum("scriptStyle", defaults.scriptStyle());
+
+        BATCH_FILE_NAME = BUILDER
+                .comment("Script file name used in BATCHED mode")
+                .define("batchFileName", defaults.batchFileName());
+
+        FLUSH_INTERVAL_MILLIS = BUILDER
+                .comment("How long batched exports are collected before the batch file is rewritten, in milliseconds")
+                .defineInRange("flushIntervalMillis", defaults.flushIntervalMillis(), 0, 60_000);
+
+        WRITER_BUFFER_SIZE = BUILDER
+                .comment("Buffer size of the script file writer, in characters")
+                .defineInRange("writerBufferSize", defaults.writerBufferSize(), 512, 1 << 20);
+
+        ASYNC_THREADS = BUILDER
+                .comment("Number of background threads used to write exported scripts")
+                .defineInRange("asyncThreads", defaults.asyncThreads(), 1, 16);
+
+        BUILDER.comment("Default experience and cooking time written for each cooking recipe family").push("defaults");
+        SMELTING = new CookingDefaultsValues("smelting", defaults.smelting());
+        BLASTING = new CookingDefaultsValues("blasting", defaults.blasting());
+        SMOKING = new CookingDefaultsValues("smoking", defaults.smoking());
+        CAMPFIRE = new CookingDefaultsValues("campfire", defaults.campfire());
+        BUILDER.pop();
+
+        BUILDER.pop();
+
+        BUILDER.comment("Server-side limits on recipe editor packets").push("network");
+
+        EDITOR_PERMISSION_LEVEL = BUILDER
+                .comment("Permission level required to open and use the recipe editor; the singleplayer owner is always allowed")
+                .defineInRange("editorPermissionLevel", 2, 0, 4);
+
+        PACKET_BURST = BUILDER
+                .comment("Editor packets a player may send in a burst before being rate limited")
+                .defineInRange("packetBurst", 5, 1, 100);
+
+        PACKETS_PER_SECOND = BUILDER
+                .comment("Sustained editor packets per second allowed per player")
+                .defineInRange("packetsPerSecond", 2.0, 0.1, 100.0);
+
+        SESSION_BROADCAST_INTERVAL_TICKS = BUILDER
+                .comment("Minimum ticks between two broadcasts of slot edits to the members of a shared editing session")
+                .defineInRange("sessionBroadcastIntervalTicks", 2, 1, 20);
+
+        BUILDER.pop();
+    }
+
     static final ForgeConfigSpec SPEC = BUILDER.build();
 
     public static boolean logDirtBlock;
     public static int magicNumber;
     public static String magicNumberIntroduction;
     public static Set<Item> items;
+    // Read by the exporter on any thread, so it is swapped atomically as a whole snapshot.
+    public static volatile ExportSettings exportSettings = ExportSettings.DEFAULTS;
+    // Read on the network threads
+    public static volatile int editorPermissionLevel = 2;
+    public static volatile int packetBurst = 5;
+    public static volatile double packetsPerSecond = 2.0;
+    public static volatile int sessionBroadcastIntervalTicks = 2;
 
     private static boolean validateItemName(final Object obj)
     {
@@ -59,5 +157,48 @@ public class Config
         items = ITEM_STRINGS.get().stream()
                 .map(itemName -> BuiltInRegistries.ITEM.get(new ResourceLocation(itemName)))
                 .collect(Collectors.toSet());
+
+        exportSettings = new ExportSettings(
+                OUTPUT_DIRECTORY.get(),
+                OUTPUT_FORMAT.get(),
+                DATAPACK_DIRECTORY.get(),
+                OUTPUT_MODE.get(),
+                SCRIPT_STYLE.get(),
+                BATCH_FILE_NAME.get(),
+                FLUSH_INTERVAL_MILLIS.get(),
+                WRITER_BUFFER_SIZE.get(),
+                ASYNC_THREADS.get(),
+                SMELTING.get(),
+                BLASTING.get(),
+                SMOKING.get(),
+                CAMPFIRE.get());
+
+        editorPermissionLevel = EDITOR_PERMISSION_LEVEL.get();
+        packetBurst = PACKET_BURST.get();
+        packetsPerSecond = PACKETS_PER_SECOND.get();
+        sessionBroadcastIntervalTicks = SESSION_BROADCAST_INTERVAL_TICKS.get();
+    }
+
+    private static class CookingDefaultsValues
+    {
+        private final ForgeConfigSpec.DoubleValue experience;
+        private final ForgeConfigSpec.IntValue cookingTime;
+
+        CookingDefaultsValues(String family, ExportSettings.CookingDefaults defaults)
+        {
+            BUILDER.push(family);
+            experience = BUILDER
+                    .comment("Experience awarded per " + family + " recipe")
+                    .defineInRange("experience", defaults.experience(), 0.0, 1000.0);
+            cookingTime = BUILDER
+                    .comment("Cooking time of " + family + " recipes, in ticks")
+                    .defineInRange("cookingTime", defaults.cookingTime(), 1, 72_000);
+            BUILDER.pop();
+        }
+
+        ExportSettings.CookingDefaults get()
+        {
+            return new ExportSettings.CookingDefaults(experience.get(), cookingTime.get());
+        }
     }
 }
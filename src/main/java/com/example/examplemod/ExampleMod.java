@@ -1,6 +1,9 @@
 package com.example.examplemod;
 
+import com.example.examplemod.command.RecipeEditorCommand;
+import com.example.examplemod.export.ExportWriter;
 import com.example.examplemod.network.ModNetworking;
+import com.example.examplemod.recipe.RecipeTypeRegistry;
 import com.example.examplemod.registry.ModMenuTypes;
 import com.mojang.logging.LogUtils;
 import net.minecraft.client.Minecraft;
@@ -17,6 +20,8 @@ import net.minecraft.world.level.material.MapColor;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.event.BuildCreativeModeTabContentsEvent;
+import net.minecraftforge.event.GameShuttingDownEvent;
+import net.minecraftforge.event.RegisterCommandsEvent;
 import net.minecraftforge.event.server.ServerStartingEvent;
 import net.minecraftforge.eventbus.api.IEventBus;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
@@ -92,6 +97,8 @@ public class ExampleMod
     private void commonSetup(final FMLCommonSetupEvent event)
     {
         event.enqueueWork(ModNetworking::register);
+        // Finish exports a crash interrupted before anything new is written
+        ExportWriter.recoverJournal();
 
         // Some common setup code
         LOGGER.info("HELLO FROM COMMON SETUP");
@@ -119,6 +126,19 @@ public class ExampleMod
         LOGGER.info("HELLO from server starting");
     }
 
+    @SubscribeEvent
+    public void onRegisterCommands(RegisterCommandsEvent event)
+    {
+        RecipeEditorCommand.register(event.getDispatcher());
+    }
+
+    // Batched exports are flushed on a timer, so write out anything still pending before the JVM exits
+    @SubscribeEvent
+    public void onGameShuttingDown(GameShuttingDownEvent event)
+    {
+        ExportWriter.flushAll();
+    }
+
     // You can use EventBusSubscriber to automatically register all static methods in the class annotated with @SubscribeEvent
     @Mod.EventBusSubscriber(modid = MODID, bus = Mod.EventBusSubscriber.Bus.MOD, value = Dist.CLIENT)
     public static class ClientModEvents
@@ -129,6 +149,8 @@ public class ExampleMod
             // Some client setup code
             LOGGER.info("HELLO FROM CLIENT SETUP");
             LOGGER.info("MINECRAFT NAME >> {}", Minecraft.getInstance().getUser().getName());
+
+            RecipeTypeRegistry.loadCachedCatalogue();
         }
     }
 }
@@ -1,9 +1,14 @@
 package com.example.examplemod.client;
 
+import com.example.examplemod.export.ScriptDirectoryWatcher;
 import com.example.examplemod.network.ModNetworking;
 import com.example.examplemod.network.OpenRecipeEditorPacket;
+import com.example.examplemod.recipe.RecipeTypeRegistry;
+import com.example.examplemod.recipe.RecipeUsageIndex;
 import net.minecraft.client.Minecraft;
 import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.client.event.ClientPlayerNetworkEvent;
+import net.minecraftforge.client.event.RecipesUpdatedEvent;
 import net.minecraftforge.client.event.RegisterKeyMappingsEvent;
 import net.minecraftforge.event.TickEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
@@ -23,6 +28,7 @@ class ClientPlayEvents {
     @SubscribeEvent
     public static void onClientTick(TickEvent.ClientTickEvent event) {
         if (event.phase != TickEvent.Phase.END) return;
+        ClientSessionState.tick();
         if (KeyBindings.OPEN_GUI_KEY != null && KeyBindings.OPEN_GUI_KEY.consumeClick()) {
             Minecraft mc = Minecraft.getInstance();
             if (mc.player != null && mc.screen == null) {
@@ -30,4 +36,23 @@ class ClientPlayEvents {
             }
         }
     }
+
+    @SubscribeEvent
+    public static void onRecipesUpdated(RecipesUpdatedEvent event) {
+        Minecraft mc = Minecraft.getInstance();
+        if (mc.getConnection() != null) {
+            RecipeUsageIndex.rebuildAsync(event.getRecipeManager(), mc.getConnection().registryAccess());
+            RecipeTypeRegistry.refreshAsync(event.getRecipeManager(), mc.getConnection().registryAccess());
+        }
+        if (mc.screen instanceof RecipeEditorScreen screen) {
+            screen.onRecipesUpdated();
+        }
+    }
+
+    @SubscribeEvent
+    public static void onLoggingOut(ClientPlayerNetworkEvent.LoggingOut event) {
+        RecipeUsageIndex.clear();
+        ClientSessionState.reset();
+        ScriptDirectoryWatcher.stop();
+    }
 }
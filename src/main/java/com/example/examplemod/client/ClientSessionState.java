@@ -0,0 +1,74 @@
+package com.example.examplemod.client;
+
+import com.example.examplemod.menu.RecipeEditorMenu;
+import com.example.examplemod.network.ModNetworking;
+import com.example.examplemod.network.SessionDeltaPacket;
+import com.example.examplemod.network.SessionRecipeTypePacket;
+import net.minecraft.client.Minecraft;
+
+/**
+ * Client side of a shared editing session: applies deltas from the server to the open editor and
+ * forwards local recipe type changes, debounced so cycling through types sends only the last one.
+ */
+public final class ClientSessionState {
+
+    private static final long TYPE_DEBOUNCE_MS = 250;
+
+    private static String session = "";
+    private static long revision;
+    private static String pendingRecipeType;
+    private static long pendingSince;
+
+    private ClientSessionState() {
+    }
+
+    public static boolean isActive() {
+        return !session.isEmpty();
+    }
+
+    public static void apply(SessionDeltaPacket packet) {
+        if (packet.session().isEmpty()) {
+            reset();
+            return;
+        }
+        // Deltas older than the state we already have can only arrive around a snapshot
+        if (!packet.snapshot() && (!packet.session().equals(session) || packet.revision() < revision)) return;
+        session = packet.session();
+        revision = packet.revision();
+
+        Minecraft mc = Minecraft.getInstance();
+        if (mc.player == null || !(mc.player.containerMenu instanceof RecipeEditorMenu menu)) return;
+
+        for (SessionDeltaPacket.SlotDelta delta : packet.slots()) {
+            int max = delta.output() ? RecipeEditorMenu.getMaxOutputSlots() : RecipeEditorMenu.getMaxInputSlots();
+            if (delta.slot() >= 0 && delta.slot() < max) {
+                menu.applyRemoteSlot(delta.output(), delta.slot(), delta.stack());
+            }
+        }
+        if (!packet.recipeType().isEmpty() && mc.screen instanceof RecipeEditorScreen screen) {
+            screen.applyRemoteRecipeType(packet.recipeType());
+        }
+    }
+
+    /**
+     * Queues a local recipe type change for the other session members.
+     */
+    static void recipeTypeChanged(String recipeType) {
+        if (!isActive()) return;
+        pendingRecipeType = recipeType;
+        pendingSince = System.currentTimeMillis();
+    }
+
+    static void tick() {
+        if (pendingRecipeType != null && System.currentTimeMillis() - pendingSince >= TYPE_DEBOUNCE_MS) {
+            ModNetworking.sendToServer(new SessionRecipeTypePacket(pendingRecipeType));
+            pendingRecipeType = null;
+        }
+    }
+
+    static void reset() {
+        session = "";
+        revision = 0;
+        pendingRecipeType = null;
+    }
+}
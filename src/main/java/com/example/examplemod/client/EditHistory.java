@@ -0,0 +1,208 @@
+package com.example.examplemod.client;
+
+import net.minecraft.world.item.ItemStack;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Bounded undo/redo log for the recipe editor.
+ * <p>
+ * Each entry records a single slot or field change as (where, before, after) rather than a copy
+ * of the whole editor. Slot entries share stack references with the last-known state, so every
+ * edit costs one stack copy regardless of how many slots the recipe has.
+ */
+public class EditHistory {
+
+    /**
+     * Editor fields tracked besides the item slots.
+     */
+    public enum Field {
+        RECIPE_ID,
+        RECIPE_TYPE
+    }
+
+    /**
+     * Applies undone/redone values back to the editor.
+     */
+    public interface Target {
+        void setSlot(boolean output, int slot, ItemStack stack);
+
+        void setField(Field field, String value);
+    }
+
+    private interface Edit {
+        void apply(Target target, boolean undo);
+    }
+
+    private record SlotEdit(boolean output, int slot, ItemStack before, ItemStack after) implements Edit {
+        @Override
+        public void apply(Target target, boolean undo) {
+            target.setSlot(output, slot, (undo ? before : after).copy());
+        }
+    }
+
+    private record FieldEdit(Field field, String before, String after, long timestamp) implements Edit {
+        @Override
+        public void apply(Target target, boolean undo) {
+            target.setField(field, undo ? before : after);
+        }
+    }
+
+    private record CompoundEdit(List<Edit> edits) implements Edit {
+        @Override
+        public void apply(Target target, boolean undo) {
+            if (undo) {
+                for (int i = edits.size() - 1; i >= 0; i--) {
+                    edits.get(i).apply(target, true);
+                }
+            } else {
+                edits.forEach(edit -> edit.apply(target, false));
+            }
+        }
+    }
+
+    // Consecutive keystrokes in the same field within this window collapse into one edit
+    private static final long FIELD_MERGE_WINDOW_MS = 1000;
+
+    private final int capacity;
+    private final Deque<Edit> undoStack = new ArrayDeque<>();
+    private final Deque<Edit> redoStack = new ArrayDeque<>();
+    private final ItemStack[] inputState;
+    private final ItemStack[] outputState;
+    private final String[] fieldState = new String[Field.values().length];
+
+    private List<Edit> compound;
+    private boolean applying;
+
+    public EditHistory(int capacity, int inputSlots, int outputSlots) {
+        this.capacity = capacity;
+        this.inputState = new ItemStack[inputSlots];
+        this.outputState = new ItemStack[outputSlots];
+        Arrays.fill(inputState, ItemStack.EMPTY);
+        Arrays.fill(outputState, ItemStack.EMPTY);
+    }
+
+    /**
+     * Sets the last-known value of a field without recording an edit.
+     */
+    public void resetField(Field field, String value) {
+        fieldState[field.ordinal()] = value;
+    }
+
+    /**
+     * Records a slot change. Changes that leave the slot equal to its last-known contents
+     * (e.g. the server confirming a predicted click) are ignored.
+     */
+    public void recordSlot(boolean output, int slot, ItemStack stack) {
+        ItemStack[] state = output ? outputState : inputState;
+        if (slot < 0 || slot >= state.length) return;
+
+        ItemStack before = state[slot];
+        if (ItemStack.matches(before, stack)) return;
+
+        ItemStack after = stack.isEmpty() ? ItemStack.EMPTY : stack.copy();
+        state[slot] = after;
+        if (!applying) {
+            push(new SlotEdit(output, slot, before, after));
+        }
+    }
+
+    /**
+     * Updates the last-known contents of a slot changed by another player in a shared session,
+     * without recording an edit.
+     */
+    public void syncSlot(boolean output, int slot, ItemStack stack) {
+        ItemStack[] state = output ? outputState : inputState;
+        if (slot < 0 || slot >= state.length) return;
+
+        state[slot] = stack.isEmpty() ? ItemStack.EMPTY : stack.copy();
+    }
+
+    /**
+     * Records a field change, merging rapid successive changes of the same field.
+     */
+    public void recordField(Field field, String value) {
+        String before = fieldState[field.ordinal()];
+        if (value.equals(before)) return;
+
+        fieldState[field.ordinal()] = value;
+        if (applying) return;
+
+        long now = System.currentTimeMillis();
+        if (compound == null && redoStack.isEmpty() && undoStack.peekLast() instanceof FieldEdit last
+            && last.field() == field && now - last.timestamp() < FIELD_MERGE_WINDOW_MS) {
+            undoStack.pollLast();
+            if (!value.equals(last.before())) {
+                undoStack.addLast(new FieldEdit(field, last.before(), value, now));
+            }
+            return;
+        }
+        push(new FieldEdit(field, before == null ? "" : before, value, now));
+    }
+
+    /**
+     * Groups all edits recorded until {@link #endCompound()} into one undo step.
+     */
+    public void beginCompound() {
+        if (compound == null) {
+            compound = new ArrayList<>();
+        }
+    }
+
+    public void endCompound() {
+        List<Edit> edits = compound;
+        compound = null;
+        if (edits != null && !edits.isEmpty()) {
+            push(edits.size() == 1 ? edits.get(0) : new CompoundEdit(List.copyOf(edits)));
+        }
+    }
+
+    public boolean canUndo() {
+        return !undoStack.isEmpty();
+    }
+
+    public boolean canRedo() {
+        return !redoStack.isEmpty();
+    }
+
+    public boolean undo(Target target) {
+        Edit edit = undoStack.pollLast();
+        if (edit == null) return false;
+        apply(edit, target, true);
+        redoStack.addLast(edit);
+        return true;
+    }
+
+    public boolean redo(Target target) {
+        Edit edit = redoStack.pollLast();
+        if (edit == null) return false;
+        apply(edit, target, false);
+        undoStack.addLast(edit);
+        return true;
+    }
+
+    private void apply(Edit edit, Target target, boolean undo) {
+        applying = true;
+        try {
+            edit.apply(target, undo);
+        } finally {
+            applying = false;
+        }
+    }
+
+    private void push(Edit edit) {
+        if (compound != null) {
+            compound.add(edit);
+            return;
+        }
+        redoStack.clear();
+        undoStack.addLast(edit);
+        while (undoStack.size() > capacity) {
+            undoStack.pollFirst();
+        }
+    }
+}
@@ -1,24 +1,57 @@
 package com.example.examplemod.client;
 
+import com.example.examplemod.Config;
+import com.example.examplemod.export.ExportAction;
+import com.example.examplemod.export.ExportedScriptIndex;
+import com.example.examplemod.export.ItemRef;
+import com.example.examplemod.export.RecipeDraft;
+import com.example.examplemod.export.ScriptDirectoryWatcher;
+import com.example.examplemod.export.WriteResult;
 import com.example.examplemod.menu.RecipeEditorMenu;
+import com.example.examplemod.recipe.RawMaterialCalculator;
+import com.example.examplemod.recipe.RecentRecipeTypes;
+import com.example.examplemod.recipe.RecipeDiff;
+import com.example.examplemod.recipe.RecipeImporter;
+import com.example.examplemod.recipe.RecipeLoopDetector;
 import com.example.examplemod.recipe.RecipeTypeRegistry;
+import com.example.examplemod.recipe.RecipeUsageIndex;
 import com.example.examplemod.util.KubeJSExporter;
+import com.example.examplemod.util.RecipeTemplate;
+import com.mojang.logging.LogUtils;
+import it.unimi.dsi.fastutil.ints.Int2DoubleMap;
+import it.unimi.dsi.fastutil.ints.Int2DoubleOpenHashMap;
+import net.minecraft.Util;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.GuiGraphics;
 import net.minecraft.client.gui.components.Button;
 import net.minecraft.client.gui.components.EditBox;
+import net.minecraft.client.gui.components.Tooltip;
 import net.minecraft.client.gui.screens.inventory.AbstractContainerScreen;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.entity.player.Inventory;
 import net.minecraft.world.inventory.Slot;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.crafting.RecipeManager;
+import org.lwjgl.glfw.GLFW;
+import org.slf4j.Logger;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Main screen for the recipe editor GUI.
  * Allows users to visually create recipes and export them as KubeJS scripts.
  */
-public class RecipeEditorScreen extends AbstractContainerScreen<RecipeEditorMenu> {
+public class RecipeEditorScreen extends AbstractContainerScreen<RecipeEditorMenu> implements EditHistory.Target {
+    private static final Logger LOGGER = LogUtils.getLogger();
     private static final int SLOT_SIZE = 18;
     private static final int PANEL_BORDER_COLOR = 0xFF000000;
     private static final int PANEL_BACKGROUND_COLOR = 0xFF2D2D2D;
@@ -30,12 +63,30 @@ public class RecipeEditorScreen extends AbstractContainerScreen<RecipeEditorMenu
     private static final int OUTPUT_SLOT_COUNT = 9;
     private static final int PLAYER_INVENTORY_SLOT_COUNT = 27;
     private static final int HOTBAR_SLOT_COUNT = 9;
+    private static final int USAGE_LIST_LIMIT = 5;
+    private static final int RAW_COST_LIST_LIMIT = 4;
+    private static final int TAG_LIST_LIMIT = 3;
+    private static final int NBT_KEY_LIMIT = 4;
+    private static final int SLOT_BADGE_LENGTH = 4;
+    private static final int SLOT_BADGE_COLOR = 0xFFAAAAFF;
+    private static final int DIFF_LINE_LIMIT = 10;
+    private static final int DIFF_ADDED_COLOR = 0xFF55FF55;
+    private static final int DIFF_REMOVED_COLOR = 0xFFFF5555;
+    private static final int DIFF_CHANGED_COLOR = 0xFFFFFF55;
+    private static final int MAX_HISTORY = 256;
+    private static final int RECIPE_ID_COLOR = 0xE0E0E0;
+    private static final int RECIPE_ID_TAKEN_COLOR = 0xFFFF55;
 
     private EditBox recipeIdBox;
+    private EditBox templateBox;
     private Button modFilterButton;
     private Button recipeTypeButton;
     private Button exportButton;
+    private Button actionButton;
+    private Button loadButton;
     private Button clearButton;
+    private Button undoButton;
+    private Button redoButton;
 
     private String selectedMod = "minecraft";
     private String selectedRecipeType = "minecraft:crafting_shaped";
@@ -44,6 +95,43 @@ public class RecipeEditorScreen extends AbstractContainerScreen<RecipeEditorMenu
 
     private int modFilterIndex = 0;
     private int recipeTypeIndex = 0;
+    private boolean consumeNextRelease = false;
+    // Set while applying a change made by another session member
+    private boolean applyingRemote = false;
+    // Existing recipe loaded with the Load button, removed by Replace and Remove exports
+    private String replacedRecipeId;
+    private ExportAction exportAction = ExportAction.ADD;
+    // Recipes already present in the export directory, kept current by a file watcher
+    private final ExportedScriptIndex scriptIndex;
+    private Path recipeIdHintFile;
+    // Draft whose duplication warning was shown, so exporting it again goes ahead
+    private RecipeDraft acknowledgedExploit;
+    // Recipe types this player exported lately, listed first
+    private final RecentRecipeTypes recentTypes;
+    // Diff of the draft against the replaced recipe, recomputed off-thread at most once a tick
+    // after an edit; the rendered lines are cached with it
+    private RecipeDraft diffedDraft;
+    private RecipeDiff recipeDiff;
+    private List<Component> diffLines = List.of();
+    private int diffWidth;
+    private boolean diffStale;
+    private int diffGeneration;
+    // Tooltips and overlay badges of the editor slots, so hovering and drawing them builds no strings per frame
+    private final SlotInfoCache slotInfo = new SlotInfoCache(INPUT_SLOT_COUNT, OUTPUT_SLOT_COUNT);
+
+    // Context the cached slot info was last checked against, once per frame
+    private SlotInfoContext slotInfoContext;
+
+    /**
+     * What cached slot info depends on besides the slot's own stack. Items and mods may show more
+     * in their tooltip while Shift or Ctrl is held.
+     */
+    private record SlotInfoContext(RawMaterialCalculator calculator, boolean advancedTooltips,
+                                   boolean shiftDown, boolean controlDown) {
+    }
+
+    private final EditHistory history = new EditHistory(
+        MAX_HISTORY, RecipeEditorMenu.getMaxInputSlots(), RecipeEditorMenu.getMaxOutputSlots());
 
     public RecipeEditorScreen(RecipeEditorMenu menu, Inventory playerInventory, Component title) {
         super(menu, playerInventory, title);
@@ -54,8 +142,30 @@ public class RecipeEditorScreen extends AbstractContainerScreen<RecipeEditorMenu
 
         // Initialize recipe type registry
         RecipeTypeRegistry.scanRecipeTypes();
-        availableMods = RecipeTypeRegistry.getModNamespaces();
+        scriptIndex = ScriptDirectoryWatcher.watch(Config.exportSettings.outputPath());
+        recentTypes = RecentRecipeTypes.forPlayer(playerInventory.player.getUUID());
+        availableMods = RecentRecipeTypes.promote(RecipeTypeRegistry.getModNamespaces(), recentTypes.mods(), mod -> mod);
+        if (!recentTypes.mods().isEmpty() && availableMods.contains(recentTypes.mods().get(0))) {
+            // Start on the most recently exported type, which leads its mod's list
+            selectedMod = recentTypes.mods().get(0);
+        }
+        modFilterIndex = Math.max(0, availableMods.indexOf(selectedMod));
         updateAvailableRecipeTypes();
+
+        history.resetField(EditHistory.Field.RECIPE_TYPE, selectedRecipeType);
+        menu.setSlotChangeListener((output, slot, stack, remote) -> {
+            if (remote) {
+                history.syncSlot(output, slot, stack);
+            } else {
+                history.recordSlot(output, slot, stack);
+            }
+            diffStale = true;
+            slotInfo.invalidate(output, slot);
+            if (!output) {
+                // Output tooltips include the cost of all inputs
+                slotInfo.invalidateOutputs();
+            }
+        });
     }
 
     @Override
@@ -71,54 +181,123 @@ public class RecipeEditorScreen extends AbstractContainerScreen<RecipeEditorMenu
         this.recipeIdBox.setMaxLength(128);
         this.recipeIdBox.setValue("my_recipe");
         this.recipeIdBox.setHint(Component.literal("Recipe ID..."));
+        history.resetField(EditHistory.Field.RECIPE_ID, recipeIdBox.getValue());
+        this.recipeIdBox.setResponder(value -> history.recordField(EditHistory.Field.RECIPE_ID, value));
         this.addRenderableWidget(recipeIdBox);
 
         // Mod filter button (left side)
         this.modFilterButton = Button.builder(
-            Component.literal("Mod: " + selectedMod),
+            modLabel(),
             button -> cycleModFilter()
         ).bounds(buttonX, buttonY + 22, 85, 20).build();
         this.addRenderableWidget(modFilterButton);
 
         // Recipe type button (left side)
         this.recipeTypeButton = Button.builder(
-            Component.literal(getShortRecipeTypeName()),
+            recipeTypeLabel(),
             button -> cycleRecipeType()
         ).bounds(buttonX, buttonY + 44, 85, 20).build();
         this.addRenderableWidget(recipeTypeButton);
 
-        // Export button (left side)
+        // Export button and what it does to existing recipes share one row (left side)
         this.exportButton = Button.builder(
             Component.literal("Export"),
             button -> exportRecipe()
-        ).bounds(buttonX, buttonY + 66, 85, 20).build();
+        ).bounds(buttonX, buttonY + 66, 41, 20).build();
         this.addRenderableWidget(exportButton);
 
-        // Clear button (left side)
+        this.actionButton = Button.builder(
+            Component.empty(),
+            button -> cycleExportAction()
+        ).bounds(buttonX + 44, buttonY + 66, 41, 20).build();
+        this.addRenderableWidget(actionButton);
+        updateExportAction();
+
+        // Load reads the recipe named in the ID box from the recipe manager (left side)
+        this.loadButton = Button.builder(
+            Component.literal("Load"),
+            button -> loadRecipe()
+        ).bounds(buttonX, buttonY + 88, 41, 20).build();
+        this.addRenderableWidget(loadButton);
+
         this.clearButton = Button.builder(
             Component.literal("Clear"),
             button -> clearRecipe()
-        ).bounds(buttonX, buttonY + 88, 85, 20).build();
+        ).bounds(buttonX + 44, buttonY + 88, 41, 20).build();
         this.addRenderableWidget(clearButton);
 
+        // Undo / redo share one row (left side)
+        this.undoButton = Button.builder(
+            Component.literal("Undo"),
+            button -> history.undo(this)
+        ).bounds(buttonX, buttonY + 110, 41, 20).build();
+        this.addRenderableWidget(undoButton);
+
+        this.redoButton = Button.builder(
+            Component.literal("Redo"),
+            button -> history.redo(this)
+        ).bounds(buttonX + 44, buttonY + 110, 41, 20).build();
+        this.addRenderableWidget(redoButton);
+
+        // Template binding (left side): when set, Export expands the recipe over every value
+        this.templateBox = new EditBox(this.font, buttonX, buttonY + 132, 85, 16, Component.literal("Template"));
+        this.templateBox.setMaxLength(1024);
+        this.templateBox.setHint(Component.literal("iron,gold / #tag"));
+        this.addRenderableWidget(templateBox);
+
+        // The ID box was just recreated without a hint
+        recipeIdHintFile = null;
+        updateRecipeIdHint();
         updateSlotConfiguration();
         updateLayout();
     }
 
+    @Override
+    protected void containerTick() {
+        super.containerTick();
+        // Also catches scripts changing on disk while the ID stays the same
+        updateRecipeIdHint();
+        if (diffStale) {
+            diffStale = false;
+            updateRecipeDiff();
+        }
+    }
+
+    /**
+     * Marks the recipe ID box when the ID is already defined by an exported script.
+     */
+    private void updateRecipeIdHint() {
+        Path file = scriptIndex.fileFor("kubejs:" + recipeIdBox.getValue()).orElse(null);
+        if (Objects.equals(file, recipeIdHintFile)) return;
+
+        recipeIdHintFile = file;
+        if (file == null) {
+            recipeIdBox.setTooltip(null);
+            recipeIdBox.setTextColor(RECIPE_ID_COLOR);
+        } else {
+            Path root = Config.exportSettings.outputPath().toAbsolutePath().normalize();
+            String shown = file.startsWith(root) ? root.relativize(file).toString() : file.toString();
+            recipeIdBox.setTooltip(Tooltip.create(Component.literal("kubejs:" + recipeIdBox.getValue()
+                + " is already defined in " + shown)));
+            recipeIdBox.setTextColor(RECIPE_ID_TAKEN_COLOR);
+        }
+    }
+
     private void cycleModFilter() {
         if (availableMods.isEmpty()) return;
 
         modFilterIndex = (modFilterIndex + 1) % availableMods.size();
         selectedMod = availableMods.get(modFilterIndex);
-        modFilterButton.setMessage(Component.literal("Mod: " + selectedMod));
+        modFilterButton.setMessage(modLabel());
 
         updateAvailableRecipeTypes();
         recipeTypeIndex = 0;
         if (!availableRecipeTypes.isEmpty()) {
             selectedRecipeType = availableRecipeTypes.get(0).getFullId();
-            recipeTypeButton.setMessage(Component.literal(getShortRecipeTypeName()));
+            recipeTypeButton.setMessage(recipeTypeLabel());
             updateSlotConfiguration();
         }
+        onRecipeTypeChanged();
     }
 
     private void cycleRecipeType() {
@@ -126,8 +305,71 @@ public class RecipeEditorScreen extends AbstractContainerScreen<RecipeEditorMenu
 
         recipeTypeIndex = (recipeTypeIndex + 1) % availableRecipeTypes.size();
         selectedRecipeType = availableRecipeTypes.get(recipeTypeIndex).getFullId();
-        recipeTypeButton.setMessage(Component.literal(getShortRecipeTypeName()));
+        recipeTypeButton.setMessage(recipeTypeLabel());
         updateSlotConfiguration();
+        onRecipeTypeChanged();
+    }
+
+    /**
+     * Selects a recipe type directly, moving the mod filter to the type's namespace.
+     */
+    private void selectRecipeType(String recipeType) {
+        String modId = recipeType.contains(":") ? recipeType.substring(0, recipeType.indexOf(':')) : "minecraft";
+        int modIndex = availableMods.indexOf(modId);
+        if (modIndex < 0) return;
+
+        modFilterIndex = modIndex;
+        selectedMod = modId;
+        modFilterButton.setMessage(modLabel());
+        updateAvailableRecipeTypes();
+
+        for (int i = 0; i < availableRecipeTypes.size(); i++) {
+            if (availableRecipeTypes.get(i).getFullId().equals(recipeType)) {
+                recipeTypeIndex = i;
+                selectedRecipeType = recipeType;
+                break;
+            }
+        }
+        recipeTypeButton.setMessage(recipeTypeLabel());
+        updateSlotConfiguration();
+        onRecipeTypeChanged();
+    }
+
+    /**
+     * Applies a recipe type picked by another member of the editing session.
+     */
+    void applyRemoteRecipeType(String recipeType) {
+        applyingRemote = true;
+        try {
+            selectRecipeType(recipeType);
+        } finally {
+            applyingRemote = false;
+        }
+    }
+
+    private void onRecipeTypeChanged() {
+        diffStale = true;
+        // The number of active inputs, and so the cost of the inputs, may have changed
+        slotInfo.invalidateOutputs();
+        if (applyingRemote) {
+            history.resetField(EditHistory.Field.RECIPE_TYPE, selectedRecipeType);
+        } else {
+            history.recordField(EditHistory.Field.RECIPE_TYPE, selectedRecipeType);
+            ClientSessionState.recipeTypeChanged(selectedRecipeType);
+        }
+    }
+
+    @Override
+    public void setSlot(boolean output, int slot, ItemStack stack) {
+        (output ? menu.getOutputItems() : menu.getInputItems()).setStackInSlot(slot, stack);
+    }
+
+    @Override
+    public void setField(EditHistory.Field field, String value) {
+        switch (field) {
+            case RECIPE_ID -> recipeIdBox.setValue(value);
+            case RECIPE_TYPE -> selectRecipeType(value);
+        }
     }
 
     private String getShortRecipeTypeName() {
@@ -137,8 +379,26 @@ public class RecipeEditorScreen extends AbstractContainerScreen<RecipeEditorMenu
         return parts.length > 1 ? parts[1] : fullType;
     }
 
+    private Component modLabel() {
+        return Component.literal("Mod: " + selectedMod + countSuffix(RecipeTypeRegistry.getRecipeCount(selectedMod)));
+    }
+
+    private Component recipeTypeLabel() {
+        int count = availableRecipeTypes.stream()
+            .filter(info -> info.getFullId().equals(selectedRecipeType))
+            .mapToInt(RecipeTypeRegistry.RecipeTypeInfo::getRecipeCount)
+            .findFirst().orElse(0);
+        return Component.literal(getShortRecipeTypeName() + countSuffix(count));
+    }
+
+    private static String countSuffix(int count) {
+        if (count <= 0) return "";
+        return count < 1000 ? " (" + count + ")" : String.format(Locale.ROOT, " (%.1fk)", count / 1000.0);
+    }
+
     private void updateAvailableRecipeTypes() {
-        availableRecipeTypes = RecipeTypeRegistry.getRecipeTypesForMod(selectedMod);
+        availableRecipeTypes = RecentRecipeTypes.promote(RecipeTypeRegistry.getRecipeTypesForMod(selectedMod),
+            recentTypes.types(), RecipeTypeRegistry.RecipeTypeInfo::getFullId);
         if (!availableRecipeTypes.isEmpty()) {
             selectedRecipeType = availableRecipeTypes.get(0).getFullId();
         }
@@ -164,8 +424,11 @@ public class RecipeEditorScreen extends AbstractContainerScreen<RecipeEditorMenu
         } else if (recipeType.contains("smithing")) {
             menu.setActiveSlots(3, 1); // Template, base, addition -> output
         } else {
-            // Default configuration
-            menu.setActiveSlots(9, 9); // 3 inputs, 2 outputs
+            // Other types are sized after their existing recipes, once the background scan has sampled them
+            RecipeTypeRegistry.getLayout(selectedRecipeType).ifPresentOrElse(
+                layout -> menu.setActiveSlots(Math.min(layout.inputs(), RecipeEditorMenu.getMaxInputSlots()),
+                    Math.min(layout.outputs(), RecipeEditorMenu.getMaxOutputSlots())),
+                () -> menu.setActiveSlots(9, 9));
         }
     }
 
@@ -175,36 +438,262 @@ public class RecipeEditorScreen extends AbstractContainerScreen<RecipeEditorMenu
             recipeId = "my_recipe";
         }
 
-        String script = KubeJSExporter.generateRecipeScript(
-            selectedRecipeType,
-            recipeId,
-            menu.getInputItems(),
-            menu.getOutputItems(),
-            menu.getActiveInputSlots(),
-            menu.getActiveOutputSlots()
-        );
+        final String exportedId = recipeId;
+        if (!templateBox.getValue().isBlank()) {
+            recentTypes.record(selectedRecipeType);
+            exportTemplate(exportedId);
+            return;
+        }
+
+        RecipeDraft draft = menu.snapshot(selectedRecipeType);
+        if (exportAction.adds() && !checkRecipeLoops(draft)) return;
+        recentTypes.record(selectedRecipeType);
+
+        // Reported as submitted, as Clear or the action button may change these before the write ends
+        ExportAction action = exportAction;
+        String replacedId = replacedRecipeId;
+        KubeJSExporter.export(draft, recipeId, action, replacedId,
+            Config.exportSettings).whenComplete((result, error) -> {
+                Minecraft mc = Minecraft.getInstance();
+                mc.execute(() -> reportExport(exportedId, action, replacedId, result, error));
+            });
+    }
+
+    /**
+     * Warns about loops the draft closes in the recipe graph. A loop yielding more than it costs
+     * blocks the first export attempt of that draft; exporting it again goes ahead.
+     *
+     * @return whether to export
+     */
+    private boolean checkRecipeLoops(RecipeDraft draft) {
+        RecipeUsageIndex index = RecipeUsageIndex.get();
+        if (index.isEmpty() || minecraft == null || minecraft.player == null) return true;
+
+        ResourceLocation replaced = exportAction == ExportAction.REPLACE ? ResourceLocation.tryParse(replacedRecipeId) : null;
+        List<RecipeLoopDetector.Loop> loops = RecipeLoopDetector.findLoops(index, draft, replaced);
+        if (loops.isEmpty()) return true;
+
+        RecipeLoopDetector.Loop worst = loops.get(0);
+        if (!worst.isExploit()) {
+            minecraft.player.sendSystemMessage(Component.literal("§eThis recipe closes a loop: " + worst.describe()));
+            return true;
+        }
+        if (draft.equals(acknowledgedExploit)) return true;
+
+        acknowledgedExploit = draft;
+        minecraft.player.sendSystemMessage(Component.literal(String.format(Locale.ROOT,
+            "§cPossible duplication exploit: %s yields x%.2f per trip%s. Export again to export anyway.",
+            worst.describe(), worst.gain(), worst.recipes().isEmpty() ? "" : " via " + worst.recipes())));
+        return false;
+    }
 
-        boolean success = KubeJSExporter.exportToFile(script, recipeId);
+    private void cycleExportAction() {
+        // Replace and Remove need a loaded recipe to act on
+        if (replacedRecipeId != null) {
+            ExportAction[] actions = ExportAction.values();
+            exportAction = actions[(exportAction.ordinal() + 1) % actions.length];
+        }
+        updateExportAction();
+    }
 
-        if (success && minecraft != null && minecraft.player != null) {
-            minecraft.player.sendSystemMessage(
-                Component.literal("§aRecipe exported to kubejs/server_scripts/" + recipeId + ".js")
+    private void updateExportAction() {
+        String label = switch (exportAction) {
+            case ADD -> "Add";
+            case REPLACE -> "Replace";
+            case REMOVE -> "Remove";
+        };
+        actionButton.setMessage(Component.literal(label));
+        actionButton.setTooltip(Tooltip.create(Component.literal(replacedRecipeId == null
+            ? "Load an existing recipe to replace or remove it"
+            : exportAction == ExportAction.ADD ? "Keeps " + replacedRecipeId
+            : exportAction == ExportAction.REPLACE ? "Removes " + replacedRecipeId + " and adds this recipe"
+            : "Only removes " + replacedRecipeId)));
+    }
+
+    private void loadRecipe() {
+        Minecraft mc = Minecraft.getInstance();
+        if (mc.level == null || mc.player == null) return;
+
+        String value = recipeIdBox.getValue().trim();
+        ResourceLocation id = ResourceLocation.tryParse(value);
+        Optional<RecipeImporter.Imported> loaded = id == null ? Optional.empty()
+            : RecipeImporter.load(mc.level.getRecipeManager(), mc.level.registryAccess(), id,
+                RecipeEditorMenu.getMaxInputSlots());
+        if (loaded.isEmpty()) {
+            mc.player.sendSystemMessage(Component.literal("§cNo recipe with ID " + value));
+            return;
+        }
+
+        RecipeImporter.Imported recipe = loaded.get();
+        history.beginCompound();
+        selectRecipeType(recipe.recipeType());
+        for (int i = 0; i < RecipeEditorMenu.getMaxInputSlots(); i++) {
+            menu.getInputItems().setStackInSlot(i, i < recipe.inputs().size() ? recipe.inputs().get(i) : ItemStack.EMPTY);
+        }
+        for (int i = 0; i < RecipeEditorMenu.getMaxOutputSlots(); i++) {
+            menu.getOutputItems().setStackInSlot(i, i < recipe.outputs().size() ? recipe.outputs().get(i) : ItemStack.EMPTY);
+        }
+        recipeIdBox.setValue(id.getPath());
+        history.endCompound();
+
+        replacedRecipeId = id.toString();
+        exportAction = ExportAction.REPLACE;
+        updateExportAction();
+        diffedDraft = null;
+        diffStale = true;
+        mc.player.sendSystemMessage(Component.literal("§aLoaded " + replacedRecipeId + ", exporting will replace it"));
+    }
+
+    private void exportTemplate(String recipeId) {
+        Minecraft mc = Minecraft.getInstance();
+        try {
+            KubeJSExporter.exportTemplate(
+                menu.snapshot(selectedRecipeType),
+                recipeId,
+                RecipeTemplate.parse(templateBox.getValue())
+            ).whenComplete((result, error) -> mc.execute(() -> {
+                if (mc.player == null) return;
+                if (error == null) {
+                    WriteResult files = result.files();
+                    String unchanged = files.unchanged() > 0 ? ", " + files.unchanged() + " files unchanged" : "";
+                    mc.player.sendSystemMessage(Component.literal("§aTemplate " + recipeId + " expanded to "
+                        + result.recipes() + " recipes (" + result.skipped() + " skipped) in " + files.path() + unchanged));
+                } else {
+                    reportExport(recipeId, ExportAction.ADD, null, null, error);
+                }
+            }));
+        } catch (IllegalArgumentException e) {
+            if (mc.player != null) {
+                mc.player.sendSystemMessage(Component.literal("§cTemplate error: " + e.getMessage()));
+            }
+        }
+    }
+
+    private void reportExport(String recipeId, ExportAction action, String replacedId, WriteResult result, Throwable error) {
+        Minecraft mc = Minecraft.getInstance();
+        if (mc.player == null) return;
+
+        if (error == null && result.isUnchanged()) {
+            mc.player.sendSystemMessage(
+                Component.literal("§7Recipe " + recipeId + " is unchanged, " + result.path() + " was not rewritten")
+            );
+        } else if (error == null) {
+            String what = action == ExportAction.REMOVE ? "Removal of " + replacedId : "Recipe " + recipeId;
+            mc.player.sendSystemMessage(
+                Component.literal("§a" + what + " exported to " + result.path())
             );
-        } else if (minecraft != null && minecraft.player != null) {
-            minecraft.player.sendSystemMessage(
+        } else {
+            mc.player.sendSystemMessage(
                 Component.literal("§cFailed to export recipe. Check console for details.")
             );
         }
     }
 
+    /**
+     * Diffs the draft against the live recipe it replaces on a worker thread. Results of a diff
+     * overtaken by a newer edit are dropped.
+     */
+    private void updateRecipeDiff() {
+        Minecraft mc = Minecraft.getInstance();
+        ResourceLocation replaced = replacedRecipeId == null ? null : ResourceLocation.tryParse(replacedRecipeId);
+        if (mc.level == null || replaced == null) return;
+
+        RecipeDraft draft = menu.snapshot(selectedRecipeType);
+        if (draft.equals(diffedDraft)) return;
+        diffedDraft = draft;
+
+        int generation = ++diffGeneration;
+        RecipeManager recipeManager = mc.level.getRecipeManager();
+        RegistryAccess registryAccess = mc.level.registryAccess();
+        CompletableFuture.supplyAsync(() -> RecipeDiff.against(recipeManager, registryAccess, replaced, draft,
+                RecipeEditorMenu.getMaxInputSlots()), Util.backgroundExecutor())
+            .whenCompleteAsync((diff, error) -> {
+                if (generation != diffGeneration) return;
+                if (error != null) {
+                    LOGGER.warn("Failed to diff the draft against {}", replaced, error);
+                    diffedDraft = null;
+                    return;
+                }
+                setRecipeDiff(diff.orElse(null));
+            }, mc);
+    }
+
+    /**
+     * Called when the client's recipes are replaced, by {@code /reload} or a datapack sync, so the
+     * diff is redone against the recipe loaded now even if the draft didn't change.
+     */
+    public void onRecipesUpdated() {
+        diffedDraft = null;
+        diffStale = true;
+    }
+
+    private void setRecipeDiff(RecipeDiff diff) {
+        recipeDiff = diff;
+        List<Component> lines = new ArrayList<>();
+        if (diff == null) {
+            lines.add(Component.literal("§c" + replacedRecipeId + " is no longer loaded"));
+        } else if (diff.isEmpty()) {
+            lines.add(Component.literal("§7Same as " + diff.recipeId()));
+        } else {
+            lines.add(Component.literal("§7Changes to " + diff.recipeId() + ":"));
+            if (diff.typeChanged()) {
+                lines.add(Component.literal("§e Type: " + diff.liveType() + " → " + diff.draftType()));
+            }
+            int shown = Math.min(diff.changes().size(), DIFF_LINE_LIMIT);
+            for (int i = 0; i < shown; i++) {
+                lines.add(Component.literal(describeChange(diff.changes().get(i))));
+            }
+            if (diff.changes().size() > shown) {
+                lines.add(Component.literal("§8 and " + (diff.changes().size() - shown) + " more"));
+            }
+        }
+        diffLines = List.copyOf(lines);
+        diffWidth = diffLines.stream().mapToInt(font::width).max().orElse(0);
+    }
+
+    private static String describeChange(RecipeDiff.SlotChange change) {
+        String slot = (change.output() ? "Output " : "Input ") + (change.slot() + 1) + ": ";
+        ItemRef before = change.before();
+        ItemRef after = change.after();
+        return switch (change.kind()) {
+            case ADDED -> "§a " + slot + "+ " + after.count() + " × " + after.id();
+            case REMOVED -> "§c " + slot + "- " + before.count() + " × " + before.id();
+            case ITEM -> "§e " + slot + before.count() + " × " + before.id() + " → " + after.count() + " × " + after.id();
+            case COUNT -> "§e " + slot + before.id() + " × " + before.count() + " → " + after.count();
+        };
+    }
+
+    private static int diffColor(RecipeDiff.Kind kind) {
+        return switch (kind) {
+            case ADDED -> DIFF_ADDED_COLOR;
+            case REMOVED -> DIFF_REMOVED_COLOR;
+            case ITEM, COUNT -> DIFF_CHANGED_COLOR;
+        };
+    }
+
+    private boolean showsRecipeDiff() {
+        return exportAction == ExportAction.REPLACE && !diffLines.isEmpty();
+    }
+
     private void clearRecipe() {
-        // Clear all input and output slots
+        // Clear all input and output slots as a single undo step
+        history.beginCompound();
         for (int i = 0; i < menu.getActiveInputSlots(); i++) {
             menu.getInputItems().setStackInSlot(i, net.minecraft.world.item.ItemStack.EMPTY);
         }
         for (int i = 0; i < menu.getActiveOutputSlots(); i++) {
             menu.getOutputItems().setStackInSlot(i, net.minecraft.world.item.ItemStack.EMPTY);
         }
+        history.endCompound();
+
+        // A cleared editor starts a new recipe, so exporting must not replace the loaded one
+        replacedRecipeId = null;
+        exportAction = ExportAction.ADD;
+        updateExportAction();
+        diffGeneration++;
+        diffedDraft = null;
+        recipeDiff = null;
+        diffLines = List.of();
     }
 
     private void updateLayout() {
@@ -231,7 +720,14 @@ public class RecipeEditorScreen extends AbstractContainerScreen<RecipeEditorMenu
         modFilterButton.setPosition(buttonX, buttonY + rowGap);
         recipeTypeButton.setPosition(buttonX, buttonY + rowGap * 2);
         exportButton.setPosition(buttonX, buttonY + rowGap * 3);
-        clearButton.setPosition(buttonX, buttonY + rowGap * 4);
+        actionButton.setPosition(buttonX + 44, buttonY + rowGap * 3);
+        loadButton.setPosition(buttonX, buttonY + rowGap * 4);
+        clearButton.setPosition(buttonX + 44, buttonY + rowGap * 4);
+        undoButton.setPosition(buttonX, buttonY + rowGap * 5);
+        redoButton.setPosition(buttonX + 44, buttonY + rowGap * 5);
+
+        templateBox.setX(buttonX);
+        templateBox.setY(buttonY + rowGap * 6);
     }
 
     @Override
@@ -271,26 +767,243 @@ public class RecipeEditorScreen extends AbstractContainerScreen<RecipeEditorMenu
 
         // Draw player hotbar slots
         drawSlotGroup(guiGraphics, INPUT_SLOT_COUNT + OUTPUT_SLOT_COUNT + PLAYER_INVENTORY_SLOT_COUNT, HOTBAR_SLOT_COUNT);
+
+        // Outline the slots the draft changes compared to the recipe it replaces
+        if (showsRecipeDiff() && recipeDiff != null) {
+            for (RecipeDiff.SlotChange change : recipeDiff.changes()) {
+                int active = change.output() ? menu.getActiveOutputSlots() : menu.getActiveInputSlots();
+                if (change.slot() >= active) continue;
+                Slot slot = menu.slots.get((change.output() ? INPUT_SLOT_COUNT : 0) + change.slot());
+                guiGraphics.renderOutline(x + slot.x - 1, y + slot.y - 1, SLOT_SIZE, SLOT_SIZE, diffColor(change.kind()));
+            }
+        }
     }
 
     @Override
     public void render(GuiGraphics guiGraphics, int mouseX, int mouseY, float partialTick) {
+        validateSlotInfo();
         renderBackground(guiGraphics);
         super.render(guiGraphics, mouseX, mouseY, partialTick);
+        if (showsRecipeDiff()) {
+            renderRecipeDiff(guiGraphics);
+        }
         renderTooltip(guiGraphics, mouseX, mouseY);
     }
 
+    /**
+     * Draws the cached diff lines beside the panel, on the side the controls don't use.
+     */
+    private void renderRecipeDiff(GuiGraphics guiGraphics) {
+        final int margin = 6;
+        int x = recipeIdBox.getX() < leftPos ? leftPos + imageWidth + margin : leftPos - margin - diffWidth;
+        x = Math.max(margin, Math.min(x, width - diffWidth - margin));
+        int y = topPos;
+        for (Component line : diffLines) {
+            guiGraphics.drawString(font, line, x, y, 0xFFFFFF);
+            y += font.lineHeight + 1;
+        }
+    }
+
     @Override
     protected void renderLabels(GuiGraphics guiGraphics, int mouseX, int mouseY) {
         guiGraphics.drawString(this.font, this.title, this.titleLabelX, this.titleLabelY, 4210752, false);
         guiGraphics.drawString(this.font, this.playerInventoryTitle, this.inventoryLabelX, this.inventoryLabelY, 4210752, false);
     }
 
+    @Override
+    public boolean mouseClicked(double mouseX, double mouseY, int button) {
+        // Alt+click on any slot looks up where the item is made and used instead of moving it.
+        Slot slot = getSlotUnderMouse();
+        if (hasAltDown() && slot != null && slot.hasItem()) {
+            showRecipeUsage(slot.getItem());
+            consumeNextRelease = true;
+            return true;
+        }
+        return super.mouseClicked(mouseX, mouseY, button);
+    }
+
+    @Override
+    public boolean mouseReleased(double mouseX, double mouseY, int button) {
+        if (consumeNextRelease) {
+            consumeNextRelease = false;
+            return true;
+        }
+        return super.mouseReleased(mouseX, mouseY, button);
+    }
+
+    @Override
+    protected List<Component> getTooltipFromContainerItem(ItemStack stack) {
+        if (hoveredSlot == null || hoveredSlot.index >= INPUT_SLOT_COUNT + OUTPUT_SLOT_COUNT) {
+            return super.getTooltipFromContainerItem(stack);
+        }
+        boolean output = hoveredSlot.index >= INPUT_SLOT_COUNT;
+        return slotInfo.tooltip(output, hoveredSlot.getContainerSlot(), stack, item -> buildSlotTooltip(output, item));
+    }
+
+    @Override
+    protected void renderSlot(GuiGraphics guiGraphics, Slot slot) {
+        super.renderSlot(guiGraphics, slot);
+        if (slot.index >= INPUT_SLOT_COUNT + OUTPUT_SLOT_COUNT || !slot.hasItem()) return;
+
+        String badge = slotInfo.badge(slot.index >= INPUT_SLOT_COUNT, slot.getContainerSlot(), slot.getItem(),
+            RecipeEditorScreen::slotBadge);
+        if (badge.isEmpty()) return;
+        // Half-size, above the item and its count
+        guiGraphics.pose().pushPose();
+        guiGraphics.pose().translate(slot.x, slot.y, 300);
+        guiGraphics.pose().scale(0.5f, 0.5f, 1);
+        guiGraphics.drawString(font, badge, 0, 0, SLOT_BADGE_COLOR);
+        guiGraphics.pose().popPose();
+    }
+
+    /**
+     * Drops the cached slot info if what it was built from changed: recipes reloaded, advanced
+     * tooltips toggled, or Shift or Ctrl pressed or released. Called once per frame, before any
+     * slot is drawn or hovered.
+     */
+    private void validateSlotInfo() {
+        RawMaterialCalculator calculator = RawMaterialCalculator.get();
+        boolean advancedTooltips = minecraft.options.advancedItemTooltips;
+        boolean shiftDown = hasShiftDown();
+        boolean controlDown = hasControlDown();
+        SlotInfoContext context = slotInfoContext;
+        if (context != null && context.calculator() == calculator && context.advancedTooltips() == advancedTooltips
+                && context.shiftDown() == shiftDown && context.controlDown() == controlDown) {
+            return;
+        }
+        slotInfoContext = new SlotInfoContext(calculator, advancedTooltips, shiftDown, controlDown);
+        slotInfo.validate(slotInfoContext);
+    }
+
+    private List<Component> buildSlotTooltip(boolean output, ItemStack stack) {
+        List<Component> lines = new ArrayList<>(super.getTooltipFromContainerItem(stack));
+        if (!minecraft.options.advancedItemTooltips) {
+            lines.add(Component.literal("§8" + BuiltInRegistries.ITEM.getKey(stack.getItem())));
+        }
+        List<String> tags = stack.getTags().map(tag -> "#" + tag.location()).sorted().toList();
+        if (!tags.isEmpty()) {
+            int shown = Math.min(tags.size(), TAG_LIST_LIMIT);
+            lines.add(Component.literal("§8" + String.join(", ", tags.subList(0, shown))
+                + (tags.size() > shown ? " and " + (tags.size() - shown) + " more" : "")));
+        }
+        if (stack.getTag() != null && !stack.getTag().isEmpty()) {
+            List<String> keys = stack.getTag().getAllKeys().stream().sorted().toList();
+            int shown = Math.min(keys.size(), NBT_KEY_LIMIT);
+            lines.add(Component.literal("§8NBT: " + String.join(", ", keys.subList(0, shown))
+                + (keys.size() > shown ? " and " + (keys.size() - shown) + " more" : "")));
+        }
+
+        RawMaterialCalculator calculator = slotInfoContext.calculator();
+        if (calculator.isEmpty()) return lines;
+
+        int itemId = RecipeUsageIndex.itemId(stack.getItem());
+        RawMaterialCalculator.Cost cost = calculator.costOf(stack.getItem(), stack.getCount());
+        if (cost.isRaw(itemId)) {
+            lines.add(Component.literal("§8Raw material"));
+        } else {
+            appendRawCost(lines, "Raw cost", cost);
+        }
+
+        if (output) {
+            // What the draft's inputs cost, to weigh against the output's usual cost above
+            Int2DoubleOpenHashMap inputs = new Int2DoubleOpenHashMap();
+            for (int slot = 0; slot < menu.getActiveInputSlots(); slot++) {
+                ItemStack input = menu.getInputItems().getStackInSlot(slot);
+                if (!input.isEmpty()) inputs.addTo(RecipeUsageIndex.itemId(input.getItem()), input.getCount());
+            }
+            if (!inputs.isEmpty()) {
+                appendRawCost(lines, "This recipe's inputs", calculator.costOf(inputs));
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Slot overlay naming the mod of a modded item, cut to a few letters; vanilla items have none.
+     */
+    private static String slotBadge(ItemStack stack) {
+        String namespace = BuiltInRegistries.ITEM.getKey(stack.getItem()).getNamespace();
+        if (namespace.equals("minecraft")) return "";
+        return namespace.length() > SLOT_BADGE_LENGTH ? namespace.substring(0, SLOT_BADGE_LENGTH) : namespace;
+    }
+
+    private static void appendRawCost(List<Component> lines, String heading, RawMaterialCalculator.Cost cost) {
+        lines.add(Component.literal("§7" + heading + ": " + formatAmount(cost.total()) + " items"));
+        List<Int2DoubleMap.Entry> entries = cost.sorted();
+        int shown = Math.min(entries.size(), RAW_COST_LIST_LIMIT);
+        for (int i = 0; i < shown; i++) {
+            Int2DoubleMap.Entry entry = entries.get(i);
+            lines.add(Component.literal("§8  " + formatAmount(entry.getDoubleValue()) + " × "
+                + BuiltInRegistries.ITEM.getKey(BuiltInRegistries.ITEM.byId(entry.getIntKey()))));
+        }
+        if (entries.size() > shown) {
+            lines.add(Component.literal("§8  and " + (entries.size() - shown) + " more"));
+        }
+    }
+
+    private static String formatAmount(double amount) {
+        return Math.abs(amount - Math.rint(amount)) < 1e-6
+            ? Long.toString(Math.round(amount))
+            : String.format(Locale.ROOT, "%.2f", amount);
+    }
+
+    private void showRecipeUsage(ItemStack stack) {
+        if (minecraft == null || minecraft.player == null) return;
+
+        RecipeUsageIndex index = RecipeUsageIndex.get();
+        if (index.isEmpty()) {
+            minecraft.player.sendSystemMessage(Component.literal("§eRecipe index is still being built, try again shortly."));
+            return;
+        }
+
+        int[] producers = index.producersOf(stack.getItem());
+        int[] consumers = index.consumersOf(stack.getItem());
+        String itemId = BuiltInRegistries.ITEM.getKey(stack.getItem()).toString();
+
+        minecraft.player.sendSystemMessage(Component.literal(
+            "§e" + itemId + "§r: made by " + producers.length + " recipe(s), used in " + consumers.length
+        ));
+        if (producers.length > 0) {
+            minecraft.player.sendSystemMessage(Component.literal("§7Made by: " + describeRecipes(index, producers)));
+        }
+        if (consumers.length > 0) {
+            minecraft.player.sendSystemMessage(Component.literal("§7Used in: " + describeRecipes(index, consumers)));
+        }
+    }
+
+    private static String describeRecipes(RecipeUsageIndex index, int[] recipes) {
+        StringBuilder text = new StringBuilder();
+        int shown = Math.min(recipes.length, USAGE_LIST_LIMIT);
+        for (int i = 0; i < shown; i++) {
+            if (i > 0) text.append(", ");
+            text.append(index.getRecipeId(recipes[i]));
+        }
+        if (recipes.length > shown) {
+            text.append(" and ").append(recipes.length - shown).append(" more");
+        }
+        return text.toString();
+    }
+
     @Override
     public boolean keyPressed(int keyCode, int scanCode, int modifiers) {
-        if (recipeIdBox.isFocused() && recipeIdBox.keyPressed(keyCode, scanCode, modifiers)) {
+        // Ctrl+Z undoes, Ctrl+Y or Ctrl+Shift+Z redoes, including edits made in the text field
+        if (hasControlDown() && keyCode == GLFW.GLFW_KEY_Z) {
+            if (hasShiftDown()) {
+                history.redo(this);
+            } else {
+                history.undo(this);
+            }
             return true;
         }
+        if (hasControlDown() && keyCode == GLFW.GLFW_KEY_Y) {
+            history.redo(this);
+            return true;
+        }
+        EditBox focusedBox = recipeIdBox.isFocused() ? recipeIdBox : templateBox.isFocused() ? templateBox : null;
+        if (focusedBox != null && keyCode != GLFW.GLFW_KEY_ESCAPE) {
+            // Swallow keys while typing so letters like the inventory key don't close the editor
+            return focusedBox.keyPressed(keyCode, scanCode, modifiers) || focusedBox.canConsumeInput();
+        }
         return super.keyPressed(keyCode, scanCode, modifiers);
     }
 
@@ -299,6 +1012,9 @@ public class RecipeEditorScreen extends AbstractContainerScreen<RecipeEditorMenu
         if (recipeIdBox.isFocused() && recipeIdBox.charTyped(codePoint, modifiers)) {
             return true;
         }
+        if (templateBox.isFocused() && templateBox.charTyped(codePoint, modifiers)) {
+            return true;
+        }
         return super.charTyped(codePoint, modifiers);
     }
 
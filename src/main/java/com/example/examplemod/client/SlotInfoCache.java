@@ -0,0 +1,95 @@
+package com.example.examplemod.client;
+
+import net.minecraft.network.chat.Component;
+import net.minecraft.world.item.ItemStack;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Tooltip lines and overlay badge of each editor slot, built the first time they are drawn for
+ * the slot's current stack and reused every frame after that.
+ * <p>
+ * Entries are dropped when the screen reports a slot change. As a guard against changes that
+ * weren't reported, an entry is also only used while the slot holds a stack with the contents it
+ * was built for, which is a comparison rather than any string building. Everything is dropped
+ * when the data the entries were built from changes, e.g. recipes reloading.
+ */
+final class SlotInfoCache {
+
+    private static final class Entry {
+        final ItemStack contents;
+        List<Component> tooltip;
+        String badge;
+
+        Entry(ItemStack stack) {
+            this.contents = stack.copy();
+        }
+    }
+
+    private final Entry[] inputs;
+    private final Entry[] outputs;
+    private Object context;
+
+    SlotInfoCache(int inputSlots, int outputSlots) {
+        this.inputs = new Entry[inputSlots];
+        this.outputs = new Entry[outputSlots];
+    }
+
+    /**
+     * Drops every entry if the entries were built under a different context.
+     */
+    void validate(Object context) {
+        if (!Objects.equals(this.context, context)) {
+            this.context = context;
+            clear();
+        }
+    }
+
+    List<Component> tooltip(boolean output, int slot, ItemStack stack, Function<ItemStack, List<Component>> build) {
+        Entry entry = entry(output, slot, stack);
+        if (entry.tooltip == null) {
+            entry.tooltip = List.copyOf(build.apply(stack));
+        }
+        return entry.tooltip;
+    }
+
+    /**
+     * The slot's overlay badge; empty if it has none.
+     */
+    String badge(boolean output, int slot, ItemStack stack, Function<ItemStack, String> build) {
+        Entry entry = entry(output, slot, stack);
+        if (entry.badge == null) {
+            entry.badge = build.apply(stack);
+        }
+        return entry.badge;
+    }
+
+    void invalidate(boolean output, int slot) {
+        Entry[] entries = output ? outputs : inputs;
+        if (slot >= 0 && slot < entries.length) {
+            entries[slot] = null;
+        }
+    }
+
+    void invalidateOutputs() {
+        Arrays.fill(outputs, null);
+    }
+
+    void clear() {
+        Arrays.fill(inputs, null);
+        Arrays.fill(outputs, null);
+    }
+
+    private Entry entry(boolean output, int slot, ItemStack stack) {
+        Entry[] entries = output ? outputs : inputs;
+        Entry entry = entries[slot];
+        if (entry == null || !ItemStack.matches(entry.contents, stack)) {
+            entry = new Entry(stack);
+            entries[slot] = entry;
+        }
+        return entry;
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.examplemod.command;
+
+import com.example.examplemod.recipe.RegistrySnapshot;
+import com.example.examplemod.session.EditingSession;
+import com.example.examplemod.session.EditingSessions;
+import com.example.examplemod.util.EditorMetrics;
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.logging.LogUtils;
+import net.minecraft.Util;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraftforge.fml.loading.FMLPaths;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Server command exposing recipe editor diagnostics:
+ * {@code /recipeeditor stats [dump]}, {@code /recipeeditor benchmark [count]},
+ * {@code /recipeeditor lookupprofile [count]} and {@code /recipeeditor snapshot}, plus
+ * {@code /recipeeditor session join|leave|list} for shared editing sessions.
+ */
+public class RecipeEditorCommand {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final String STATS_FILE = "recipeeditor-stats.txt";
+    private static final String SNAPSHOT_FILE = "recipeeditor-snapshot.bin";
+    private static final int DEFAULT_BENCHMARK_RECIPES = 5000;
+
+    private RecipeEditorCommand() {
+    }
+
+    public static void register(CommandDispatcher<CommandSourceStack> dispatcher) {
+        dispatcher.register(Commands.literal("recipeeditor")
+            .requires(source -> source.hasPermission(2))
+            .then(Commands.literal("stats")
+                .executes(context -> showStats(context.getSource()))
+                .then(Commands.literal("dump")
+                    .executes(context -> dumpStats(context.getSource()))))
+            .then(Commands.literal("benchmark")
+                .executes(context -> RecipeLoadBenchmark.run(context.getSource(), DEFAULT_BENCHMARK_RECIPES))
+                .then(Commands.argument("count", IntegerArgumentType.integer(1, 100_000))
+                    .executes(context -> RecipeLoadBenchmark.run(context.getSource(),
+                        IntegerArgumentType.getInteger(context, "count")))))
+            .then(Commands.literal("lookupprofile")
+                .executes(context -> RecipeLookupProfiler.run(context.getSource(), 0))
+                .then(Commands.argument("count", IntegerArgumentType.integer(0, 100_000))
+                    .executes(context -> RecipeLookupProfiler.run(context.getSource(),
+                        IntegerArgumentType.getInteger(context, "count")))))
+            .then(Commands.literal("snapshot")
+                .executes(context -> dumpSnapshot(context.getSource())))
+            .then(Commands.literal("session")
+                .then(Commands.literal("join")
+                    .then(Commands.argument("name", StringArgumentType.word())
+                        .executes(context -> joinSession(context.getSource(),
+                            StringArgumentType.getString(context, "name")))))
+                .then(Commands.literal("leave")
+                    .executes(context -> leaveSession(context.getSource())))
+                .then(Commands.literal("list")
+                    .executes(context -> listSessions(context.getSource())))));
+    }
+
+    private static int joinSession(CommandSourceStack source, String name) throws CommandSyntaxException {
+        ServerPlayer player = source.getPlayerOrException();
+        EditingSession session = EditingSessions.join(player, name);
+        source.sendSuccess(() -> Component.literal("Joined editing session " + session.getName() + " ("
+            + session.getMembers().size() + " members)"), false);
+        return 1;
+    }
+
+    private static int leaveSession(CommandSourceStack source) throws CommandSyntaxException {
+        if (!EditingSessions.leave(source.getPlayerOrException())) {
+            source.sendFailure(Component.literal("You are not in an editing session"));
+            return 0;
+        }
+        source.sendSuccess(() -> Component.literal("Left the editing session"), false);
+        return 1;
+    }
+
+    private static int listSessions(CommandSourceStack source) {
+        if (EditingSessions.all().isEmpty()) {
+            source.sendSuccess(() -> Component.literal("No editing sessions are open"), false);
+            return 0;
+        }
+        for (EditingSession session : EditingSessions.all()) {
+            String line = session.getName() + ": " + session.getMembers().size() + " members, revision " + session.getRevision();
+            source.sendSuccess(() -> Component.literal(line), false);
+        }
+        return EditingSessions.all().size();
+    }
+
+    private static int showStats(CommandSourceStack source) {
+        List<String> lines = EditorMetrics.report();
+        for (String line : lines) {
+            source.sendSuccess(() -> Component.literal(line), false);
+        }
+        return lines.size();
+    }
+
+    private static int dumpStats(CommandSourceStack source) {
+        Path file = FMLPaths.GAMEDIR.get().resolve(STATS_FILE);
+        try {
+            EditorMetrics.dump(file);
+        } catch (IOException e) {
+            LOGGER.error("Failed to dump recipe editor stats to {}", file, e);
+            source.sendFailure(Component.literal("Failed to write " + file + ": " + e.getMessage()));
+            return 0;
+        }
+        source.sendSuccess(() -> Component.literal("Recipe editor stats written to " + file), false);
+        return 1;
+    }
+
+    /**
+     * Captures the registries on the server thread and writes the snapshot in the background.
+     */
+    private static int dumpSnapshot(CommandSourceStack source) {
+        MinecraftServer server = source.getServer();
+        Path file = FMLPaths.GAMEDIR.get().resolve(SNAPSHOT_FILE);
+        RegistrySnapshot snapshot = RegistrySnapshot.capture(server.getRecipeManager().getRecipes(), server.registryAccess());
+        CompletableFuture.runAsync(() -> {
+                try {
+                    snapshot.write(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, Util.ioPool())
+            .whenCompleteAsync((ignored, error) -> {
+                if (error != null) {
+                    LOGGER.error("Failed to write registry snapshot to {}", file, error);
+                    source.sendFailure(Component.literal("Failed to write " + file + ": " + error.getMessage()));
+                    return;
+                }
+                source.sendSuccess(() -> Component.literal("Registry snapshot of " + snapshot.items().size() + " items and "
+                    + snapshot.recipes().size() + " recipes written to " + file), false);
+            }, server);
+        return 1;
+    }
+}
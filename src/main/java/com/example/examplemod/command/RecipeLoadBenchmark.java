@@ -0,0 +1,134 @@
+package com.example.examplemod.command;
+
+import com.example.examplemod.Config;
+import com.example.examplemod.export.ExportSettings;
+import com.example.examplemod.export.ExportWriter;
+import com.example.examplemod.export.ItemRef;
+import com.example.examplemod.export.RecipeDraft;
+import com.example.examplemod.util.KubeJSExporter;
+import com.mojang.logging.LogUtils;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.item.Items;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Compares how long the server takes to load the same synthetic recipes exported as KubeJS
+ * scripts and as datapack JSON. Each variant is written, a full datapack reload is timed, and
+ * the generated files are removed again afterwards.
+ * <p>
+ * A reload re-runs the same recipe loading (including KubeJS script evaluation) that dominates
+ * the difference at server start, without having to restart the server between runs.
+ */
+public class RecipeLoadBenchmark {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final String SCRIPT_FILE = "recipe_editor_benchmark.js";
+    private static final String RECIPE_PREFIX = "recipe_editor_benchmark/recipe_";
+    private static final String RECIPE_TYPE = "minecraft:crafting_shapeless";
+
+    private RecipeLoadBenchmark() {
+    }
+
+    static int run(CommandSourceStack source, int count) {
+        MinecraftServer server = source.getServer();
+        ExportSettings settings = Config.exportSettings;
+        ExportWriter writer = ExportWriter.forSettings(settings);
+        List<String> items = itemIds();
+
+        source.sendSuccess(() -> Component.literal("Benchmarking recipe loading with " + count + " recipes..."), false);
+
+        long[] results = new long[3];
+        writer.submitTask(() -> {
+                cleanUp(settings);
+                return null;
+            })
+            .thenComposeAsync(ignored -> timeReload(server), server)
+            .thenCompose(baseline -> {
+                results[0] = baseline;
+                return writer.submitStream(SCRIPT_FILE, out -> {
+                    for (int i = 0; i < count; i++) {
+                        out.write(KubeJSExporter.generateRecipeBody(draft(items, i), RECIPE_PREFIX + i, settings));
+                    }
+                });
+            })
+            .thenComposeAsync(ignored -> timeReload(server), server)
+            .thenCompose(scripts -> {
+                results[1] = scripts;
+                return writer.submitTask(() -> {
+                    Files.deleteIfExists(settings.outputPath().resolve(SCRIPT_FILE));
+                    for (int i = 0; i < count; i++) {
+                        writer.writeDatapackRecipe(RECIPE_PREFIX + i, KubeJSExporter.generateRecipeJson(draft(items, i), settings));
+                    }
+                    return null;
+                });
+            })
+            .thenComposeAsync(ignored -> timeReload(server), server)
+            .thenCompose(datapack -> {
+                results[2] = datapack;
+                return writer.submitTask(() -> {
+                    cleanUp(settings);
+                    return null;
+                });
+            })
+            .thenComposeAsync(ignored -> timeReload(server), server)
+            .whenCompleteAsync((ignored, error) -> {
+                if (error != null) {
+                    LOGGER.error("Recipe load benchmark failed", error);
+                    source.sendFailure(Component.literal("Benchmark failed: " + error.getMessage()));
+                    return;
+                }
+                String report = String.format(Locale.ROOT, "Reload with %d recipes: baseline %d ms, KubeJS scripts %d ms (+%d), datapack JSON %d ms (+%d)",
+                    count, results[0], results[1], results[1] - results[0], results[2], results[2] - results[0]);
+                LOGGER.info(report);
+                source.sendSuccess(() -> Component.literal(report), true);
+            }, server);
+        return 1;
+    }
+
+    private static CompletableFuture<Long> timeReload(MinecraftServer server) {
+        long start = System.nanoTime();
+        return server.reloadResources(server.getPackRepository().getSelectedIds())
+            .thenApply(ignored -> (System.nanoTime() - start) / 1_000_000);
+    }
+
+    static List<String> itemIds() {
+        return BuiltInRegistries.ITEM.stream()
+            .filter(item -> item != Items.AIR)
+            .map(item -> BuiltInRegistries.ITEM.getKey(item).toString())
+            .toList();
+    }
+
+    /**
+     * A two-ingredient shapeless recipe picked from the item registry by index.
+     */
+    static RecipeDraft draft(List<String> items, int index) {
+        return RecipeDraft.of(RECIPE_TYPE,
+            List.of(ItemRef.of(items.get(index % items.size())),
+                ItemRef.of(items.get((index / items.size() + index + 1) % items.size()))),
+            List.of(ItemRef.of(items.get((index + 2) % items.size()))));
+    }
+
+    private static void cleanUp(ExportSettings settings) throws IOException {
+        Files.deleteIfExists(settings.outputPath().resolve(SCRIPT_FILE));
+        Path recipes = settings.datapackRecipesPath().resolve(RECIPE_PREFIX).getParent();
+        if (recipes != null && Files.isDirectory(recipes)) {
+            try (Stream<Path> files = Files.walk(recipes)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+}
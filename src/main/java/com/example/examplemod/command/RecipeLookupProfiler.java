@@ -0,0 +1,322 @@
+package com.example.examplemod.command;
+
+import com.example.examplemod.Config;
+import com.example.examplemod.export.ExportSettings;
+import com.example.examplemod.export.ExportedScriptIndex;
+import com.example.examplemod.util.KubeJSExporter;
+import com.mojang.logging.LogUtils;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.core.NonNullList;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.GsonHelper;
+import net.minecraft.world.Container;
+import net.minecraft.world.SimpleContainer;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.inventory.AbstractContainerMenu;
+import net.minecraft.world.inventory.TransientCraftingContainer;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.item.crafting.Ingredient;
+import net.minecraft.world.item.crafting.Recipe;
+import net.minecraft.world.item.crafting.RecipeManager;
+import net.minecraft.world.item.crafting.RecipeType;
+import net.minecraftforge.common.crafting.IShapedRecipe;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Measures how much the recipes exported by the editor slow down {@link RecipeManager#getRecipeFor},
+ * which the game calls on every change of a crafting grid or furnace input.
+ * <p>
+ * Probe inputs are the ingredients of a sample of each type's recipes, plus random inputs that
+ * match nothing and so have to be checked against every recipe of the type. Lookups are timed
+ * with the recipe manager holding the game's recipes without the exported ones, then with them,
+ * and each exported recipe's own {@code matches} is timed to find the worst offenders.
+ * <p>
+ * Runs on the server thread and swaps the recipe manager's contents while it runs, restoring
+ * them afterwards. Only crafting and the single-input vanilla types are profiled, as other
+ * types' inputs can't be built generically.
+ */
+public class RecipeLookupProfiler {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final String SYNTHETIC_NAMESPACE = "recipe_editor_profile";
+    private static final int PROBES_PER_TYPE = 64;
+    private static final int REPEATS = 20;
+    private static final int WORST_OFFENDERS = 5;
+    private static final List<RecipeType<?>> SINGLE_INPUT_TYPES = List.of(RecipeType.SMELTING, RecipeType.BLASTING,
+        RecipeType.SMOKING, RecipeType.CAMPFIRE_COOKING, RecipeType.STONECUTTING);
+
+    /**
+     * Average cost of one lookup of a recipe type, in nanoseconds.
+     */
+    public record TypeCost(ResourceLocation type, int recipesBefore, int recipesAfter, double beforeNanos, double afterNanos) {
+    }
+
+    /**
+     * Average cost of one {@code matches} call of an added recipe, in nanoseconds.
+     */
+    public record Offender(ResourceLocation recipeId, ResourceLocation type, double nanos) {
+    }
+
+    public record Report(int added, List<TypeCost> types, List<Offender> worst) {
+
+        public List<String> lines() {
+            List<String> lines = new ArrayList<>();
+            lines.add("Recipe lookup cost with " + added + " exported recipe(s):");
+            for (TypeCost type : types) {
+                lines.add(String.format(Locale.ROOT, "  %s: %.1f µs -> %.1f µs per lookup (%+.0f%%), %d -> %d recipes",
+                    type.type(), type.beforeNanos() / 1000, type.afterNanos() / 1000,
+                    type.beforeNanos() > 0 ? (type.afterNanos() / type.beforeNanos() - 1) * 100 : 0,
+                    type.recipesBefore(), type.recipesAfter()));
+            }
+            if (!worst.isEmpty()) {
+                lines.add("Slowest exported recipes to match:");
+                for (Offender offender : worst) {
+                    lines.add(String.format(Locale.ROOT, "  %s (%s): %.2f µs", offender.recipeId(), offender.type(), offender.nanos() / 1000));
+                }
+            }
+            return lines;
+        }
+
+        public TypeCost cost(RecipeType<?> type) {
+            ResourceLocation id = BuiltInRegistries.RECIPE_TYPE.getKey(type);
+            return types.stream().filter(cost -> cost.type().equals(id)).findFirst().orElse(null);
+        }
+    }
+
+    private RecipeLookupProfiler() {
+    }
+
+    static int run(CommandSourceStack source, int synthetic) {
+        ServerLevel level = source.getLevel();
+        List<Recipe<?>> added;
+        try {
+            added = exportedRecipes(level, Config.exportSettings, synthetic);
+        } catch (IOException e) {
+            LOGGER.error("Failed to read exported recipes for profiling", e);
+            source.sendFailure(Component.literal("Failed to read exported recipes: " + e.getMessage()));
+            return 0;
+        }
+
+        Report report = profile(level, added);
+        for (String line : report.lines()) {
+            LOGGER.info(line);
+            source.sendSuccess(() -> Component.literal(line), false);
+        }
+        return report.types().size();
+    }
+
+    /**
+     * Recipes the editor exported that the game has loaded, found by ID in the export directory
+     * and the datapack, plus {@code synthetic} generated shapeless recipes that aren't loaded.
+     */
+    public static List<Recipe<?>> exportedRecipes(ServerLevel level, ExportSettings settings, int synthetic) throws IOException {
+        Set<String> exportedIds = new HashSet<>(ExportedScriptIndex.scan(settings.outputPath()).recipeIds());
+        Path datapackRecipes = settings.datapackRecipesPath();
+        if (Files.isDirectory(datapackRecipes)) {
+            try (Stream<Path> files = Files.walk(datapackRecipes)) {
+                files.filter(file -> file.toString().endsWith(".json")).forEach(file -> {
+                    String path = datapackRecipes.relativize(file).toString().replace('\\', '/');
+                    exportedIds.add("kubejs:" + path.substring(0, path.length() - ".json".length()));
+                });
+            }
+        }
+
+        List<Recipe<?>> recipes = new ArrayList<>();
+        for (Recipe<?> recipe : level.getRecipeManager().getRecipes()) {
+            if (exportedIds.contains(recipe.getId().toString())) {
+                recipes.add(recipe);
+            }
+        }
+
+        List<String> items = RecipeLoadBenchmark.itemIds();
+        for (int i = 0; i < synthetic; i++) {
+            ResourceLocation id = new ResourceLocation(SYNTHETIC_NAMESPACE, "recipe_" + i);
+            String json = KubeJSExporter.generateRecipeJson(RecipeLoadBenchmark.draft(items, i), settings);
+            recipes.add(RecipeManager.fromJson(id, GsonHelper.parse(json)));
+        }
+        return recipes;
+    }
+
+    /**
+     * Times lookups without and with {@code added}, leaving the recipe manager as it was.
+     */
+    public static Report profile(ServerLevel level, List<Recipe<?>> added) {
+        RecipeManager manager = level.getRecipeManager();
+        List<Recipe<?>> original = new ArrayList<>(manager.getRecipes());
+        Set<ResourceLocation> addedIds = new HashSet<>();
+        added.forEach(recipe -> addedIds.add(recipe.getId()));
+        List<Recipe<?>> before = original.stream().filter(recipe -> !addedIds.contains(recipe.getId())).toList();
+        List<Recipe<?>> after = new ArrayList<>(before);
+        after.addAll(added);
+
+        Map<RecipeType<?>, List<Container>> probes = buildProbes(level, after);
+        List<TypeCost> types = new ArrayList<>();
+        List<Offender> offenders = new ArrayList<>();
+        try {
+            manager.replaceRecipes(before);
+            Map<RecipeType<?>, Double> beforeCosts = timeLookups(level, probes);
+            manager.replaceRecipes(after);
+            Map<RecipeType<?>, Double> afterCosts = timeLookups(level, probes);
+
+            for (RecipeType<?> type : probes.keySet()) {
+                types.add(new TypeCost(BuiltInRegistries.RECIPE_TYPE.getKey(type),
+                    count(before, type), count(after, type), beforeCosts.get(type), afterCosts.get(type)));
+            }
+            for (Recipe<?> recipe : added) {
+                List<Container> typeProbes = probes.get(recipe.getType());
+                if (typeProbes != null) {
+                    offenders.add(new Offender(recipe.getId(), BuiltInRegistries.RECIPE_TYPE.getKey(recipe.getType()),
+                        timeMatches(level, recipe, typeProbes)));
+                }
+            }
+        } finally {
+            manager.replaceRecipes(original);
+        }
+
+        offenders.sort(Comparator.comparingDouble(Offender::nanos).reversed());
+        return new Report(added.size(), types, List.copyOf(offenders.subList(0, Math.min(WORST_OFFENDERS, offenders.size()))));
+    }
+
+    private static Map<RecipeType<?>, List<Container>> buildProbes(ServerLevel level, List<Recipe<?>> recipes) {
+        Map<RecipeType<?>, List<Recipe<?>>> byType = new LinkedHashMap<>();
+        byType.put(RecipeType.CRAFTING, new ArrayList<>());
+        SINGLE_INPUT_TYPES.forEach(type -> byType.put(type, new ArrayList<>()));
+        for (Recipe<?> recipe : recipes) {
+            List<Recipe<?>> ofType = byType.get(recipe.getType());
+            if (ofType != null) ofType.add(recipe);
+        }
+
+        // Seeded, so repeated runs probe the same inputs
+        Random random = new Random(0);
+        List<Item> items = BuiltInRegistries.ITEM.stream().filter(item -> item != Items.AIR).toList();
+        Map<RecipeType<?>, List<Container>> probes = new LinkedHashMap<>();
+        byType.forEach((type, ofType) -> {
+            if (ofType.isEmpty()) return;
+            boolean crafting = type == RecipeType.CRAFTING;
+            List<Container> typeProbes = new ArrayList<>();
+            for (int i = 0; i < PROBES_PER_TYPE / 2; i++) {
+                Recipe<?> recipe = ofType.get(random.nextInt(ofType.size()));
+                typeProbes.add(probeFor(recipe));
+                ItemStack miss = new ItemStack(items.get(random.nextInt(items.size())));
+                typeProbes.add(crafting ? craftingGrid(NonNullList.of(ItemStack.EMPTY, miss, ItemStack.EMPTY, miss,
+                    ItemStack.EMPTY, ItemStack.EMPTY, ItemStack.EMPTY, ItemStack.EMPTY, ItemStack.EMPTY, ItemStack.EMPTY))
+                    : new SimpleContainer(miss));
+            }
+            probes.put(type, typeProbes);
+        });
+        return probes;
+    }
+
+    /**
+     * The crafting grid or input slot holding the first accepted item of each of the recipe's
+     * ingredients, i.e. an input the recipe matches.
+     */
+    public static Container probeFor(Recipe<?> recipe) {
+        return recipe.getType() == RecipeType.CRAFTING ? craftingProbe(recipe)
+            : new SimpleContainer(firstItem(recipe.getIngredients(), 0));
+    }
+
+    private static Container craftingProbe(Recipe<?> recipe) {
+        List<Ingredient> ingredients = recipe.getIngredients();
+        NonNullList<ItemStack> grid = NonNullList.withSize(9, ItemStack.EMPTY);
+        int width = recipe instanceof IShapedRecipe<?> shaped ? shaped.getRecipeWidth() : 3;
+        for (int i = 0; i < ingredients.size() && i < 9; i++) {
+            grid.set(i / width * 3 + i % width, firstItem(ingredients, i));
+        }
+        return craftingGrid(grid);
+    }
+
+    private static Container craftingGrid(NonNullList<ItemStack> grid) {
+        return new TransientCraftingContainer(new ProbeMenu(), 3, 3, grid);
+    }
+
+    private static ItemStack firstItem(List<Ingredient> ingredients, int index) {
+        if (index >= ingredients.size()) return ItemStack.EMPTY;
+        ItemStack[] choices = ingredients.get(index).getItems();
+        return choices.length > 0 ? choices[0].copy() : ItemStack.EMPTY;
+    }
+
+    private static Map<RecipeType<?>, Double> timeLookups(ServerLevel level, Map<RecipeType<?>, List<Container>> probes) {
+        Map<RecipeType<?>, Double> costs = new LinkedHashMap<>();
+        probes.forEach((type, typeProbes) -> {
+            // One untimed pass warms up the lookup before measuring
+            lookupAll(level, type, typeProbes);
+            long start = System.nanoTime();
+            for (int i = 0; i < REPEATS; i++) {
+                lookupAll(level, type, typeProbes);
+            }
+            costs.put(type, (System.nanoTime() - start) / (double) (REPEATS * typeProbes.size()));
+        });
+        return costs;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int lookupAll(ServerLevel level, RecipeType<?> type, List<Container> probes) {
+        int found = 0;
+        for (Container probe : probes) {
+            if (level.getRecipeManager().getRecipeFor((RecipeType) type, probe, level).isPresent()) found++;
+        }
+        return found;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static double timeMatches(ServerLevel level, Recipe<?> recipe, List<Container> probes) {
+        int matched = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < REPEATS; i++) {
+            for (Container probe : probes) {
+                if (((Recipe) recipe).matches(probe, level)) matched++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        LOGGER.debug("{} matched {} of {} probes", recipe.getId(), matched / REPEATS, probes.size());
+        return elapsed / (double) (REPEATS * probes.size());
+    }
+
+    private static int count(List<Recipe<?>> recipes, RecipeType<?> type) {
+        int count = 0;
+        for (Recipe<?> recipe : recipes) {
+            if (recipe.getType() == type) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Owner of the probe crafting grids, which are never changed after they are built.
+     */
+    private static final class ProbeMenu extends AbstractContainerMenu {
+
+        ProbeMenu() {
+            super(null, -1);
+        }
+
+        @Override
+        public ItemStack quickMoveStack(Player player, int index) {
+            return ItemStack.EMPTY;
+        }
+
+        @Override
+        public boolean stillValid(Player player) {
+            return false;
+        }
+    }
+}
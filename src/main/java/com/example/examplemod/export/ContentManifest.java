@@ -0,0 +1,140 @@
+package com.example.examplemod.export;
+
+import com.mojang.logging.LogUtils;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent record of the content hash of every file the exporter wrote, so writes whose
+ * bytes would be identical can be skipped without bumping the file's modification time.
+ * <p>
+ * Entries also remember size and modification time: a file that was edited or deleted by hand
+ * no longer matches and is rewritten on the next export.
+ */
+public class ContentManifest {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    private record Entry(String hash, long size, long modified) {
+    }
+
+    private final Path file;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    private ContentManifest(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Loads the manifest from disk, starting empty if it is missing or unreadable.
+     */
+    public static ContentManifest load(Path file) {
+        ContentManifest manifest = new ContentManifest(file);
+        if (!Files.isRegularFile(file)) return manifest;
+
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                String[] parts = line.split("\t", 4);
+                if (parts.length == 4) {
+                    manifest.entries.put(parts[3], new Entry(parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2])));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            LOGGER.warn("Ignoring unreadable export manifest {}", file, e);
+            manifest.entries.clear();
+        }
+        return manifest;
+    }
+
+    /**
+     * Whether {@code target} already holds content with the given hash. Files not in the
+     * manifest are hashed from disk once, so existing exports are recognised too.
+     */
+    public boolean isUnchanged(Path target, String hash) {
+        if (!Files.isRegularFile(target)) return false;
+
+        try {
+            long size = Files.size(target);
+            long modified = Files.getLastModifiedTime(target).toMillis();
+            Entry entry = entries.get(key(target));
+            if (entry != null && entry.size() == size && entry.modified() == modified) {
+                return entry.hash().equals(hash);
+            }
+
+            if (hash(Files.readAllBytes(target)).equals(hash)) {
+                // Adopt the existing file so the next check doesn't have to read it again
+                record(target, hash);
+                return true;
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Could not check {} against the export manifest", target, e);
+        }
+        return false;
+    }
+
+    /**
+     * Records the hash of a file that was just written.
+     */
+    public void record(Path target, String hash) throws IOException {
+        entries.put(key(target), new Entry(hash, Files.size(target), Files.getLastModifiedTime(target).toMillis()));
+        dirty = true;
+    }
+
+    public void forget(Path target) {
+        if (entries.remove(key(target)) != null) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Writes the manifest back to disk if it changed since the last save.
+     */
+    public synchronized void save() {
+        if (!dirty) return;
+        dirty = false;
+
+        List<String> lines = new ArrayList<>(entries.size());
+        entries.forEach((path, entry) -> lines.add(entry.hash() + "\t" + entry.size() + "\t" + entry.modified() + "\t" + path));
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temp, lines, StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty = true;
+            LOGGER.warn("Failed to save export manifest {}", file, e);
+        }
+    }
+
+    private static String key(Path target) {
+        return target.normalize().toString().replace('\\', '/');
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public static String hash(byte[] content) {
+        return HexFormat.of().formatHex(newDigest().digest(content));
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.examplemod.export;
+
+/**
+ * What an export does to the game's recipes.
+ */
+public enum ExportAction {
+    /** Adds the edited recipe alongside the existing ones. */
+    ADD,
+    /** Removes an existing recipe and adds the edited one in its place. */
+    REPLACE,
+    /** Only removes an existing recipe. */
+    REMOVE;
+
+    public boolean adds() {
+        return this != REMOVE;
+    }
+
+    public boolean removes() {
+        return this != ADD;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.examplemod.export;
+
+/**
+ * Thrown (usually through a failed future) when a generated script cannot be written.
+ */
+public class ExportException extends RuntimeException {
+
+    public ExportException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,297 @@
+package com.example.examplemod.export;
+
+import com.example.examplemod.util.EditorMetrics;
+import com.mojang.logging.LogUtils;
+import org.slf4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead log of exports that have been requested but may not be on disk yet.
+ * <p>
+ * Every single-recipe export is appended here before its script file is touched. Appends are
+ * group committed: whatever arrived while the previous fsync was running is written and synced
+ * together, so a burst of exports costs one fsync rather than one per recipe. Once every logged
+ * export has been applied the log is truncated again.
+ * <p>
+ * If the game dies in between, the entries are replayed when the journal is next opened. Entries
+ * carry the full content they write, so replaying one that had already been applied is harmless.
+ * Each record is length-prefixed and checksummed, and reading stops at the first torn one.
+ */
+final class ExportJournal {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    enum Kind {
+        /**
+         * A complete script file.
+         */
+        FILE,
+        /**
+         * An addition to and/or removal from a batch file, applied by merging into the file.
+         */
+        BATCH
+    }
+
+    /**
+     * @param target    the script file
+     * @param recipeId  the batched recipe, or null
+     * @param content   the whole file for {@link Kind#FILE}, the recipe body for {@link Kind#BATCH}; may be null
+     * @param removedId recipe a batch entry removes, or null
+     */
+    record Entry(Kind kind, Path target, String recipeId, String content, String removedId) {
+
+        static Entry file(Path target, String script) {
+            return new Entry(Kind.FILE, target, null, script, null);
+        }
+
+        static Entry batch(Path batchFile, String recipeId, String body, String removedId) {
+            return new Entry(Kind.BATCH, batchFile, recipeId, body, removedId);
+        }
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ExecutorService committer;
+
+    private final Object lock = new Object();
+    private List<byte[]> pendingRecords = new ArrayList<>();
+    private List<CompletableFuture<Void>> pendingCommits = new ArrayList<>();
+    private boolean committing;
+    // Entries logged but not yet applied to their files
+    private int outstanding;
+
+    private ExportJournal(Path file, FileChannel channel) {
+        this.file = file;
+        this.channel = channel;
+        this.committer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Recipe Editor Journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens the journal, first replaying whatever a previous run left in it.
+     */
+    static ExportJournal open(Path file) throws IOException {
+        List<Entry> leftOver = read(file);
+        if (!leftOver.isEmpty()) {
+            LOGGER.info("Replaying {} export(s) interrupted by the last shutdown", leftOver.size());
+            replay(leftOver);
+            EditorMetrics.JOURNAL_REPLAYED.add(leftOver.size());
+        }
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(0);
+        channel.force(true);
+        return new ExportJournal(file, channel);
+    }
+
+    /**
+     * Logs an entry. The future completes once it is durably on disk, or exceptionally if it
+     * could not be logged; either way the entry counts as outstanding until {@link #applied()}.
+     */
+    CompletableFuture<Void> append(Entry entry) {
+        byte[] record = encode(entry);
+        CompletableFuture<Void> committed = new CompletableFuture<>();
+        synchronized (lock) {
+            outstanding++;
+            pendingRecords.add(record);
+            pendingCommits.add(committed);
+            if (!committing) {
+                committing = true;
+                committer.execute(this::commit);
+            }
+        }
+        return committed;
+    }
+
+    /**
+     * Marks one logged entry as written to its file.
+     */
+    void applied() {
+        synchronized (lock) {
+            outstanding--;
+            truncateIfIdle();
+        }
+    }
+
+    private void commit() {
+        while (true) {
+            List<byte[]> records;
+            List<CompletableFuture<Void>> commits;
+            synchronized (lock) {
+                if (pendingRecords.isEmpty()) {
+                    committing = false;
+                    truncateIfIdle();
+                    return;
+                }
+                records = pendingRecords;
+                commits = pendingCommits;
+                pendingRecords = new ArrayList<>();
+                pendingCommits = new ArrayList<>();
+            }
+
+            try {
+                int size = 0;
+                for (byte[] record : records) {
+                    size += record.length;
+                }
+                ByteBuffer buffer = ByteBuffer.allocate(size);
+                records.forEach(buffer::put);
+                buffer.flip();
+                synchronized (channel) {
+                    channel.position(channel.size());
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    channel.force(false);
+                }
+                EditorMetrics.JOURNAL_COMMITS.increment();
+                EditorMetrics.JOURNAL_RECORDS.add(records.size());
+                commits.forEach(future -> future.complete(null));
+            } catch (IOException e) {
+                ExportException failure = new ExportException("Failed to write export journal " + file, e);
+                commits.forEach(future -> future.completeExceptionally(failure));
+            }
+        }
+    }
+
+    /**
+     * Empties the log once nothing in it is still needed. Called with {@link #lock} held.
+     */
+    private void truncateIfIdle() {
+        if (outstanding > 0 || committing) return;
+        try {
+            synchronized (channel) {
+                if (channel.size() > 0) {
+                    channel.truncate(0);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Failed to truncate export journal {}", file, e);
+        }
+    }
+
+    private static byte[] encode(Entry entry) {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(payload)) {
+            out.writeByte(entry.kind().ordinal());
+            writeString(out, entry.target().toString());
+            writeString(out, entry.recipeId());
+            writeString(out, entry.content());
+            writeString(out, entry.removedId());
+        } catch (IOException e) {
+            throw new IllegalStateException("In-memory stream failed", e);
+        }
+        byte[] bytes = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+
+        ByteBuffer record = ByteBuffer.allocate(8 + bytes.length);
+        record.putInt(bytes.length).putInt((int) crc.getValue()).put(bytes);
+        return record.array();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads the complete records of a journal, ignoring a torn or corrupt tail.
+     */
+    static List<Entry> read(Path file) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (!Files.isRegularFile(file)) return entries;
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        while (buffer.remaining() >= 8) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) break;
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) break;
+            entries.add(decode(payload));
+        }
+        return entries;
+    }
+
+    private static Entry decode(byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            Kind kind = Kind.values()[in.readUnsignedByte()];
+            return new Entry(kind, Path.of(readString(in)), readString(in), readString(in), readString(in));
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        return length < 0 ? null : new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Applies entries in order: whole files are rewritten, batch entries are merged into their
+     * batch file, which is written once per file at the end.
+     */
+    static void replay(List<Entry> entries) throws IOException {
+        Map<Path, Map<String, String>> batchEntries = new LinkedHashMap<>();
+        Map<Path, Set<String>> batchRemovals = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            if (entry.kind() == Kind.FILE) {
+                ExportWriter.writeDurably(entry.target(), entry.content().getBytes(StandardCharsets.UTF_8));
+                continue;
+            }
+
+            Map<String, String> recipes = batchEntries.get(entry.target());
+            if (recipes == null) {
+                recipes = new LinkedHashMap<>();
+                Set<String> removals = new LinkedHashSet<>();
+                if (Files.isRegularFile(entry.target())) {
+                    ExportWriter.parseBatch(Files.readAllLines(entry.target(), StandardCharsets.UTF_8), recipes, removals);
+                }
+                batchEntries.put(entry.target(), recipes);
+                batchRemovals.put(entry.target(), removals);
+            }
+            ExportWriter.mergeBatchEntry(recipes, batchRemovals.get(entry.target()), entry.recipeId(), entry.content(),
+                entry.removedId());
+        }
+
+        for (Map.Entry<Path, Map<String, String>> batch : batchEntries.entrySet()) {
+            String script = ExportWriter.renderBatch(batch.getValue(), batchRemovals.get(batch.getKey()));
+            ExportWriter.writeDurably(batch.getKey(), script.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.examplemod.export;
+
+import java.nio.file.Path;
+
+/**
+ * Immutable snapshot of the export configuration.
+ * Built once when the config (re)loads so exporting never touches {@code ForgeConfigSpec} getters.
+ */
+public record ExportSettings(String outputDirectory,
+                             OutputFormat outputFormat,
+                             String datapackDirectory,
+                             OutputMode outputMode,
+                             ScriptStyle scriptStyle,
+                             String batchFileName,
+                             int flushIntervalMillis,
+                             int writerBufferSize,
+                             int asyncThreads,
+                             CookingDefaults smelting,
+                             CookingDefaults blasting,
+                             CookingDefaults smoking,
+                             CookingDefaults campfire) {
+
+    public static final ExportSettings DEFAULTS = new ExportSettings(
+        "kubejs/server_scripts",
+        OutputFormat.KUBEJS_SCRIPT,
+        "kubejs",
+        OutputMode.FILE_PER_RECIPE,
+        ScriptStyle.PRETTY,
+        "recipe_editor_generated.js",
+        2000,
+        8192,
+        1,
+        new CookingDefaults(0.1, 200),
+        new CookingDefaults(0.1, 100),
+        new CookingDefaults(0.1, 100),
+        new CookingDefaults(0.1, 600)
+    );
+
+    /**
+     * Which backend exported recipes are written with.
+     */
+    public enum OutputFormat {
+        /** {@code event.custom(...)} calls in KubeJS server scripts, evaluated by KubeJS on every load. */
+        KUBEJS_SCRIPT,
+        /** Plain recipe JSON under {@code data/kubejs/recipes}, loaded by vanilla without any script evaluation. */
+        DATAPACK_JSON
+    }
+
+    /**
+     * How exported scripts are laid out on disk.
+     */
+    public enum OutputMode {
+        /** One script file per recipe, named after the recipe ID. */
+        FILE_PER_RECIPE,
+        /** All recipes collected into a single script that is flushed periodically. */
+        BATCHED
+    }
+
+    /**
+     * How generated script source is formatted.
+     */
+    public enum ScriptStyle {
+        /** Indented, one value per line where objects nest; meant for editing by hand. */
+        PRETTY,
+        /** One line per recipe with repeated strings hoisted into constants; smaller and faster for KubeJS to parse. */
+        MINIFIED
+    }
+
+    /**
+     * Default experience and cooking time for a cooking recipe family.
+     */
+    public record CookingDefaults(double experience, int cookingTime) {
+    }
+
+    /**
+     * Copy writing to other directories, e.g. for the headless exporter or game tests.
+     */
+    public ExportSettings withDirectories(String outputDirectory, String datapackDirectory) {
+        return new ExportSettings(outputDirectory, outputFormat, datapackDirectory, outputMode, scriptStyle,
+            batchFileName, flushIntervalMillis, writerBufferSize, asyncThreads, smelting, blasting, smoking, campfire);
+    }
+
+    public ExportSettings withOutputFormat(OutputFormat outputFormat) {
+        return new ExportSettings(outputDirectory, outputFormat, datapackDirectory, outputMode, scriptStyle,
+            batchFileName, flushIntervalMillis, writerBufferSize, asyncThreads, smelting, blasting, smoking, campfire);
+    }
+
+    public ExportSettings withScriptStyle(ScriptStyle scriptStyle) {
+        return new ExportSettings(outputDirectory, outputFormat, datapackDirectory, outputMode, scriptStyle,
+            batchFileName, flushIntervalMillis, writerBufferSize, asyncThreads, smelting, blasting, smoking, campfire);
+    }
+
+    public ExportSettings withAsyncThreads(int asyncThreads) {
+        return new ExportSettings(outputDirectory, outputFormat, datapackDirectory, outputMode, scriptStyle,
+            batchFileName, flushIntervalMillis, writerBufferSize, asyncThreads, smelting, blasting, smoking, campfire);
+    }
+
+    public Path outputPath() {
+        return Path.of(outputDirectory);
+    }
+
+    /**
+     * Directory receiving datapack recipe JSON. The default points into KubeJS's own
+     * {@code kubejs/data} datapack so no extra pack has to be enabled.
+     */
+    public Path datapackRecipesPath() {
+        return datapackRecipesPath("kubejs");
+    }
+
+    /**
+     * Recipe directory of another namespace in the same datapack, used to override recipes
+     * of other mods by writing a file with the same ID.
+     */
+    public Path datapackRecipesPath(String namespace) {
+        return Path.of(datapackDirectory, "data", namespace, "recipes");
+    }
+
+    /**
+     * Picks the cooking defaults matching a recipe type ID such as {@code minecraft:blasting}.
+     */
+    public CookingDefaults cookingDefaultsFor(String recipeType) {
+        if (recipeType.contains("blasting")) {
+            return blasting;
+        } else if (recipeType.contains("smoking")) {
+            return smoking;
+        } else if (recipeType.contains("campfire")) {
+            return campfire;
+        }
+        return smelting;
+    }
+}
@@ -0,0 +1,550 @@
+package com.example.examplemod.export;
+
+import com.example.examplemod.util.EditorMetrics;
+import com.mojang.logging.LogUtils;
+import org.slf4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes generated scripts to disk off the calling thread.
+ * <p>
+ * In {@link ExportSettings.OutputMode#FILE_PER_RECIPE} mode every recipe is written to its own file.
+ * In {@link ExportSettings.OutputMode#BATCHED} mode recipes are collected into one script, keyed by
+ * recipe ID so re-exporting replaces the previous version, and the file is rewritten at most once
+ * per flush interval. Recipes removed from the batch file are combined into one
+ * {@code event.remove} filter at its top.
+ * <p>
+ * Every write is checked against a {@link ContentManifest} first: files whose content would not
+ * change are left untouched, so re-exporting does not make KubeJS or file watchers see changes.
+ * <p>
+ * Single-recipe exports are logged to an {@link ExportJournal} before their file is written, and
+ * files are replaced atomically with synced content, so a crash neither loses an export nor
+ * leaves a half-written script behind.
+ */
+public final class ExportWriter {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    static final String BATCH_HEADER = "// Generated by Recipe Editor GUI\nServerEvents.recipes(event => {\n";
+    static final String BATCH_FOOTER = "});\n";
+    static final String ENTRY_START = "  // @recipe ";
+    static final String ENTRY_END = "  // @end";
+    static final String REMOVE_MARKER = "  // @remove ";
+    // Data pack format of Minecraft 1.20.1
+    private static final String PACK_META = "{\n  \"pack\": {\n    \"pack_format\": 15,\n"
+        + "    \"description\": \"Recipes generated by Recipe Editor GUI\"\n  }\n}\n";
+    // Kept under local/ like KubeJS's own machine-specific state, so it isn't shipped with packs
+    private static final Path MANIFEST_FILE = Path.of("local", "recipe_editor", "export_manifest.txt");
+    private static final long MANIFEST_SAVE_DELAY_MILLIS = 1000;
+    private static final Path JOURNAL_FILE = Path.of("local", "recipe_editor", "export_journal.bin");
+
+    private static ExportWriter instance;
+    private static ExportJournal journal;
+    private static boolean journalOpened;
+
+    /**
+     * Streams recipe bodies into an open script writer.
+     */
+    @FunctionalInterface
+    public interface BodySource {
+        void writeBodies(Writer writer) throws IOException;
+    }
+
+    private final ExportSettings settings;
+    private final ScheduledThreadPoolExecutor executor;
+    private final ContentManifest manifest;
+    private final AtomicBoolean manifestSaveScheduled = new AtomicBoolean();
+
+    private final Object batchLock = new Object();
+    private final Object flushLock = new Object();
+    private Map<String, String> batchEntries;
+    private Set<String> batchRemovals;
+    private List<CompletableFuture<WriteResult>> pendingBatchFutures = new ArrayList<>();
+    private List<CompletableFuture<?>> pendingBatchAppends = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    private ExportWriter(ExportSettings settings, Path manifestFile) {
+        this.settings = settings;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(Math.max(1, settings.asyncThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "Recipe Editor Writer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.manifest = ContentManifest.load(manifestFile);
+    }
+
+    /**
+     * Gets the writer for the given settings, flushing and replacing the previous writer if the
+     * settings changed since it was created.
+     */
+    public static synchronized ExportWriter forSettings(ExportSettings settings) {
+        if (instance == null || !instance.settings.equals(settings)) {
+            if (instance != null) {
+                instance.close();
+            }
+            instance = new ExportWriter(settings, MANIFEST_FILE);
+        }
+        return instance;
+    }
+
+    /**
+     * Creates a writer independent of the shared one, keeping its manifest in {@code manifestFile},
+     * so e.g. tests can't be disturbed by exports with other settings. The caller closes it.
+     */
+    public static ExportWriter create(ExportSettings settings, Path manifestFile) {
+        return new ExportWriter(settings, manifestFile);
+    }
+
+    /**
+     * Flushes pending batched recipes of the current writer, if any. Safe to call at shutdown.
+     */
+    public static synchronized void flushAll() {
+        if (instance != null) {
+            instance.flush();
+        }
+    }
+
+    /**
+     * Opens the export journal, replaying exports a crash interrupted. Called at startup; the
+     * first export opens it otherwise.
+     */
+    public static synchronized void recoverJournal() {
+        if (journalOpened) return;
+        journalOpened = true;
+        try {
+            journal = ExportJournal.open(JOURNAL_FILE);
+        } catch (IOException e) {
+            LOGGER.error("Could not open export journal {}, exports are not crash safe this session", JOURNAL_FILE, e);
+        }
+    }
+
+    private static synchronized ExportJournal journal() {
+        recoverJournal();
+        return journal;
+    }
+
+    /**
+     * Logs an entry to the journal. The future completes once it is durable, or straight away
+     * without the journal, and never exceptionally: failing to log doesn't stop the export.
+     */
+    private static CompletableFuture<ExportJournal> log(ExportJournal.Entry entry) {
+        ExportJournal log = journal();
+        if (log == null) return CompletableFuture.completedFuture(null);
+        return log.append(entry).handle((ignored, error) -> {
+            if (error != null) {
+                LOGGER.warn("Export of {} is not journaled", entry.target(), error);
+            }
+            return log;
+        });
+    }
+
+    public ExportSettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Writes a complete script to {@code <outputDirectory>/<recipeId>.js}.
+     */
+    public CompletableFuture<WriteResult> submitFile(String recipeId, String script) {
+        Path target = settings.outputPath().resolve(recipeId + ".js");
+        return log(ExportJournal.Entry.file(target, script)).thenApplyAsync(log -> {
+            try {
+                WriteResult result = WriteResult.of(target, write(target, script));
+                scheduleManifestSave();
+                return result;
+            } catch (IOException e) {
+                throw new ExportException("Failed to write " + target, e);
+            } finally {
+                // A failed export is reported now; replaying it next launch would only surprise
+                if (log != null) {
+                    log.applied();
+                }
+            }
+        }, executor);
+    }
+
+    /**
+     * Writes a script whose recipe bodies are produced by {@code source} directly into the file,
+     * so large scripts never have to be held in memory as a whole.
+     */
+    public CompletableFuture<WriteResult> submitStream(String fileName, BodySource source) {
+        Path target = settings.outputPath().resolve(fileName);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                WriteResult result = WriteResult.of(target, write(target, writer -> {
+                    writer.write(BATCH_HEADER);
+                    source.writeBodies(writer);
+                    writer.write(BATCH_FOOTER);
+                }));
+                scheduleManifestSave();
+                return result;
+            } catch (IOException e) {
+                throw new ExportException("Failed to write " + target, e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Unit of work run on the writer threads.
+     */
+    @FunctionalInterface
+    public interface WriterTask<T> {
+        T run() throws IOException;
+    }
+
+    /**
+     * Runs arbitrary file work on the writer threads, e.g. writing many datapack files in one go.
+     */
+    public <T> CompletableFuture<T> submitTask(WriterTask<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.run();
+            } catch (IOException e) {
+                throw new ExportException("Export task failed", e);
+            } finally {
+                scheduleManifestSave();
+            }
+        }, executor);
+    }
+
+    /**
+     * Writes a complete script to {@code <outputDirectory>/<recipeId>.js} on the calling thread,
+     * for use inside {@link #submitTask} when generation and writing should run together.
+     */
+    public WriteResult writeScript(String recipeId, String script) throws IOException {
+        Path target = settings.outputPath().resolve(recipeId + ".js");
+        return WriteResult.of(target, write(target, script));
+    }
+
+    /**
+     * Writes a recipe JSON document into the configured datapack.
+     */
+    public CompletableFuture<WriteResult> submitDatapackRecipe(String recipeId, String json) {
+        return submitTask(() -> writeDatapackRecipe(recipeId, json));
+    }
+
+    /**
+     * Writes a recipe JSON document into the configured datapack on the calling thread,
+     * creating {@code pack.mcmeta} if the datapack is a standalone one that lacks it.
+     */
+    public WriteResult writeDatapackRecipe(String recipeId, String json) throws IOException {
+        ensurePackMeta();
+        Path target = settings.datapackRecipesPath().resolve(recipeId + ".json");
+        return WriteResult.of(target, write(target, json));
+    }
+
+    /**
+     * Writes a recipe JSON document under another namespace of the datapack, e.g.
+     * {@code minecraft:iron_ingot}, shadowing the recipe of that ID from lower priority packs.
+     */
+    public WriteResult writeDatapackOverride(String namespacedId, String json) throws IOException {
+        ensurePackMeta();
+        int separator = namespacedId.indexOf(':');
+        String namespace = separator < 0 ? "minecraft" : namespacedId.substring(0, separator);
+        Path target = settings.datapackRecipesPath(namespace).resolve(namespacedId.substring(separator + 1) + ".json");
+        return WriteResult.of(target, write(target, json));
+    }
+
+    private void ensurePackMeta() throws IOException {
+        Path packRoot = Path.of(settings.datapackDirectory());
+        // KubeJS's own data folder is loaded as a pack without metadata
+        if (packRoot.getFileName() != null && packRoot.getFileName().toString().equals("kubejs")) return;
+
+        Path packMeta = packRoot.resolve("pack.mcmeta");
+        if (!Files.exists(packMeta)) {
+            write(packMeta, PACK_META);
+        }
+    }
+
+    /**
+     * Adds or replaces a recipe body in the batch file. The returned future completes once the
+     * batch containing it has been flushed.
+     */
+    public CompletableFuture<WriteResult> submitBatched(String recipeId, String body) {
+        return submitBatched(recipeId, body, null);
+    }
+
+    /**
+     * Same as {@link #submitBatched(String, String)}, additionally removing the recipe
+     * {@code removedId} from the game. Either part may be {@code null}.
+     */
+    public CompletableFuture<WriteResult> submitBatched(String recipeId, String body, String removedId) {
+        CompletableFuture<WriteResult> future = new CompletableFuture<>();
+        ExportJournal log = journal();
+        CompletableFuture<?> append = null;
+        if (log != null) {
+            append = log.append(ExportJournal.Entry.batch(getBatchFile(), recipeId, body, removedId))
+                .exceptionally(error -> {
+                    LOGGER.warn("Batched export of {} is not journaled", recipeId, error);
+                    return null;
+                });
+            future.whenComplete((result, error) -> log.applied());
+        }
+        synchronized (batchLock) {
+            loadBatchIfNeeded();
+            mergeBatchEntry(batchEntries, batchRemovals, recipeId, body, removedId);
+            pendingBatchFutures.add(future);
+            if (append != null) {
+                pendingBatchAppends.add(append);
+            }
+            if (scheduledFlush == null) {
+                scheduledFlush = executor.schedule(this::flush, settings.flushIntervalMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Rewrites the batch file now if any batched recipes are pending, once their journal entries
+     * are durable.
+     */
+    public void flush() {
+        // Held across render and write so two flushes can never land on disk out of order.
+        synchronized (flushLock) {
+            String content;
+            List<CompletableFuture<WriteResult>> completed;
+            List<CompletableFuture<?>> appends;
+            synchronized (batchLock) {
+                if (scheduledFlush != null) {
+                    scheduledFlush.cancel(false);
+                    scheduledFlush = null;
+                }
+                if (pendingBatchFutures.isEmpty()) return;
+                content = renderBatch(batchEntries, batchRemovals);
+                completed = pendingBatchFutures;
+                pendingBatchFutures = new ArrayList<>();
+                appends = pendingBatchAppends;
+                pendingBatchAppends = new ArrayList<>();
+            }
+
+            // The batch must not reach disk before the journal entries of what it contains.
+            // Appends run on the journal's own thread and never complete exceptionally.
+            CompletableFuture.allOf(appends.toArray(CompletableFuture[]::new)).join();
+
+            Path target = getBatchFile();
+            try {
+                WriteResult result = WriteResult.of(target, write(target, content));
+                scheduleManifestSave();
+                completed.forEach(future -> future.complete(result));
+            } catch (IOException e) {
+                ExportException failure = new ExportException("Failed to write " + target, e);
+                completed.forEach(future -> future.completeExceptionally(failure));
+            }
+        }
+    }
+
+    /**
+     * Flushes pending work and stops the writer threads.
+     */
+    public void close() {
+        flush();
+        manifest.save();
+        executor.shutdown();
+    }
+
+    /**
+     * Saves the manifest shortly after a write, so bulk exports rewrite it once rather than per file.
+     */
+    private void scheduleManifestSave() {
+        if (manifestSaveScheduled.compareAndSet(false, true)) {
+            executor.schedule(() -> {
+                manifestSaveScheduled.set(false);
+                manifest.save();
+            }, MANIFEST_SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public Path getBatchFile() {
+        return settings.outputPath().resolve(settings.batchFileName());
+    }
+
+    /**
+     * Writes {@code content} unless the file already holds exactly these bytes.
+     *
+     * @return whether the file was written
+     */
+    private boolean write(Path target, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        String hash = ContentManifest.hash(bytes);
+        if (manifest.isUnchanged(target, hash)) {
+            EditorMetrics.FILES_UNCHANGED.increment();
+            return false;
+        }
+
+        long start = EditorMetrics.FILE_WRITE.start();
+        writeDurably(target, bytes);
+        manifest.record(target, hash);
+        EditorMetrics.FILE_WRITE.stop(start);
+        EditorMetrics.FILES_WRITTEN.increment();
+        return true;
+    }
+
+    /**
+     * Streams into a temporary file beside the target while hashing, then either discards it if
+     * the target already holds the same content or moves it over the target.
+     *
+     * @return whether the file was written
+     */
+    private boolean write(Path target, BodySource source) throws IOException {
+        long start = EditorMetrics.FILE_WRITE.start();
+        Path temp = createTemp(target);
+        MessageDigest digest = ContentManifest.newDigest();
+        try {
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new DigestOutputStream(Files.newOutputStream(temp), digest), StandardCharsets.UTF_8),
+                    settings.writerBufferSize())) {
+                source.writeBodies(writer);
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            if (manifest.isUnchanged(target, hash)) {
+                EditorMetrics.FILES_UNCHANGED.increment();
+                return false;
+            }
+            moveReplacing(temp, target);
+            manifest.record(target, hash);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        EditorMetrics.FILE_WRITE.stop(start);
+        EditorMetrics.FILES_WRITTEN.increment();
+        return true;
+    }
+
+    /**
+     * Replaces the file atomically with the given content, synced to disk before it becomes visible.
+     */
+    static void writeDurably(Path target, byte[] content) throws IOException {
+        Path temp = createTemp(target);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            moveReplacing(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Creates an empty temporary file in the target's directory. Every write gets its own, so
+     * concurrent writes of the same target never share or delete each other's temporary file.
+     */
+    private static Path createTemp(Path target) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        return Files.createTempFile(parent, target.getFileName().toString(), ".tmp");
+    }
+
+    private static void moveReplacing(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void loadBatchIfNeeded() {
+        if (batchEntries != null) return;
+        batchEntries = new LinkedHashMap<>();
+        batchRemovals = new LinkedHashSet<>();
+
+        Path batchFile = getBatchFile();
+        if (!Files.isRegularFile(batchFile)) return;
+        try {
+            parseBatch(Files.readAllLines(batchFile, StandardCharsets.UTF_8), batchEntries, batchRemovals);
+        } catch (IOException e) {
+            LOGGER.warn("Could not read existing batch file {}, it will be overwritten", batchFile, e);
+        }
+    }
+
+    /**
+     * Adds a batched export to the batch contents. Exporting a recipe cancels an earlier removal
+     * of the same ID, and removing one of the batch's own recipes drops its entry, so the file
+     * never both adds and removes a recipe.
+     */
+    static void mergeBatchEntry(Map<String, String> entries, Set<String> removals, String recipeId, String body,
+                                String removedId) {
+        String exportedId = recipeId == null ? null : "kubejs:" + recipeId;
+        if (body != null) {
+            entries.put(recipeId, body);
+            removals.remove(exportedId);
+        }
+        // A replacement of the recipe by itself is just the new version
+        if (removedId != null && !(body != null && removedId.equals(exportedId))) {
+            removals.add(removedId);
+            if (removedId.startsWith("kubejs:")) {
+                entries.remove(removedId.substring("kubejs:".length()));
+            }
+        }
+    }
+
+    static String renderBatch(Map<String, String> entries, Set<String> removals) {
+        StringBuilder script = new StringBuilder(BATCH_HEADER);
+        if (!removals.isEmpty()) {
+            removals.forEach(recipeId -> script.append(REMOVE_MARKER).append(recipeId).append('\n'));
+            script.append(ScriptRenderer.renderRemove(removals));
+        }
+        entries.forEach((recipeId, body) -> {
+            script.append(ENTRY_START).append(recipeId).append('\n');
+            script.append(body);
+            script.append(ENTRY_END).append('\n');
+        });
+        script.append(BATCH_FOOTER);
+        return script.toString();
+    }
+
+    /**
+     * Recovers the recipe bodies and removed IDs from a batch file written by {@link #renderBatch}.
+     * Anything outside the markers is ignored.
+     */
+    static void parseBatch(List<String> lines, Map<String, String> into, Set<String> removals) {
+        String currentId = null;
+        StringBuilder body = new StringBuilder();
+        for (String line : lines) {
+            if (currentId == null && line.startsWith(REMOVE_MARKER)) {
+                removals.add(line.substring(REMOVE_MARKER.length()).trim());
+            } else if (line.startsWith(ENTRY_START)) {
+                currentId = line.substring(ENTRY_START.length()).trim();
+                body.setLength(0);
+            } else if (currentId != null && line.equals(ENTRY_END)) {
+                into.put(currentId, body.toString());
+                currentId = null;
+            } else if (currentId != null) {
+                body.append(line).append('\n');
+            }
+        }
+    }
+}
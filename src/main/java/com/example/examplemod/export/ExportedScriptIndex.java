@@ -0,0 +1,116 @@
+package com.example.examplemod.export;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory view of the recipe IDs defined by the scripts in the export directory, including
+ * scripts edited by hand. Kept up to date file by file by {@link ScriptDirectoryWatcher}, or
+ * built once by {@link #scan}.
+ * <p>
+ * Updates are serialised; lookups don't lock and may run on any thread.
+ */
+public final class ExportedScriptIndex {
+
+    // Matches .id("ns:path") with any JavaScript quote style
+    private static final Pattern ID_CALL = Pattern.compile("\\.id\\(\\s*(['\"`])([^'\"`]+)\\1\\s*\\)");
+
+    private final Map<Path, List<String>> recipesByFile = new ConcurrentHashMap<>();
+    private final Map<String, Path> fileByRecipe = new ConcurrentHashMap<>();
+
+    /**
+     * Indexes every script below {@code root} once, without watching it. Unreadable scripts are skipped.
+     */
+    public static ExportedScriptIndex scan(Path root) throws IOException {
+        ExportedScriptIndex index = new ExportedScriptIndex();
+        if (!Files.isDirectory(root)) return index;
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.filter(path -> path.toString().endsWith(".js") && Files.isRegularFile(path)).toList()) {
+                try {
+                    index.update(file, Files.readString(file, StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    // Deleted or locked since the walk
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Re-reads the recipe IDs of one script from its content.
+     */
+    public synchronized void update(Path file, CharSequence content) {
+        Path key = file.toAbsolutePath().normalize();
+        forgetRecipes(key);
+
+        List<String> recipeIds = parseRecipeIds(content);
+        recipesByFile.put(key, recipeIds);
+        for (String recipeId : recipeIds) {
+            fileByRecipe.put(recipeId, key);
+        }
+    }
+
+    /**
+     * Drops a deleted script, or every script below a deleted directory.
+     */
+    public synchronized void remove(Path path) {
+        Path key = path.toAbsolutePath().normalize();
+        recipesByFile.keySet().removeIf(file -> {
+            if (!file.startsWith(key)) return false;
+            forgetRecipes(file);
+            return true;
+        });
+    }
+
+    public synchronized void clear() {
+        recipesByFile.clear();
+        fileByRecipe.clear();
+    }
+
+    /**
+     * The script defining a recipe ID such as {@code kubejs:my_recipe}, if any.
+     */
+    public Optional<Path> fileFor(String recipeId) {
+        return Optional.ofNullable(fileByRecipe.get(normalize(recipeId)));
+    }
+
+    public Set<String> recipeIds() {
+        return Set.copyOf(fileByRecipe.keySet());
+    }
+
+    public int fileCount() {
+        return recipesByFile.size();
+    }
+
+    public int recipeCount() {
+        return fileByRecipe.size();
+    }
+
+    private void forgetRecipes(Path file) {
+        List<String> previous = recipesByFile.get(file);
+        if (previous == null) return;
+        for (String recipeId : previous) {
+            // Another file may have defined the same ID since
+            fileByRecipe.remove(recipeId, file);
+        }
+    }
+
+    static List<String> parseRecipeIds(CharSequence content) {
+        Matcher matcher = ID_CALL.matcher(content);
+        return matcher.results().map(result -> normalize(result.group(2))).distinct().toList();
+    }
+
+    private static String normalize(String recipeId) {
+        return recipeId.indexOf(':') < 0 ? "minecraft:" + recipeId : recipeId;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.examplemod.export;
+
+/**
+ * An item by registry ID and count, independent of the game's registries so recipes can be
+ * generated without a running game. An empty slot is {@link #EMPTY}.
+ */
+public record ItemRef(String id, int count) {
+
+    public static final ItemRef EMPTY = new ItemRef("minecraft:air", 0);
+
+    public ItemRef {
+        if (count < 0) {
+            throw new IllegalArgumentException("Negative count " + count + " for " + id);
+        }
+    }
+
+    public static ItemRef of(String id) {
+        return new ItemRef(id, 1);
+    }
+
+    /**
+     * Parses the KubeJS item shorthand {@code [<count>x ]<id>}, e.g. {@code 2x minecraft:stick}.
+     * A blank string or {@code -} is an empty slot.
+     *
+     * @throws IllegalArgumentException if the count or ID is malformed
+     */
+    public static ItemRef parse(String text) {
+        String trimmed = text.trim();
+        if (trimmed.isEmpty() || trimmed.equals("-")) return EMPTY;
+
+        int count = 1;
+        int space = trimmed.indexOf(' ');
+        if (space > 0 && trimmed.charAt(space - 1) == 'x') {
+            try {
+                count = Integer.parseInt(trimmed.substring(0, space - 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid item count in \"" + trimmed + "\"");
+            }
+            trimmed = trimmed.substring(space + 1).trim();
+        }
+        if (!trimmed.matches("[a-z0-9_.-]+:[a-z0-9_./-]+")) {
+            throw new IllegalArgumentException("Invalid item ID \"" + trimmed + "\"");
+        }
+        return new ItemRef(trimmed, count);
+    }
+
+    public boolean isEmpty() {
+        return count == 0 || id.equals(EMPTY.id);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.examplemod.export;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable description of a recipe as built in the editor: the recipe type, the active input
+ * and output slots in slot order, and any extra top-level properties.
+ * <p>
+ * Drafts are snapshotted once from the editor and then shared freely between threads; being a
+ * record of immutable values they can also be compared and used as cache keys. For shaped
+ * crafting the nine inputs are the 3x3 grid row by row, so they double as the pattern.
+ *
+ * @param extras extra recipe properties such as {@code processingTime}, written after (and
+ *               overriding) the ones derived from the slots. Values are strings, numbers or booleans.
+ */
+public record RecipeDraft(String type, List<ItemRef> inputs, List<ItemRef> outputs, Map<String, Object> extras) {
+
+    public RecipeDraft {
+        inputs = List.copyOf(inputs);
+        outputs = List.copyOf(outputs);
+        // Keep insertion order so the generated output is stable
+        extras = Collections.unmodifiableMap(new LinkedHashMap<>(extras));
+        for (Object value : extras.values()) {
+            if (!(value instanceof String || value instanceof Number || value instanceof Boolean)) {
+                throw new IllegalArgumentException("Unsupported extra value " + value);
+            }
+        }
+    }
+
+    public static RecipeDraft of(String type, List<ItemRef> inputs, List<ItemRef> outputs) {
+        return new RecipeDraft(type, inputs, outputs, Map.of());
+    }
+
+    public RecipeDraft withType(String type) {
+        return new RecipeDraft(type, inputs, outputs, extras);
+    }
+
+    public RecipeDraft withExtra(String key, Object value) {
+        Map<String, Object> copy = new LinkedHashMap<>(extras);
+        copy.put(key, value);
+        return new RecipeDraft(type, inputs, outputs, copy);
+    }
+
+    /**
+     * Returns a draft with the given input slot replaced.
+     */
+    public RecipeDraft withInput(int slot, ItemRef item) {
+        List<ItemRef> copy = new ArrayList<>(inputs);
+        copy.set(slot, item);
+        return new RecipeDraft(type, copy, outputs, extras);
+    }
+
+    /**
+     * Returns a draft with the given output slot replaced.
+     */
+    public RecipeDraft withOutput(int slot, ItemRef item) {
+        List<ItemRef> copy = new ArrayList<>(outputs);
+        copy.set(slot, item);
+        return new RecipeDraft(type, inputs, copy, extras);
+    }
+
+    /**
+     * Input slot, or {@link ItemRef#EMPTY} past the last active slot.
+     */
+    public ItemRef input(int slot) {
+        return slot < inputs.size() ? inputs.get(slot) : ItemRef.EMPTY;
+    }
+
+    /**
+     * Output slot, or {@link ItemRef#EMPTY} past the last active slot.
+     */
+    public ItemRef output(int slot) {
+        return slot < outputs.size() ? outputs.get(slot) : ItemRef.EMPTY;
+    }
+
+    public boolean isEmpty() {
+        return inputs.stream().allMatch(ItemRef::isEmpty) && outputs.stream().allMatch(ItemRef::isEmpty);
+    }
+}
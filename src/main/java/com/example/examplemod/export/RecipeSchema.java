@@ -0,0 +1,193 @@
+package com.example.examplemod.export;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.util.List;
+
+/**
+ * Builds the recipe JSON shared by every output backend.
+ * The same object is rendered as script source by {@link ScriptRenderer} or written verbatim
+ * into a datapack, so both backends always agree on the recipe format.
+ * <p>
+ * Recipes come in as {@link RecipeDraft}s of plain item IDs, so nothing here needs the game's registries.
+ */
+public final class RecipeSchema {
+
+    private RecipeSchema() {
+    }
+
+    /**
+     * Builds the recipe JSON for a draft.
+     */
+    public static JsonObject build(RecipeDraft draft, ExportSettings settings) {
+        JsonObject recipe = new JsonObject();
+        String recipeType = draft.type();
+        recipe.addProperty("type", recipeType);
+
+        // Handle different recipe types
+        String lowerType = recipeType.toLowerCase();
+
+        if (lowerType.contains("shaped") || lowerType.contains("crafting_shaped")) {
+            buildShapedCrafting(recipe, draft);
+        } else if (lowerType.contains("shapeless") || lowerType.contains("crafting_shapeless")) {
+            buildShapelessCrafting(recipe, lowerType, draft);
+        } else if (lowerType.contains("smelting") || lowerType.contains("blasting") ||
+                   lowerType.contains("smoking") || lowerType.contains("campfire")) {
+            buildCookingRecipe(recipe, draft, settings.cookingDefaultsFor(lowerType));
+        } else if (lowerType.contains("stonecutting")) {
+            buildStonecuttingRecipe(recipe, draft);
+        } else if (lowerType.contains("smithing")) {
+            buildSmithingRecipe(recipe, draft);
+        } else {
+            // Generic recipe format
+            buildGenericRecipe(recipe, draft);
+        }
+
+        draft.extras().forEach((key, value) -> {
+            if (value instanceof Number number) {
+                recipe.addProperty(key, number);
+            } else if (value instanceof Boolean bool) {
+                recipe.addProperty(key, bool);
+            } else {
+                recipe.addProperty(key, value.toString());
+            }
+        });
+        return recipe;
+    }
+
+    /**
+     * Recipe JSON whose Forge condition never holds. Written over an existing recipe's ID in a
+     * higher priority datapack, it makes the game skip that recipe, i.e. removes it.
+     */
+    public static JsonObject removal() {
+        JsonObject condition = new JsonObject();
+        condition.addProperty("type", "forge:false");
+        JsonArray conditions = new JsonArray();
+        conditions.add(condition);
+        JsonObject recipe = new JsonObject();
+        recipe.add("conditions", conditions);
+        return recipe;
+    }
+
+    private static void buildShapedCrafting(JsonObject recipe, RecipeDraft draft) {
+        // 3x3 pattern, one key letter per occupied slot
+        JsonArray pattern = new JsonArray();
+        JsonObject key = new JsonObject();
+        for (int row = 0; row < 3; row++) {
+            StringBuilder line = new StringBuilder();
+            for (int col = 0; col < 3; col++) {
+                int index = row * 3 + col;
+                ItemRef stack = draft.input(index);
+                if (!stack.isEmpty()) {
+                    char symbol = (char) ('A' + index);
+                    line.append(symbol);
+                    key.add(String.valueOf(symbol), item(stack));
+                } else {
+                    line.append(' ');
+                }
+            }
+            pattern.add(line.toString());
+        }
+        recipe.add("pattern", pattern);
+        recipe.add("key", key);
+
+        if (!draft.output(0).isEmpty()) {
+            recipe.add("result", itemWithCount(draft.output(0)));
+        }
+    }
+
+    private static void buildShapelessCrafting(JsonObject recipe, String lowerType, RecipeDraft draft) {
+        recipe.add("ingredients", items(draft.inputs(), false));
+
+        if (!draft.output(0).isEmpty()) {
+            JsonObject result = itemWithCount(draft.output(0));
+            if (lowerType.contains("crafting")) {
+                recipe.add("result", result);
+            } else {
+                // Modded shapeless machines generally take a results list
+                JsonArray results = new JsonArray();
+                results.add(result);
+                recipe.add("results", results);
+            }
+        }
+    }
+
+    private static void buildCookingRecipe(JsonObject recipe, RecipeDraft draft, ExportSettings.CookingDefaults defaults) {
+        if (!draft.input(0).isEmpty()) {
+            recipe.add("ingredient", item(draft.input(0)));
+        }
+        if (!draft.output(0).isEmpty()) {
+            recipe.addProperty("result", itemId(draft.output(0)));
+        }
+        recipe.addProperty("experience", defaults.experience());
+        recipe.addProperty("cookingtime", defaults.cookingTime());
+    }
+
+    private static void buildStonecuttingRecipe(JsonObject recipe, RecipeDraft draft) {
+        if (!draft.input(0).isEmpty()) {
+            recipe.add("ingredient", item(draft.input(0)));
+        }
+        if (!draft.output(0).isEmpty()) {
+            ItemRef result = draft.output(0);
+            recipe.addProperty("result", itemId(result));
+            recipe.addProperty("count", result.count());
+        }
+    }
+
+    private static void buildSmithingRecipe(JsonObject recipe, RecipeDraft draft) {
+        // Slots are template, base, addition; empty ones fall back to air
+        recipe.add("base", itemOrAir(draft.input(1)));
+        recipe.add("addition", itemOrAir(draft.input(2)));
+        recipe.add("template", itemOrAir(draft.input(0)));
+        if (!draft.output(0).isEmpty()) {
+            recipe.add("result", item(draft.output(0)));
+        }
+    }
+
+    private static void buildGenericRecipe(JsonObject recipe, RecipeDraft draft) {
+        recipe.add("ingredients", items(draft.inputs(), false));
+        recipe.add("results", items(draft.outputs(), true));
+    }
+
+    private static JsonArray items(List<ItemRef> slots, boolean withCount) {
+        JsonArray items = new JsonArray();
+        for (ItemRef stack : slots) {
+            if (!stack.isEmpty()) {
+                JsonObject entry = item(stack);
+                if (withCount) {
+                    entry.addProperty("count", stack.count());
+                }
+                items.add(entry);
+            }
+        }
+        return items;
+    }
+
+    private static JsonObject item(ItemRef stack) {
+        JsonObject item = new JsonObject();
+        item.addProperty("item", itemId(stack));
+        return item;
+    }
+
+    private static JsonObject itemWithCount(ItemRef stack) {
+        JsonObject item = item(stack);
+        if (stack.count() > 1) {
+            item.addProperty("count", stack.count());
+        }
+        return item;
+    }
+
+    private static JsonObject itemOrAir(ItemRef stack) {
+        if (stack.isEmpty()) {
+            JsonObject air = new JsonObject();
+            air.addProperty("item", "minecraft:air");
+            return air;
+        }
+        return item(stack);
+    }
+
+    private static String itemId(ItemRef stack) {
+        return stack.id();
+    }
+}
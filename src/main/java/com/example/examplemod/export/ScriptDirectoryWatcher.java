@@ -0,0 +1,182 @@
+package com.example.examplemod.export;
+
+import com.example.examplemod.util.EditorMetrics;
+import com.mojang.logging.LogUtils;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Keeps an {@link ExportedScriptIndex} in sync with a script directory such as
+ * {@code kubejs/server_scripts}. The directory is scanned once when watching starts; after that
+ * only files reported by the {@link WatchService} are re-read, once they have been quiet for
+ * {@link #DEBOUNCE_MILLIS}, so an editor saving a file several times costs a single re-read.
+ */
+public final class ScriptDirectoryWatcher implements AutoCloseable {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final long DEBOUNCE_MILLIS = 250;
+    private static final String SCRIPT_EXTENSION = ".js";
+
+    private static ScriptDirectoryWatcher instance;
+
+    private final Path root;
+    private final ExportedScriptIndex index = new ExportedScriptIndex();
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private final Thread thread;
+    private volatile boolean closed;
+
+    private ScriptDirectoryWatcher(Path root) throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.thread = new Thread(this::run, "Recipe Editor Script Watcher");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Starts watching {@code root} unless it is watched already, replacing a watcher of another
+     * directory, and returns its index. The initial scan runs on the watcher thread, so this
+     * returns immediately with an index that fills in shortly after.
+     */
+    public static synchronized ExportedScriptIndex watch(Path root) {
+        Path normalized = root.toAbsolutePath().normalize();
+        if (instance != null && instance.root.equals(normalized)) {
+            return instance.index;
+        }
+        stop();
+        try {
+            instance = new ScriptDirectoryWatcher(normalized);
+            instance.thread.start();
+            return instance.index;
+        } catch (IOException e) {
+            LOGGER.warn("Could not watch {} for script changes", normalized, e);
+            return new ExportedScriptIndex();
+        }
+    }
+
+    public static synchronized void stop() {
+        if (instance != null) {
+            instance.close();
+            instance = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            LOGGER.debug("Failed to close script watcher", e);
+        }
+    }
+
+    private void run() {
+        try {
+            Files.createDirectories(root);
+            registerTree(root);
+            LOGGER.debug("Indexed {} recipes in {} scripts under {}", index.recipeCount(), index.fileCount(), root);
+
+            Set<Path> changed = new LinkedHashSet<>();
+            boolean rescan = false;
+            while (!closed) {
+                WatchKey key = changed.isEmpty() && !rescan
+                    ? watchService.take()
+                    : watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+                if (key == null) {
+                    // Quiet for a whole debounce period: apply what accumulated
+                    if (rescan) {
+                        index.clear();
+                        registerTree(root);
+                    } else {
+                        changed.forEach(this::reindex);
+                    }
+                    changed.clear();
+                    rescan = false;
+                    continue;
+                }
+
+                Path directory = directories.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        rescan = true;
+                    } else if (directory != null) {
+                        changed.add(directory.resolve((Path) event.context()));
+                    }
+                }
+                if (!key.reset()) {
+                    directories.remove(key);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped
+        } catch (IOException e) {
+            LOGGER.warn("Script watcher for {} stopped", root, e);
+        }
+    }
+
+    private void reindex(Path path) {
+        try {
+            if (Files.isDirectory(path)) {
+                registerTree(path);
+            } else if (Files.isRegularFile(path)) {
+                indexFile(path);
+            } else {
+                index.remove(path);
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Could not re-index {}", path, e);
+        }
+    }
+
+    /**
+     * Registers a directory and all its subdirectories with the watch service and indexes the
+     * scripts in them.
+     */
+    private void registerTree(Path start) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(start)) {
+            paths = walk.toList();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        for (Path path : paths) {
+            if (Files.isDirectory(path)) {
+                WatchKey key = path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                directories.put(key, path);
+            } else {
+                indexFile(path);
+            }
+        }
+    }
+
+    private void indexFile(Path file) {
+        if (!file.getFileName().toString().endsWith(SCRIPT_EXTENSION)) return;
+        try {
+            index.update(file, Files.readString(file, StandardCharsets.UTF_8));
+            EditorMetrics.SCRIPTS_REINDEXED.increment();
+        } catch (IOException e) {
+            // Usually a file caught mid-write; its next modification event re-reads it
+            LOGGER.debug("Could not index {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.examplemod.export;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Renders recipe JSON from {@link RecipeSchema} as KubeJS script source.
+ * Keys are left unquoted where JavaScript allows it and objects holding only plain values are
+ * kept on one line, which matches how hand-written KubeJS scripts usually look.
+ * <p>
+ * {@link #renderMinified} is the compact alternative for large generated scripts.
+ */
+public final class ScriptRenderer {
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_$][A-Za-z0-9_$]*");
+    private static final String INDENT = "  ";
+    // Strings shorter than this cost about as much as the constant they would be replaced with
+    private static final int MIN_HOISTED_LENGTH = 4;
+
+    private ScriptRenderer() {
+    }
+
+    /**
+     * Renders an {@code event.custom(...)} statement for one recipe, indented for use inside
+     * a {@code ServerEvents.recipes} callback.
+     */
+    public static String renderCustom(JsonObject recipe, String recipeId) {
+        StringBuilder script = new StringBuilder();
+        script.append(INDENT).append("event.custom(");
+        appendValue(script, recipe, 1);
+        script.append(").id(");
+        appendString(script, "kubejs:" + recipeId);
+        script.append(");\n");
+        return script.toString();
+    }
+
+    /**
+     * Renders recipes as one compact {@code event.custom(...)} line each. String values occurring
+     * more than once, mostly item IDs, are declared once as constants. The recipes are wrapped in a
+     * function called in place, so the constants of separately rendered chunks of one script live
+     * in separate function scopes; Rhino treats block-level {@code const} as function scoped and
+     * would reject a second chunk redeclaring them.
+     */
+    public static String renderMinified(List<String> recipeIds, List<JsonObject> recipes) {
+        // Insertion ordered, so the same recipes always render byte-identical output
+        Map<String, Integer> occurrences = new LinkedHashMap<>();
+        for (JsonObject recipe : recipes) {
+            countStrings(recipe, occurrences);
+        }
+        Map<String, String> constants = new LinkedHashMap<>();
+        occurrences.forEach((value, count) -> {
+            if (count > 1 && value.length() >= MIN_HOISTED_LENGTH) {
+                constants.put(value, "$" + Integer.toString(constants.size(), 36));
+            }
+        });
+
+        StringBuilder script = new StringBuilder();
+        if (!constants.isEmpty()) {
+            script.append("(function(){const ");
+            boolean first = true;
+            for (Map.Entry<String, String> constant : constants.entrySet()) {
+                if (!first) script.append(',');
+                first = false;
+                script.append(constant.getValue()).append('=');
+                appendString(script, constant.getKey());
+            }
+            script.append(";\n");
+        }
+        for (int i = 0; i < recipes.size(); i++) {
+            script.append("event.custom(");
+            appendCompact(script, recipes.get(i), constants);
+            script.append(").id(");
+            appendString(script, "kubejs:" + recipeIds.get(i));
+            script.append(");\n");
+        }
+        if (!constants.isEmpty()) {
+            script.append("})();\n");
+        }
+        return script.toString();
+    }
+
+    private static void countStrings(JsonElement value, Map<String, Integer> occurrences) {
+        if (value.isJsonObject()) {
+            value.getAsJsonObject().entrySet().forEach(entry -> countStrings(entry.getValue(), occurrences));
+        } else if (value.isJsonArray()) {
+            value.getAsJsonArray().forEach(element -> countStrings(element, occurrences));
+        } else if (value.isJsonPrimitive() && value.getAsJsonPrimitive().isString()) {
+            occurrences.merge(value.getAsString(), 1, Integer::sum);
+        }
+    }
+
+    private static void appendCompact(StringBuilder script, JsonElement value, Map<String, String> constants) {
+        if (value.isJsonObject()) {
+            script.append('{');
+            boolean first = true;
+            for (Map.Entry<String, JsonElement> entry : value.getAsJsonObject().entrySet()) {
+                if (!first) script.append(',');
+                first = false;
+                appendKey(script, entry.getKey());
+                script.append(':');
+                appendCompact(script, entry.getValue(), constants);
+            }
+            script.append('}');
+        } else if (value.isJsonArray()) {
+            script.append('[');
+            JsonArray array = value.getAsJsonArray();
+            for (int i = 0; i < array.size(); i++) {
+                if (i > 0) script.append(',');
+                appendCompact(script, array.get(i), constants);
+            }
+            script.append(']');
+        } else if (value.isJsonPrimitive() && value.getAsJsonPrimitive().isString()) {
+            String constant = constants.get(value.getAsString());
+            if (constant != null) {
+                script.append(constant);
+            } else {
+                appendString(script, value.getAsString());
+            }
+        } else {
+            script.append(value);
+        }
+    }
+
+    /**
+     * Renders a single {@code event.remove(...)} statement removing all the given recipe IDs.
+     * KubeJS scans the whole recipe list once per filter call, so a file's removals are combined
+     * into one OR filter rather than emitted as one call each.
+     */
+    public static String renderRemove(Collection<String> recipeIds) {
+        StringBuilder script = new StringBuilder();
+        script.append(INDENT).append("event.remove(");
+        if (recipeIds.size() == 1) {
+            appendIdFilter(script, recipeIds.iterator().next());
+        } else {
+            script.append("[\n");
+            int remaining = recipeIds.size();
+            for (String recipeId : recipeIds) {
+                indent(script, 2);
+                appendIdFilter(script, recipeId);
+                if (--remaining > 0) script.append(',');
+                script.append('\n');
+            }
+            indent(script, 1);
+            script.append(']');
+        }
+        script.append(");\n");
+        return script.toString();
+    }
+
+    private static void appendIdFilter(StringBuilder script, String recipeId) {
+        script.append("{ id: ");
+        appendString(script, recipeId);
+        script.append(" }");
+    }
+
+    private static void appendValue(StringBuilder script, JsonElement value, int depth) {
+        if (value.isJsonObject()) {
+            appendObject(script, value.getAsJsonObject(), depth);
+        } else if (value.isJsonArray()) {
+            appendArray(script, value.getAsJsonArray(), depth);
+        } else if (value.isJsonPrimitive() && value.getAsJsonPrimitive().isString()) {
+            appendString(script, value.getAsString());
+        } else {
+            script.append(value);
+        }
+    }
+
+    private static void appendObject(StringBuilder script, JsonObject object, int depth) {
+        if (object.size() == 0) {
+            script.append("{}");
+            return;
+        }
+
+        boolean inline = object.entrySet().stream().allMatch(entry -> entry.getValue().isJsonPrimitive());
+        script.append(inline ? "{ " : "{\n");
+        boolean first = true;
+        for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+            if (!first) script.append(inline ? ", " : ",\n");
+            first = false;
+            if (!inline) indent(script, depth + 1);
+            appendKey(script, entry.getKey());
+            script.append(": ");
+            appendValue(script, entry.getValue(), depth + 1);
+        }
+        if (inline) {
+            script.append(" }");
+        } else {
+            script.append('\n');
+            indent(script, depth);
+            script.append('}');
+        }
+    }
+
+    private static void appendArray(StringBuilder script, JsonArray array, int depth) {
+        if (array.isEmpty()) {
+            script.append("[]");
+            return;
+        }
+
+        script.append("[\n");
+        for (int i = 0; i < array.size(); i++) {
+            indent(script, depth + 1);
+            appendValue(script, array.get(i), depth + 1);
+            if (i < array.size() - 1) script.append(',');
+            script.append('\n');
+        }
+        indent(script, depth);
+        script.append(']');
+    }
+
+    private static void appendKey(StringBuilder script, String key) {
+        if (IDENTIFIER.matcher(key).matches()) {
+            script.append(key);
+        } else {
+            appendString(script, key);
+        }
+    }
+
+    private static void appendString(StringBuilder script, String value) {
+        // Gson's JSON string escaping is also valid JavaScript
+        script.append(new JsonPrimitive(value));
+    }
+
+    private static void indent(StringBuilder script, int depth) {
+        for (int i = 0; i < depth; i++) {
+            script.append(INDENT);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.examplemod.export;
+
+import java.nio.file.Path;
+
+/**
+ * Outcome of an export: where it went and how many files were actually rewritten versus left
+ * alone because their content was already up to date.
+ */
+public record WriteResult(Path path, int written, int unchanged) {
+
+    public static WriteResult of(Path path, boolean written) {
+        return written ? new WriteResult(path, 1, 0) : new WriteResult(path, 0, 1);
+    }
+
+    /**
+     * Adds the file counts of another result, keeping this result's path.
+     */
+    public WriteResult plus(WriteResult other) {
+        return new WriteResult(path, written + other.written, unchanged + other.unchanged);
+    }
+
+    public boolean isUnchanged() {
+        return written == 0 && unchanged > 0;
+    }
+}
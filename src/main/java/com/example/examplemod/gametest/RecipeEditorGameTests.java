@@ -0,0 +1,453 @@
+package com.example.examplemod.gametest;
+
+import com.example.examplemod.ExampleMod;
+import com.example.examplemod.command.RecipeLookupProfiler;
+import com.example.examplemod.export.ExportAction;
+import com.example.examplemod.export.ExportSettings;
+import com.example.examplemod.export.ExportWriter;
+import com.example.examplemod.export.ItemRef;
+import com.example.examplemod.export.RecipeDraft;
+import com.example.examplemod.export.WriteResult;
+import com.example.examplemod.menu.RecipeEditorMenu;
+import com.example.examplemod.network.OpenRecipeEditorPacket;
+import com.example.examplemod.util.EditorMetrics;
+import com.example.examplemod.util.KubeJSExporter;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.gametest.framework.GameTest;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.util.GsonHelper;
+import net.minecraft.world.Container;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.item.crafting.Recipe;
+import net.minecraft.world.item.crafting.RecipeManager;
+import net.minecraft.world.item.crafting.RecipeType;
+import net.minecraftforge.gametest.GameTestHolder;
+import net.minecraftforge.gametest.PrefixGameTestTemplate;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * End-to-end checks of the editor run by the {@code gameTestServer} run configuration: the menu
+ * is opened for a mock player, filled, exported through the real export path and the written
+ * files are read back.
+ * <p>
+ * Timings are recorded as {@link EditorMetrics} timers named {@code gametest_*} rather than
+ * asserted, so a slow machine doesn't fail the tests; {@code /recipeeditor stats} shows them.
+ * Each test exports through a writer of its own, and the lookup test runs in a batch of its own
+ * as it swaps the recipe manager's contents.
+ */
+@GameTestHolder(ExampleMod.MODID)
+@PrefixGameTestTemplate(false)
+public class RecipeEditorGameTests {
+
+    private static final String TEMPLATE = "empty";
+
+    private static final EditorMetrics.Timer MENU_OPEN = EditorMetrics.timer("gametest_menu_open");
+    private static final EditorMetrics.Timer EXPORT = EditorMetrics.timer("gametest_export");
+    private static final EditorMetrics.Timer BULK_EXPORT = EditorMetrics.timer("gametest_bulk_export");
+    private static final EditorMetrics.Timer CRAFTING_LOOKUP = EditorMetrics.timer("gametest_crafting_lookup");
+
+    private static final int BULK_RECIPES = 500;
+    private static final int PROFILED_RECIPES = 2000;
+    private static final int CHECKED_LOOKUPS = 50;
+    private static final int MINIFIED_RECIPES = 200;
+    private static final int MINIFIED_CHUNK = 64;
+    private static final Pattern MINIFIED_CONSTANT = Pattern.compile("(\\$[0-9a-z]+)=(\"(?:[^\"\\\\]|\\\\.)*\")");
+
+    private static final ExportSettings SCRIPT_SETTINGS = ExportSettings.DEFAULTS
+        .withDirectories("gametest/kubejs/server_scripts", "gametest/datapack");
+    private static final ExportSettings DATAPACK_SETTINGS = SCRIPT_SETTINGS
+        .withOutputFormat(ExportSettings.OutputFormat.DATAPACK_JSON);
+    // Manifests of the tests' own export writers
+    private static final Path GAMETEST_STATE = Path.of("local", "recipe_editor", "gametest");
+
+    @GameTest(template = TEMPLATE)
+    public static void openEditor(GameTestHelper helper) {
+        ServerPlayer player = helper.makeMockServerPlayerInLevel();
+
+        long start = MENU_OPEN.start();
+        OpenRecipeEditorPacket.openEditor(player);
+        MENU_OPEN.stop(start);
+
+        if (!(player.containerMenu instanceof RecipeEditorMenu menu)) {
+            helper.fail("Recipe editor menu did not open");
+            return;
+        }
+        if (!menu.snapshot("minecraft:crafting_shaped").isEmpty()) {
+            helper.fail("A newly opened editor is not empty");
+        }
+        helper.succeed();
+    }
+
+    @GameTest(template = TEMPLATE)
+    public static void exportedScriptMatchesEditor(GameTestHelper helper) {
+        RecipeEditorMenu menu = openFilledMenu(helper, 9, 1);
+        menu.getInputItems().setStackInSlot(1, new ItemStack(Items.IRON_INGOT));
+        menu.getInputItems().setStackInSlot(3, new ItemStack(Items.IRON_INGOT));
+        menu.getInputItems().setStackInSlot(4, new ItemStack(Items.STICK));
+        menu.getOutputItems().setStackInSlot(0, new ItemStack(Items.IRON_NUGGET, 2));
+        RecipeDraft draft = menu.snapshot("minecraft:crafting_shaped");
+        String recipeId = "gametest_shaped";
+        deleteQuietly(helper, SCRIPT_SETTINGS.outputPath().resolve(recipeId + ".js"));
+
+        ExportWriter writer = openWriter(helper, SCRIPT_SETTINGS, "scripts");
+        TimedExport export = TimedExport.start(EXPORT, writer, () -> exportOne(draft, recipeId, writer));
+        helper.succeedWhen(() -> {
+            WriteResult result = export.await(helper);
+            if (result.written() != 1) {
+                helper.fail("Expected the script to be written, got " + result);
+            }
+
+            String script = read(helper, result.path());
+            String expected = KubeJSExporter.wrapScript(KubeJSExporter.generateRecipeBody(draft, recipeId, SCRIPT_SETTINGS));
+            if (!script.equals(expected)) {
+                helper.fail("Written script differs from the generated one:\n" + script);
+            }
+            for (String fragment : List.of("minecraft:crafting_shaped", "\" B \"", "\"DE \"",
+                    "minecraft:iron_ingot", "minecraft:stick", "count: 2", ".id(\"kubejs:" + recipeId + "\")")) {
+                if (!script.contains(fragment)) {
+                    helper.fail("Script is missing " + fragment + ":\n" + script);
+                }
+            }
+        });
+    }
+
+    @GameTest(template = TEMPLATE, timeoutTicks = 400)
+    public static void bulkExportSkipsUnchanged(GameTestHelper helper) {
+        RecipeDraft draft = RecipeDraft.of("minecraft:crafting_shapeless",
+            List.of(ItemRef.of("minecraft:cobblestone"), ItemRef.of("minecraft:flint")),
+            List.of(new ItemRef("minecraft:gravel", 2)));
+        for (int i = 0; i < BULK_RECIPES; i++) {
+            deleteQuietly(helper, SCRIPT_SETTINGS.outputPath().resolve(bulkId(i) + ".js"));
+        }
+
+        ExportWriter writer = openWriter(helper, SCRIPT_SETTINGS, "bulk");
+        // The second pass writes identical content, so every file must be skipped
+        TimedExport first = TimedExport.start(BULK_EXPORT, null, () -> exportAll(draft, writer));
+        CompletableFuture<WriteResult> second = first.future.thenCompose(ignored -> exportAll(draft, writer))
+            .whenComplete((result, error) -> writer.close());
+        helper.succeedWhen(() -> {
+            WriteResult written = first.await(helper);
+            if (written.written() != BULK_RECIPES) {
+                helper.fail("Expected " + BULK_RECIPES + " files written, got " + written.written());
+            }
+            if (!second.isDone()) {
+                helper.fail("Second export still running");
+            }
+            WriteResult unchanged = second.join();
+            if (unchanged.unchanged() != BULK_RECIPES || unchanged.written() != 0) {
+                helper.fail("Re-export rewrote " + unchanged.written() + " unchanged files");
+            }
+            String expected = KubeJSExporter.wrapScript(KubeJSExporter.generateRecipeBody(draft, bulkId(0), SCRIPT_SETTINGS));
+            String script = read(helper, SCRIPT_SETTINGS.outputPath().resolve(bulkId(0) + ".js"));
+            if (!script.equals(expected)) {
+                helper.fail("Written script differs from the generated one:\n" + script);
+            }
+        });
+    }
+
+    @GameTest(template = TEMPLATE)
+    public static void minifiedChunksLoadAsSeparateScopes(GameTestHelper helper) {
+        ExportSettings settings = SCRIPT_SETTINGS.withScriptStyle(ExportSettings.ScriptStyle.MINIFIED);
+        List<Item> items = List.of(Items.COBBLESTONE, Items.FLINT, Items.GRAVEL, Items.SAND, Items.IRON_INGOT);
+        List<String> recipeIds = new ArrayList<>();
+        List<RecipeDraft> drafts = new ArrayList<>();
+        for (int i = 0; i < MINIFIED_RECIPES; i++) {
+            recipeIds.add("gametest_minified/recipe_" + i);
+            drafts.add(RecipeDraft.of("minecraft:crafting_shapeless",
+                List.of(ItemRef.of(itemId(items.get(i % items.size()))), ItemRef.of(itemId(items.get((i + 1) % items.size())))),
+                List.of(new ItemRef(itemId(items.get((i + 2) % items.size())), 1 + i % 4))));
+        }
+        // Chunked the way template and headless exports render minified scripts
+        StringBuilder body = new StringBuilder();
+        for (int from = 0; from < MINIFIED_RECIPES; from += MINIFIED_CHUNK) {
+            int to = Math.min(MINIFIED_RECIPES, from + MINIFIED_CHUNK);
+            body.append(KubeJSExporter.generateRecipeBodies(recipeIds.subList(from, to), drafts.subList(from, to), settings));
+        }
+        String script = KubeJSExporter.wrapScript(body.toString());
+
+        // Evaluates the script's statements the way the rendering promises they behave: constants
+        // are only visible within the function scope declaring them
+        int scopes = 0;
+        Map<String, String> constants = null;
+        List<String> loaded = new ArrayList<>();
+        for (String line : script.split("\n")) {
+            if (line.startsWith("(function(){const ")) {
+                if (constants != null) {
+                    helper.fail("Scope opened before the previous one closed");
+                }
+                constants = new HashMap<>();
+                Matcher constant = MINIFIED_CONSTANT.matcher(line);
+                while (constant.find()) {
+                    if (constants.put(constant.group(1), JsonParser.parseString(constant.group(2)).getAsString()) != null) {
+                        helper.fail("Constant " + constant.group(1) + " declared twice in one scope");
+                    }
+                }
+                scopes++;
+            } else if (line.equals("})();")) {
+                constants = null;
+            } else if (line.startsWith("event.custom(")) {
+                if (constants == null) {
+                    helper.fail("Recipe outside of a constant scope: " + line);
+                    return;
+                }
+                int id = line.lastIndexOf(").id(");
+                JsonReader reader = new JsonReader(new StringReader(line.substring("event.custom(".length(), id)));
+                reader.setLenient(true);
+                JsonElement json = substitute(JsonParser.parseReader(reader), constants);
+                String recipeId = JsonParser.parseString(line.substring(id + ").id(".length(), line.length() - ");".length())).getAsString();
+                Recipe<?> recipe = RecipeManager.fromJson(new ResourceLocation(recipeId), json.getAsJsonObject());
+                if (recipe.getType() != RecipeType.CRAFTING) {
+                    helper.fail(recipeId + " loaded as " + recipe.getType());
+                }
+                loaded.add(recipeId);
+            }
+        }
+
+        int expectedScopes = (MINIFIED_RECIPES + MINIFIED_CHUNK - 1) / MINIFIED_CHUNK;
+        if (scopes != expectedScopes) {
+            helper.fail("Expected " + expectedScopes + " constant scopes, got " + scopes);
+        }
+        if (constants != null) {
+            helper.fail("Last constant scope is never closed");
+        }
+        List<String> expectedIds = recipeIds.stream().map(recipeId -> "kubejs:" + recipeId).toList();
+        if (!loaded.equals(expectedIds)) {
+            helper.fail("Loaded " + loaded.size() + " recipes, expected " + expectedIds.size() + " in order");
+        }
+        helper.succeed();
+    }
+
+    @GameTest(template = TEMPLATE)
+    public static void datapackRecipeLoadsAsVanillaRecipe(GameTestHelper helper) {
+        RecipeEditorMenu menu = openFilledMenu(helper, 2, 1);
+        menu.getInputItems().setStackInSlot(0, new ItemStack(Items.SAND));
+        menu.getInputItems().setStackInSlot(1, new ItemStack(Items.GRAVEL));
+        menu.getOutputItems().setStackInSlot(0, new ItemStack(Items.DIRT, 4));
+        RecipeDraft draft = menu.snapshot("minecraft:crafting_shapeless");
+        String recipeId = "gametest_shapeless";
+        deleteQuietly(helper, DATAPACK_SETTINGS.datapackRecipesPath().resolve(recipeId + ".json"));
+
+        ExportWriter writer = openWriter(helper, DATAPACK_SETTINGS, "datapack");
+        TimedExport export = TimedExport.start(EXPORT, writer, () -> exportOne(draft, recipeId, writer));
+        helper.succeedWhen(() -> {
+            WriteResult result = export.await(helper);
+            String json = read(helper, result.path());
+            if (!json.equals(KubeJSExporter.generateRecipeJson(draft, DATAPACK_SETTINGS))) {
+                helper.fail("Written recipe differs from the generated one:\n" + json);
+            }
+
+            Recipe<?> recipe = RecipeManager.fromJson(new ResourceLocation("kubejs", recipeId), GsonHelper.parse(json));
+            if (recipe.getType() != RecipeType.CRAFTING) {
+                helper.fail("Expected a crafting recipe, got " + recipe.getType());
+            }
+            if (recipe.getIngredients().size() != 2) {
+                helper.fail("Expected 2 ingredients, got " + recipe.getIngredients().size());
+            }
+            ItemStack output = recipe.getResultItem(helper.getLevel().registryAccess());
+            if (!output.is(Items.DIRT) || output.getCount() != 4) {
+                helper.fail("Unexpected result " + output);
+            }
+        });
+    }
+
+    @GameTest(template = TEMPLATE, batch = "lookup")
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static void exportedRecipesAreFoundByLookup(GameTestHelper helper) {
+        RecipeManager manager = helper.getLevel().getRecipeManager();
+        List<Recipe<?>> original = new ArrayList<>(manager.getRecipes());
+
+        List<Recipe<?>> added;
+        try {
+            added = RecipeLookupProfiler.exportedRecipes(helper.getLevel(), SCRIPT_SETTINGS, PROFILED_RECIPES);
+        } catch (IOException e) {
+            helper.fail("Could not read exported recipes: " + e.getMessage());
+            return;
+        }
+        RecipeLookupProfiler.Report report = RecipeLookupProfiler.profile(helper.getLevel(), added);
+        if (manager.getRecipes().size() != original.size()) {
+            helper.fail("Profiling left " + manager.getRecipes().size() + " recipes loaded, expected " + original.size());
+        }
+        RecipeLookupProfiler.TypeCost crafting = report.cost(RecipeType.CRAFTING);
+        if (crafting == null) {
+            helper.fail("No crafting lookups were profiled");
+            return;
+        }
+        CRAFTING_LOOKUP.record((long) crafting.afterNanos());
+
+        // With the exported recipes loaded, their own inputs must find them, unless another
+        // recipe accepts the same inputs and the game may fairly pick either
+        Set<ResourceLocation> loadedIds = new HashSet<>();
+        original.forEach(recipe -> loadedIds.add(recipe.getId()));
+        List<Recipe<?>> withAdded = new ArrayList<>(original);
+        added.stream().filter(recipe -> !loadedIds.contains(recipe.getId())).forEach(withAdded::add);
+        List<Recipe<?>> addedCrafting = added.stream().filter(recipe -> recipe.getType() == RecipeType.CRAFTING).toList();
+        int checked = 0;
+        try {
+            manager.replaceRecipes(withAdded);
+            for (int i = 0; i < addedCrafting.size() && checked < CHECKED_LOOKUPS; i += Math.max(1, addedCrafting.size() / CHECKED_LOOKUPS)) {
+                Recipe<?> expected = addedCrafting.get(i);
+                Container probe = RecipeLookupProfiler.probeFor(expected);
+                long matching = withAdded.stream()
+                    .filter(recipe -> recipe.getType() == RecipeType.CRAFTING && ((Recipe) recipe).matches(probe, helper.getLevel()))
+                    .count();
+                if (matching != 1) continue;
+                Optional<Recipe<?>> found = manager.getRecipeFor((RecipeType) RecipeType.CRAFTING, probe, helper.getLevel());
+                if (found.isEmpty() || !found.get().getId().equals(expected.getId())) {
+                    helper.fail("Lookup for the inputs of " + expected.getId() + " found "
+                        + found.map(recipe -> recipe.getId().toString()).orElse("nothing"));
+                }
+                checked++;
+            }
+        } finally {
+            manager.replaceRecipes(original);
+        }
+        if (checked == 0) {
+            helper.fail("None of the exported crafting recipes had inputs of their own to look up");
+        }
+        helper.succeed();
+    }
+
+    private static RecipeEditorMenu openFilledMenu(GameTestHelper helper, int inputs, int outputs) {
+        ServerPlayer player = helper.makeMockServerPlayerInLevel();
+        OpenRecipeEditorPacket.openEditor(player);
+        if (!(player.containerMenu instanceof RecipeEditorMenu menu)) {
+            throw new IllegalStateException("Recipe editor menu did not open");
+        }
+        menu.setActiveSlots(inputs, outputs);
+        return menu;
+    }
+
+    /**
+     * A writer of the test's own, with a fresh manifest so files left by earlier runs are rewritten.
+     */
+    private static ExportWriter openWriter(GameTestHelper helper, ExportSettings settings, String name) {
+        Path manifest = GAMETEST_STATE.resolve(name + "_manifest.txt");
+        deleteQuietly(helper, manifest);
+        return ExportWriter.create(settings, manifest);
+    }
+
+    private static CompletableFuture<WriteResult> exportOne(RecipeDraft draft, String recipeId, ExportWriter writer) {
+        return KubeJSExporter.export(draft, recipeId, ExportAction.ADD, null, writer);
+    }
+
+    private static CompletableFuture<WriteResult> exportAll(RecipeDraft draft, ExportWriter writer) {
+        List<CompletableFuture<WriteResult>> exports = new ArrayList<>(BULK_RECIPES);
+        for (int i = 0; i < BULK_RECIPES; i++) {
+            exports.add(exportOne(draft, bulkId(i), writer));
+        }
+        return CompletableFuture.allOf(exports.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            int written = 0;
+            int unchanged = 0;
+            for (CompletableFuture<WriteResult> export : exports) {
+                written += export.join().written();
+                unchanged += export.join().unchanged();
+            }
+            return new WriteResult(SCRIPT_SETTINGS.outputPath(), written, unchanged);
+        });
+    }
+
+    private static String itemId(Item item) {
+        return BuiltInRegistries.ITEM.getKey(item).toString();
+    }
+
+    /**
+     * Replaces string values naming a hoisted constant by the constant's value.
+     */
+    private static JsonElement substitute(JsonElement value, Map<String, String> constants) {
+        if (value.isJsonObject()) {
+            JsonObject object = new JsonObject();
+            value.getAsJsonObject().entrySet().forEach(entry -> object.add(entry.getKey(), substitute(entry.getValue(), constants)));
+            return object;
+        }
+        if (value.isJsonArray()) {
+            JsonArray array = new JsonArray();
+            value.getAsJsonArray().forEach(element -> array.add(substitute(element, constants)));
+            return array;
+        }
+        if (value.isJsonPrimitive() && value.getAsJsonPrimitive().isString()) {
+            String constant = constants.get(value.getAsString());
+            return constant != null ? new JsonPrimitive(constant) : value;
+        }
+        return value;
+    }
+
+    private static String bulkId(int index) {
+        return "gametest_bulk/recipe_" + index;
+    }
+
+    private static String read(GameTestHelper helper, Path file) {
+        try {
+            return Files.readString(file);
+        } catch (IOException e) {
+            helper.fail("Could not read " + file + ": " + e.getMessage());
+            return "";
+        }
+    }
+
+    private static void deleteQuietly(GameTestHelper helper, Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            helper.fail("Could not delete " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Export future that records its own completion time, so latency isn't rounded up to
+     * the next game tick at which the test happens to poll it.
+     */
+    private static final class TimedExport {
+        CompletableFuture<WriteResult> future;
+
+        /**
+         * @param writer closed once the export completes, or null to leave it open
+         */
+        static TimedExport start(EditorMetrics.Timer timer, ExportWriter writer, Supplier<CompletableFuture<WriteResult>> export) {
+            TimedExport timed = new TimedExport();
+            long start = timer.start();
+            // Completes only after the elapsed time has been recorded
+            timed.future = export.get().whenComplete((result, error) -> {
+                timer.stop(start);
+                if (writer != null) {
+                    writer.close();
+                }
+            });
+            return timed;
+        }
+
+        WriteResult await(GameTestHelper helper) {
+            if (!future.isDone()) {
+                helper.fail("Export still running");
+            }
+            if (future.isCompletedExceptionally()) {
+                helper.fail("Export failed: " + future.handle((result, error) -> error).join());
+            }
+            return future.join();
+        }
+    }
+}
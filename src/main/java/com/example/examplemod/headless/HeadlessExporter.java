@@ -0,0 +1,226 @@
+package com.example.examplemod.headless;
+
+import com.example.examplemod.export.ExportSettings;
+import com.example.examplemod.export.ExportWriter;
+import com.example.examplemod.export.RecipeDraft;
+import com.example.examplemod.export.WriteResult;
+import com.example.examplemod.recipe.RegistrySnapshot;
+import com.example.examplemod.util.KubeJSExporter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Command line entry point that regenerates recipes from a descriptor file without starting the
+ * game, e.g. as a build step for a modpack. See {@link RecipeDescriptorReader} for the formats.
+ * <p>
+ * Generation and writing run on the export writer threads while the descriptor is still being
+ * read. Run with {@code ./gradlew exportRecipes -PexportArgs="--input recipes.csv"}. Given a
+ * {@link RegistrySnapshot} of the target pack, every recipe is checked against it first.
+ */
+public final class HeadlessExporter {
+
+    private static final String USAGE = """
+        Usage: HeadlessExporter --input <recipes.csv|recipes.json> [options]
+          --output <dir>        script directory (default kubejs/server_scripts)
+          --format <kubejs|datapack>
+          --datapack <dir>      datapack root for --format datapack (default kubejs)
+          --single-file <name>  stream all recipes into one script instead of one file per recipe
+          --style <pretty|minified>
+          --threads <n>         writer threads (default: available processors)
+          --snapshot <file>     reject recipe types and items missing from a /recipeeditor snapshot""";
+
+    // Pending writes are awaited in windows so huge descriptors don't queue unbounded work
+    private static final int MAX_IN_FLIGHT = 4096;
+    // Recipes rendered together into a single file; minified output shares constants within a group
+    private static final int SINGLE_FILE_GROUP = 256;
+
+    private HeadlessExporter() {
+    }
+
+    public static void main(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        RegistrySnapshot snapshot = null;
+        if (options.snapshot() != null) {
+            try {
+                snapshot = RegistrySnapshot.read(options.snapshot());
+            } catch (IOException e) {
+                System.err.println("Could not read snapshot: " + e.getMessage());
+                System.exit(2);
+                return;
+            }
+        }
+
+        long start = System.nanoTime();
+        ExportWriter writer = ExportWriter.forSettings(options.settings());
+        int exitCode;
+        try {
+            Summary summary = options.singleFile() != null
+                ? exportSingleFile(writer, options, snapshot)
+                : exportPerRecipe(writer, options, snapshot);
+            System.out.printf("Generated %d recipes in %d ms: %d files written, %d unchanged, %d failed%n",
+                summary.recipes, (System.nanoTime() - start) / 1_000_000, summary.written, summary.unchanged, summary.failed);
+            exitCode = summary.failed > 0 ? 1 : 0;
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            exitCode = 2;
+        } catch (IOException | CompletionException e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            System.err.println("Export failed: " + cause.getMessage());
+            exitCode = cause instanceof IllegalArgumentException ? 2 : 1;
+        }
+        // Saves the content manifest; must happen before exit since the writer threads are daemons
+        writer.close();
+        System.exit(exitCode);
+    }
+
+    private static Summary exportPerRecipe(ExportWriter writer, Options options, RegistrySnapshot snapshot) throws IOException {
+        ExportSettings settings = options.settings();
+        boolean datapack = settings.outputFormat() == ExportSettings.OutputFormat.DATAPACK_JSON;
+        Summary summary = new Summary();
+        List<CompletableFuture<WriteResult>> pending = new ArrayList<>();
+
+        summary.recipes = RecipeDescriptorReader.read(options.input(), entry -> {
+            validate(snapshot, entry);
+            pending.add(writer.submitTask(() -> datapack
+                ? writer.writeDatapackRecipe(entry.id(), KubeJSExporter.generateRecipeJson(entry.draft(), settings))
+                : writer.writeScript(entry.id(),
+                    KubeJSExporter.wrapScript(KubeJSExporter.generateRecipeBody(entry.draft(), entry.id(), settings)))));
+            if (pending.size() >= MAX_IN_FLIGHT) {
+                summary.await(pending);
+            }
+        });
+        summary.await(pending);
+        return summary;
+    }
+
+    private static Summary exportSingleFile(ExportWriter writer, Options options, RegistrySnapshot snapshot) {
+        ExportSettings settings = options.settings();
+        Summary summary = new Summary();
+        WriteResult result = writer.submitStream(options.singleFile(), out -> {
+            List<String> ids = new ArrayList<>(SINGLE_FILE_GROUP);
+            List<RecipeDraft> drafts = new ArrayList<>(SINGLE_FILE_GROUP);
+            summary.recipes = RecipeDescriptorReader.read(options.input(), entry -> {
+                validate(snapshot, entry);
+                ids.add(entry.id());
+                drafts.add(entry.draft());
+                if (drafts.size() >= SINGLE_FILE_GROUP) {
+                    out.write(KubeJSExporter.generateRecipeBodies(ids, drafts, settings));
+                    ids.clear();
+                    drafts.clear();
+                }
+            });
+            if (!drafts.isEmpty()) {
+                out.write(KubeJSExporter.generateRecipeBodies(ids, drafts, settings));
+            }
+        }).join();
+        summary.written = result.written();
+        summary.unchanged = result.unchanged();
+        return summary;
+    }
+
+    private static void validate(RegistrySnapshot snapshot, RecipeDescriptorReader.Entry entry) {
+        if (snapshot != null) {
+            snapshot.validate(entry.draft());
+        }
+    }
+
+    private static final class Summary {
+        int recipes;
+        int written;
+        int unchanged;
+        int failed;
+
+        void await(List<CompletableFuture<WriteResult>> pending) {
+            for (CompletableFuture<WriteResult> future : pending) {
+                try {
+                    WriteResult result = future.join();
+                    written += result.written();
+                    unchanged += result.unchanged();
+                } catch (CompletionException e) {
+                    failed++;
+                    System.err.println(e.getCause().getMessage());
+                }
+            }
+            pending.clear();
+        }
+    }
+
+    private record Options(Path input, ExportSettings settings, String singleFile, Path snapshot) {
+
+        static Options parse(String[] args) {
+            Path input = null;
+            String output = ExportSettings.DEFAULTS.outputDirectory();
+            String datapack = ExportSettings.DEFAULTS.datapackDirectory();
+            ExportSettings.OutputFormat format = ExportSettings.OutputFormat.KUBEJS_SCRIPT;
+            ExportSettings.ScriptStyle style = ExportSettings.ScriptStyle.PRETTY;
+            String singleFile = null;
+            Path snapshot = null;
+            int threads = Runtime.getRuntime().availableProcessors();
+
+            for (int i = 0; i < args.length; i++) {
+                String flag = args[i];
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + flag);
+                }
+                String value = args[++i];
+                switch (flag) {
+                    case "--input" -> input = Path.of(value);
+                    case "--output" -> output = value;
+                    case "--datapack" -> datapack = value;
+                    case "--single-file" -> singleFile = value;
+                    case "--snapshot" -> snapshot = Path.of(value);
+                    case "--format" -> format = switch (value) {
+                        case "kubejs" -> ExportSettings.OutputFormat.KUBEJS_SCRIPT;
+                        case "datapack" -> ExportSettings.OutputFormat.DATAPACK_JSON;
+                        default -> throw new IllegalArgumentException("Unknown format " + value);
+                    };
+                    case "--style" -> style = switch (value) {
+                        case "pretty" -> ExportSettings.ScriptStyle.PRETTY;
+                        case "minified" -> ExportSettings.ScriptStyle.MINIFIED;
+                        default -> throw new IllegalArgumentException("Unknown style " + value);
+                    };
+                    case "--threads" -> {
+                        try {
+                            threads = Math.max(1, Integer.parseInt(value));
+                        } catch (NumberFormatException e) {
+                            throw new IllegalArgumentException("Invalid thread count " + value);
+                        }
+                    }
+                    default -> throw new IllegalArgumentException("Unknown option " + flag);
+                }
+            }
+
+            if (input == null) {
+                throw new IllegalArgumentException("--input is required");
+            }
+            if (!Files.isRegularFile(input)) {
+                throw new IllegalArgumentException("Descriptor " + input.toAbsolutePath() + " does not exist");
+            }
+            if (singleFile != null && format == ExportSettings.OutputFormat.DATAPACK_JSON) {
+                throw new IllegalArgumentException("--single-file only applies to KubeJS scripts");
+            }
+
+            ExportSettings settings = ExportSettings.DEFAULTS
+                .withDirectories(output, datapack)
+                .withOutputFormat(format)
+                .withScriptStyle(style)
+                .withAsyncThreads(threads);
+            return new Options(input, settings, singleFile, snapshot);
+        }
+    }
+}
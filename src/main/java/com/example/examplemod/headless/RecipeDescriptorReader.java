@@ -0,0 +1,155 @@
+package com.example.examplemod.headless;
+
+import com.example.examplemod.export.ItemRef;
+import com.example.examplemod.export.RecipeDraft;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Streams recipe descriptions from a CSV or JSON file, one recipe at a time, so descriptors with
+ * many thousands of recipes never have to be held in memory.
+ * <p>
+ * CSV lines are {@code type,id,inputs,outputs} with the items of a column separated by {@code |};
+ * an empty entry or {@code -} is an empty slot, e.g.
+ * {@code minecraft:crafting_shaped,iron_gear,-|minecraft:iron_ingot|-|minecraft:iron_ingot||minecraft:iron_ingot,2x minecraft:iron_nugget}.
+ * Blank lines, {@code #} comments and a leading {@code type,id,...} header are ignored.
+ * <p>
+ * JSON is an array of {@code {"type", "id", "inputs", "outputs"}} objects whose items are either
+ * strings in the same {@code 2x namespace:path} shorthand, {@code {"item", "count"}} objects or
+ * {@code null} for an empty slot.
+ */
+public final class RecipeDescriptorReader {
+
+    private static final Pattern FIELD_SEPARATOR = Pattern.compile(",");
+    private static final Pattern ITEM_SEPARATOR = Pattern.compile("\\|");
+
+    /**
+     * One described recipe.
+     */
+    public record Entry(String id, RecipeDraft draft) {
+    }
+
+    /**
+     * Receives each recipe as soon as it has been read.
+     */
+    @FunctionalInterface
+    public interface Sink {
+        void accept(Entry entry) throws IOException;
+    }
+
+    private RecipeDescriptorReader() {
+    }
+
+    /**
+     * Reads every recipe of {@code file}, picking the format from the file extension.
+     *
+     * @return the number of recipes read
+     * @throws IllegalArgumentException if the file is malformed; the message names the offending line or entry
+     */
+    public static int read(Path file, Sink sink) throws IOException {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".json")) {
+            return readJson(file, sink);
+        }
+        if (name.endsWith(".csv")) {
+            return readCsv(file, sink);
+        }
+        throw new IllegalArgumentException("Unsupported descriptor " + file + ", expected a .csv or .json file");
+    }
+
+    private static int readCsv(Path file, Sink sink) throws IOException {
+        int count = 0;
+        int lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+                if (lineNumber == 1 && trimmed.startsWith("type,")) continue;
+
+                String[] fields = FIELD_SEPARATOR.split(trimmed, -1);
+                if (fields.length < 4) {
+                    throw new IllegalArgumentException(file + ":" + lineNumber + ": expected type,id,inputs,outputs");
+                }
+                try {
+                    sink.accept(new Entry(fields[1].trim(), RecipeDraft.of(fields[0].trim(), items(fields[2]), items(fields[3]))));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(file + ":" + lineNumber + ": " + e.getMessage(), e);
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static List<ItemRef> items(String column) {
+        if (column.isBlank()) return List.of();
+
+        String[] entries = ITEM_SEPARATOR.split(column, -1);
+        List<ItemRef> items = new ArrayList<>(entries.length);
+        for (String entry : entries) {
+            items.add(ItemRef.parse(entry));
+        }
+        return items;
+    }
+
+    private static int readJson(Path file, Sink sink) throws IOException {
+        int count = 0;
+        try (JsonReader reader = new JsonReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                JsonObject recipe;
+                try {
+                    recipe = JsonParser.parseReader(reader).getAsJsonObject();
+                    sink.accept(new Entry(recipe.get("id").getAsString(), RecipeDraft.of(
+                        recipe.get("type").getAsString(),
+                        items(recipe.get("inputs")),
+                        items(recipe.get("outputs")))));
+                } catch (JsonParseException | IllegalStateException | NullPointerException e) {
+                    throw new IllegalArgumentException(file + ": recipe #" + (count + 1) + " is malformed: " + e.getMessage(), e);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(file + ": recipe #" + (count + 1) + ": " + e.getMessage(), e);
+                }
+                count++;
+            }
+            reader.endArray();
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new IllegalArgumentException(file + ": unexpected content after the recipe array");
+            }
+        }
+        return count;
+    }
+
+    private static List<ItemRef> items(JsonElement array) {
+        if (array == null || array.isJsonNull()) return List.of();
+
+        List<ItemRef> items = new ArrayList<>();
+        for (JsonElement element : array.getAsJsonArray()) {
+            if (element.isJsonNull()) {
+                items.add(ItemRef.EMPTY);
+            } else if (element.isJsonObject()) {
+                JsonObject item = element.getAsJsonObject();
+                ItemRef parsed = ItemRef.parse(item.get("item").getAsString());
+                items.add(item.has("count") ? new ItemRef(parsed.id(), item.get("count").getAsInt()) : parsed);
+            } else {
+                items.add(ItemRef.parse(element.getAsString()));
+            }
+        }
+        return items;
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.examplemod.menu;
 
+import com.example.examplemod.export.ItemRef;
+import com.example.examplemod.export.RecipeDraft;
 import com.example.examplemod.registry.ModMenuTypes;
+import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.entity.player.Inventory;
 import net.minecraft.world.inventory.AbstractContainerMenu;
@@ -9,6 +12,9 @@ import net.minecraft.world.item.ItemStack;
 import net.minecraftforge.items.ItemStackHandler;
 import net.minecraftforge.items.SlotItemHandler;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Container menu for the recipe editor GUI.
  * Handles flexible input/output slots that adjust based on recipe type.
@@ -19,12 +25,15 @@ public class RecipeEditorMenu extends AbstractContainerMenu {
     private static final int MAX_INPUT_SLOTS = 9;
     private static final int MAX_OUTPUT_SLOTS = 9;
 
-    private final ItemStackHandler inputItems = new ItemStackHandler(MAX_INPUT_SLOTS);
-    private final ItemStackHandler outputItems = new ItemStackHandler(MAX_OUTPUT_SLOTS);
+    private final ItemStackHandler inputItems = new EditorItemHandler(MAX_INPUT_SLOTS, false);
+    private final ItemStackHandler outputItems = new EditorItemHandler(MAX_OUTPUT_SLOTS, true);
 
     private int activeInputSlots = 1;  // How many input slots are currently visible
     private int activeOutputSlots = 1; // How many output slots are currently visible
 
+    private SlotChangeListener slotChangeListener;
+    private boolean applyingRemote;
+
     public RecipeEditorMenu(int id, Inventory playerInventory) {
         super(ModMenuTypes.RECIPE_EDITOR.get(), id);
 
@@ -81,6 +90,45 @@ public class RecipeEditorMenu extends AbstractContainerMenu {
         return outputItems;
     }
 
+    public static int getMaxInputSlots() {
+        return MAX_INPUT_SLOTS;
+    }
+
+    public static int getMaxOutputSlots() {
+        return MAX_OUTPUT_SLOTS;
+    }
+
+    /**
+     * Registers a listener notified whenever an input or output slot's contents change,
+     * whether from a click, a server sync, a direct {@code setStackInSlot} or another player
+     * in a shared session (see {@link #applyRemoteSlot}).
+     */
+    public void setSlotChangeListener(SlotChangeListener listener) {
+        this.slotChangeListener = listener;
+    }
+
+    /**
+     * Applies a slot edit made by another player in a shared editing session. The listener is
+     * told the change is remote, and on the server the slot is marked as already known to the
+     * client so the regular container sync doesn't resend it on top of the session delta.
+     */
+    public void applyRemoteSlot(boolean output, int slot, ItemStack stack) {
+        applyingRemote = true;
+        try {
+            (output ? outputItems : inputItems).setStackInSlot(slot, stack.copy());
+        } finally {
+            applyingRemote = false;
+        }
+        setRemoteSlot(menuSlotIndex(output, slot), stack.copy());
+    }
+
+    /**
+     * Index in {@link #slots} of an input or output slot.
+     */
+    public static int menuSlotIndex(boolean output, int slot) {
+        return output ? MAX_INPUT_SLOTS + slot : slot;
+    }
+
     public void setActiveSlots(int inputs, int outputs) {
         this.activeInputSlots = Math.min(inputs, MAX_INPUT_SLOTS);
         this.activeOutputSlots = Math.min(outputs, MAX_OUTPUT_SLOTS);
@@ -94,6 +142,26 @@ public class RecipeEditorMenu extends AbstractContainerMenu {
         return activeOutputSlots;
     }
 
+    /**
+     * Snapshots the active slots into an immutable draft, e.g. for exporting off the render thread.
+     */
+    public RecipeDraft snapshot(String recipeType) {
+        return RecipeDraft.of(recipeType, refs(inputItems, activeInputSlots), refs(outputItems, activeOutputSlots));
+    }
+
+    private static List<ItemRef> refs(ItemStackHandler handler, int activeSlots) {
+        List<ItemRef> refs = new ArrayList<>(activeSlots);
+        for (int slot = 0; slot < activeSlots; slot++) {
+            refs.add(toRef(handler.getStackInSlot(slot)));
+        }
+        return refs;
+    }
+
+    public static ItemRef toRef(ItemStack stack) {
+        return stack.isEmpty() ? ItemRef.EMPTY
+            : new ItemRef(BuiltInRegistries.ITEM.getKey(stack.getItem()).toString(), stack.getCount());
+    }
+
     @Override
     public ItemStack quickMoveStack(Player player, int index) {
         ItemStack itemstack = ItemStack.EMPTY;
@@ -131,4 +199,25 @@ public class RecipeEditorMenu extends AbstractContainerMenu {
     public boolean stillValid(Player player) {
         return true;
     }
+
+    @FunctionalInterface
+    public interface SlotChangeListener {
+        void onSlotChanged(boolean output, int slot, ItemStack stack, boolean remote);
+    }
+
+    private class EditorItemHandler extends ItemStackHandler {
+        private final boolean output;
+
+        EditorItemHandler(int size, boolean output) {
+            super(size);
+            this.output = output;
+        }
+
+        @Override
+        protected void onContentsChanged(int slot) {
+            if (slotChangeListener != null) {
+                slotChangeListener.onSlotChanged(output, slot, getStackInSlot(slot), applyingRemote);
+            }
+        }
+    }
 }
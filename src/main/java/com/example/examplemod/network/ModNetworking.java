@@ -1,11 +1,28 @@
 package com.example.examplemod.network;
 
+import com.example.examplemod.Config;
 import com.example.examplemod.ExampleMod;
+import com.example.examplemod.util.EditorMetrics;
+import com.mojang.logging.LogUtils;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.chat.Component;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.network.NetworkDirection;
+import net.minecraftforge.network.NetworkEvent;
 import net.minecraftforge.network.NetworkRegistry;
+import net.minecraftforge.network.PacketDistributor;
 import net.minecraftforge.network.simple.SimpleChannel;
+import org.slf4j.Logger;
+
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 public class ModNetworking {
+    private static final Logger LOGGER = LogUtils.getLogger();
     private static final String PROTOCOL_VERSION = "1";
 
     private static final SimpleChannel CHANNEL = NetworkRegistry.ChannelBuilder
@@ -15,20 +32,102 @@ public class ModNetworking {
         .serverAcceptedVersions(PROTOCOL_VERSION::equals)
         .simpleChannel();
 
+    private static final PacketLimiter LIMITER = new PacketLimiter();
+
     private static int packetId = 0;
 
     private ModNetworking() {
     }
 
+    /**
+     * Server-side handler of an editor packet, called on the server thread once the packet has
+     * passed rate limiting and the permission check.
+     */
+    @FunctionalInterface
+    public interface EditorPacketHandler<T> {
+        void handle(T packet, ServerPlayer player);
+    }
+
     public static void register() {
-        CHANNEL.registerMessage(packetId++, OpenRecipeEditorPacket.class,
+        // Has no payload, so a second request while one is queued can only open the same editor
+        registerEditorMessage(OpenRecipeEditorPacket.class,
             OpenRecipeEditorPacket::encode,
             OpenRecipeEditorPacket::decode,
-            OpenRecipeEditorPacket::handle);
+            OpenRecipeEditorPacket::handle,
+            true);
+        // Each type change carries the latest value, so it must never be dropped as a duplicate
+        registerEditorMessage(SessionRecipeTypePacket.class,
+            SessionRecipeTypePacket::encode,
+            SessionRecipeTypePacket::decode,
+            SessionRecipeTypePacket::handle,
+            false);
+        CHANNEL.registerMessage(packetId++, SessionDeltaPacket.class,
+            SessionDeltaPacket::encode,
+            SessionDeltaPacket::decode,
+            SessionDeltaPacket::handle,
+            Optional.of(NetworkDirection.PLAY_TO_CLIENT));
+
+        MinecraftForge.EVENT_BUS.addListener(ModNetworking::onPlayerLoggedOut);
+    }
+
+    /**
+     * Registers a client-to-server editor packet. Every such packet is rate limited per player
+     * and only handled for players allowed to use the editor. With {@code coalesce}, it is dropped
+     * while a packet of the same type from the player still waits for the server thread, which
+     * is only safe for types without payload or whose every instance carries the whole state.
+     */
+    private static <T> void registerEditorMessage(Class<T> type, BiConsumer<T, FriendlyByteBuf> encoder,
+                                                  Function<FriendlyByteBuf, T> decoder, EditorPacketHandler<T> handler,
+                                                  boolean coalesce) {
+        CHANNEL.registerMessage(packetId++, type, encoder, decoder, (packet, contextSupplier) -> {
+            NetworkEvent.Context context = contextSupplier.get();
+            context.setPacketHandled(true);
+            ServerPlayer player = context.getSender();
+            if (player == null) return;
+
+            switch (LIMITER.tryAcquire(player.getUUID(), type, coalesce, Config.packetBurst, Config.packetsPerSecond)) {
+                case COALESCED -> {
+                    EditorMetrics.PACKETS_COALESCED.increment();
+                    return;
+                }
+                case RATE_LIMITED -> {
+                    EditorMetrics.PACKETS_RATE_LIMITED.increment();
+                    LOGGER.debug("Dropped {} from {}: rate limited", type.getSimpleName(), player.getName().getString());
+                    return;
+                }
+                case ACCEPT -> {
+                }
+            }
+
+            context.enqueueWork(() -> {
+                LIMITER.release(player.getUUID(), type);
+                if (!mayUseEditor(player)) {
+                    EditorMetrics.PACKETS_DENIED.increment();
+                    player.sendSystemMessage(Component.literal("§cYou don't have permission to use the recipe editor"));
+                    return;
+                }
+                long start = EditorMetrics.PACKET_HANDLING.start();
+                handler.handle(packet, player);
+                EditorMetrics.PACKET_HANDLING.stop(start);
+            });
+        }, Optional.of(NetworkDirection.PLAY_TO_SERVER));
+    }
+
+    public static boolean mayUseEditor(ServerPlayer player) {
+        return player.hasPermissions(Config.editorPermissionLevel)
+            || player.server.isSingleplayerOwner(player.getGameProfile());
+    }
+
+    private static void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+        LIMITER.forget(event.getEntity().getUUID());
     }
 
     public static void sendToServer(Object message) {
         CHANNEL.sendToServer(message);
     }
 
+    public static void sendToPlayer(ServerPlayer player, Object message) {
+        CHANNEL.send(PacketDistributor.PLAYER.with(() -> player), message);
+    }
+
 }
@@ -1,15 +1,14 @@
 package com.example.examplemod.network;
 
 import com.example.examplemod.menu.RecipeEditorMenu;
+import com.example.examplemod.session.EditingSessions;
+import com.example.examplemod.util.EditorMetrics;
 import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.network.chat.Component;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.SimpleMenuProvider;
-import net.minecraftforge.network.NetworkEvent;
 import net.minecraftforge.network.NetworkHooks;
 
-import java.util.function.Supplier;
-
 public record OpenRecipeEditorPacket() {
 
     public static void encode(OpenRecipeEditorPacket packet, FriendlyByteBuf buffer) {
@@ -20,17 +19,25 @@ public record OpenRecipeEditorPacket() {
         return new OpenRecipeEditorPacket();
     }
 
-    public static void handle(OpenRecipeEditorPacket packet, Supplier<NetworkEvent.Context> contextSupplier) {
-        NetworkEvent.Context context = contextSupplier.get();
-        context.enqueueWork(() -> {
-            ServerPlayer player = context.getSender();
-            if (player != null) {
-                NetworkHooks.openScreen(player, new SimpleMenuProvider(
-                    (windowId, inv, serverPlayer) -> new RecipeEditorMenu(windowId, inv),
-                    Component.literal("Recipe Editor")
-                ));
-            }
-        });
-        context.setPacketHandled(true);
+    public static void handle(OpenRecipeEditorPacket packet, ServerPlayer player) {
+        // Reopening would only resend the whole container to the client
+        if (player.containerMenu instanceof RecipeEditorMenu) {
+            EditorMetrics.PACKETS_COALESCED.increment();
+            return;
+        }
+        openEditor(player);
+    }
+
+    /**
+     * Opens the recipe editor menu for the player and syncs it to their client.
+     */
+    public static void openEditor(ServerPlayer player) {
+        NetworkHooks.openScreen(player, new SimpleMenuProvider(
+            (windowId, inv, serverPlayer) -> new RecipeEditorMenu(windowId, inv),
+            Component.literal("Recipe Editor")
+        ));
+        if (player.containerMenu instanceof RecipeEditorMenu menu) {
+            EditingSessions.onEditorOpened(player, menu);
+        }
     }
 }
@@ -0,0 +1,81 @@
+package com.example.examplemod.network;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-player token bucket plus coalescing for serverbound editor packets.
+ * <p>
+ * A coalescing packet is dropped, without spending a token, while another packet of the same
+ * class from the same player is still queued for the server thread. Packets are matched by class
+ * alone, never by content, so only packet types whose every instance asks for the same thing,
+ * such as a payload-free request, may coalesce; packets carrying state pass {@code coalesce = false}.
+ * Every packet not coalesced spends one token from the player's bucket, which refills
+ * continuously up to the burst size.
+ * <p>
+ * Called from the network threads, so all state is concurrent.
+ */
+public class PacketLimiter {
+
+    public enum Decision {
+        ACCEPT,
+        COALESCED,
+        RATE_LIMITED
+    }
+
+    private record PendingKey(UUID player, Class<?> type) {
+    }
+
+    private final Map<UUID, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Set<PendingKey> pending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Decides whether a packet should be handled. Packets carrying state that must not be lost
+     * pass {@code coalesce = false} and are only rate limited. An accepted coalescing packet must
+     * be {@link #release released} once handled, or further packets of its type are coalesced.
+     */
+    public Decision tryAcquire(UUID player, Class<?> type, boolean coalesce, int burst, double perSecond) {
+        PendingKey key = new PendingKey(player, type);
+        if (coalesce && !pending.add(key)) {
+            return Decision.COALESCED;
+        }
+        Bucket bucket = buckets.computeIfAbsent(player, id -> new Bucket(burst));
+        if (!bucket.tryTake(burst, perSecond, System.nanoTime())) {
+            pending.remove(key);
+            return Decision.RATE_LIMITED;
+        }
+        return Decision.ACCEPT;
+    }
+
+    public void release(UUID player, Class<?> type) {
+        pending.remove(new PendingKey(player, type));
+    }
+
+    /**
+     * Drops all state of a player, e.g. when they log out.
+     */
+    public void forget(UUID player) {
+        buckets.remove(player);
+        pending.removeIf(key -> key.player().equals(player));
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long lastRefillNanos;
+
+        Bucket(int burst) {
+            this.tokens = burst;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        synchronized boolean tryTake(int burst, double perSecond, long now) {
+            tokens = Math.min(burst, tokens + (now - lastRefillNanos) / 1e9 * perSecond);
+            lastRefillNanos = now;
+            if (tokens < 1) return false;
+            tokens--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.examplemod.network;
+
+import com.example.examplemod.client.ClientSessionState;
+import com.example.examplemod.menu.RecipeEditorMenu;
+import io.netty.handler.codec.DecoderException;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.world.item.ItemStack;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.fml.DistExecutor;
+import net.minecraftforge.network.NetworkEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Server to client: slot edits (and possibly a recipe type change) made by other members of the
+ * player's editing session since the last broadcast. A snapshot carries every slot and replaces
+ * the client's state; an empty session name tells the client it left its session.
+ *
+ * @param recipeType new recipe type, or empty if unchanged
+ */
+public record SessionDeltaPacket(String session, long revision, boolean snapshot, String recipeType, List<SlotDelta> slots) {
+
+    private static final int MAX_SLOTS = RecipeEditorMenu.getMaxInputSlots() + RecipeEditorMenu.getMaxOutputSlots();
+
+    public record SlotDelta(boolean output, int slot, ItemStack stack) {
+    }
+
+    public static SessionDeltaPacket left() {
+        return new SessionDeltaPacket("", 0, true, "", List.of());
+    }
+
+    public static void encode(SessionDeltaPacket packet, FriendlyByteBuf buffer) {
+        buffer.writeUtf(packet.session);
+        buffer.writeVarLong(packet.revision);
+        buffer.writeBoolean(packet.snapshot);
+        buffer.writeUtf(packet.recipeType);
+        buffer.writeVarInt(packet.slots.size());
+        for (SlotDelta delta : packet.slots) {
+            buffer.writeBoolean(delta.output());
+            buffer.writeByte(delta.slot());
+            buffer.writeItem(delta.stack());
+        }
+    }
+
+    public static SessionDeltaPacket decode(FriendlyByteBuf buffer) {
+        String session = buffer.readUtf();
+        long revision = buffer.readVarLong();
+        boolean snapshot = buffer.readBoolean();
+        String recipeType = buffer.readUtf();
+        int count = buffer.readVarInt();
+        if (count > MAX_SLOTS) {
+            throw new DecoderException("Too many slot deltas: " + count);
+        }
+        List<SlotDelta> slots = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            slots.add(new SlotDelta(buffer.readBoolean(), buffer.readByte(), buffer.readItem()));
+        }
+        return new SessionDeltaPacket(session, revision, snapshot, recipeType, slots);
+    }
+
+    public static void handle(SessionDeltaPacket packet, Supplier<NetworkEvent.Context> contextSupplier) {
+        NetworkEvent.Context context = contextSupplier.get();
+        context.enqueueWork(() -> DistExecutor.unsafeRunWhenOn(Dist.CLIENT, () -> () -> ClientSessionState.apply(packet)));
+        context.setPacketHandled(true);
+    }
+}
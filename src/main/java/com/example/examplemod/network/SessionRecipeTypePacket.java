@@ -0,0 +1,28 @@
+package com.example.examplemod.network;
+
+import com.example.examplemod.session.EditingSessions;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerPlayer;
+
+/**
+ * Client to server: the player picked another recipe type while in an editing session.
+ */
+public record SessionRecipeTypePacket(String recipeType) {
+
+    private static final int MAX_LENGTH = 256;
+
+    public static void encode(SessionRecipeTypePacket packet, FriendlyByteBuf buffer) {
+        buffer.writeUtf(packet.recipeType, MAX_LENGTH);
+    }
+
+    public static SessionRecipeTypePacket decode(FriendlyByteBuf buffer) {
+        return new SessionRecipeTypePacket(buffer.readUtf(MAX_LENGTH));
+    }
+
+    public static void handle(SessionRecipeTypePacket packet, ServerPlayer player) {
+        if (ResourceLocation.tryParse(packet.recipeType) != null) {
+            EditingSessions.onRecipeTypeChanged(player, packet.recipeType);
+        }
+    }
+}
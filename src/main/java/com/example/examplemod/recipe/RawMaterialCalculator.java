@@ -0,0 +1,211 @@
+package com.example.examplemod.recipe;
+
+import com.example.examplemod.util.EditorMetrics;
+import it.unimi.dsi.fastutil.ints.Int2DoubleMap;
+import it.unimi.dsi.fastutil.ints.Int2DoubleOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.Item;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Resolves items down the recipe tree to the raw materials they are ultimately made from.
+ * <p>
+ * Each item is costed by its cheapest producing recipe, judged by the total number of raw items,
+ * with the cost of every ingredient resolved the same way. Items nothing makes are raw. A recipe
+ * leading back to an item still being resolved (ingots from blocks made of ingots) is skipped,
+ * and an item whose every recipe needs the item itself counts as raw.
+ * <p>
+ * Costs are memoised per {@link RecipeUsageIndex} snapshot, so they are shared between queries
+ * and dropped with the snapshot when recipes reload. A cost worked out while a cycle was cut
+ * further up the tree depends on where the query started, so it is only reused within that query,
+ * which keeps every query linear in the number of items it reaches.
+ */
+public final class RawMaterialCalculator {
+
+    // Deeper trees are treated as raw at the limit rather than risking the stack
+    private static final int MAX_DEPTH = 64;
+
+    private static RawMaterialCalculator cached;
+
+    private final RecipeUsageIndex index;
+    private final Int2ObjectOpenHashMap<Cost> memo = new Int2ObjectOpenHashMap<>();
+    private final Int2ObjectOpenHashMap<Cost> queryMemo = new Int2ObjectOpenHashMap<>();
+    // Items being resolved, mapped to their depth in the current query
+    private final Int2IntOpenHashMap resolving = new Int2IntOpenHashMap();
+
+    private RawMaterialCalculator(RecipeUsageIndex index) {
+        this.index = index;
+        resolving.defaultReturnValue(-1);
+    }
+
+    /**
+     * Raw materials per item, by raw item id.
+     */
+    public record Cost(Int2DoubleMap amounts) {
+
+        static Cost raw(int itemId) {
+            Int2DoubleOpenHashMap amounts = new Int2DoubleOpenHashMap(1);
+            amounts.put(itemId, 1);
+            return new Cost(amounts);
+        }
+
+        public double total() {
+            double total = 0;
+            for (double amount : amounts.values()) {
+                total += amount;
+            }
+            return total;
+        }
+
+        /**
+         * Entries by decreasing amount.
+         */
+        public List<Int2DoubleMap.Entry> sorted() {
+            List<Int2DoubleMap.Entry> entries = new ArrayList<>(amounts.int2DoubleEntrySet());
+            entries.sort(Comparator.comparingDouble(Int2DoubleMap.Entry::getDoubleValue).reversed());
+            return entries;
+        }
+
+        public boolean isRaw(int itemId) {
+            return amounts.size() == 1 && amounts.containsKey(itemId);
+        }
+    }
+
+    /**
+     * Gets the calculator for the current recipe index, starting a fresh one if recipes reloaded.
+     */
+    public static synchronized RawMaterialCalculator get() {
+        RecipeUsageIndex index = RecipeUsageIndex.get();
+        if (cached == null || cached.index != index) {
+            cached = new RawMaterialCalculator(index);
+        }
+        return cached;
+    }
+
+    /**
+     * A calculator of its own for an index that isn't the current one, e.g. one built from a
+     * {@link RegistrySnapshot}.
+     */
+    public static RawMaterialCalculator forIndex(RecipeUsageIndex index) {
+        return new RawMaterialCalculator(index);
+    }
+
+    public boolean isEmpty() {
+        return index.isEmpty();
+    }
+
+    /**
+     * Raw materials for {@code count} of the item.
+     */
+    public Cost costOf(Item item, int count) {
+        return costOf(BuiltInRegistries.ITEM.getKey(item), count);
+    }
+
+    /**
+     * Raw materials for {@code count} of the item with the given ID, looked up in the index's own
+     * registry, so this also works for indexes built from a {@link RegistrySnapshot}. Nothing if
+     * the index doesn't know the item.
+     */
+    public synchronized Cost costOf(ResourceLocation item, int count) {
+        int itemId = index.itemIdOf(item);
+        if (itemId < 0) {
+            return new Cost(new Int2DoubleOpenHashMap());
+        }
+        long start = EditorMetrics.RAW_COST_QUERY.start();
+        Int2DoubleOpenHashMap total = new Int2DoubleOpenHashMap();
+        addScaled(total, resolve(itemId, 0).cost(), count);
+        queryMemo.clear();
+        EditorMetrics.RAW_COST_QUERY.stop(start);
+        return new Cost(total);
+    }
+
+    /**
+     * Raw materials for a set of items, e.g. all inputs of a recipe, as raw item ids and counts.
+     */
+    public synchronized Cost costOf(Int2DoubleMap items) {
+        long start = EditorMetrics.RAW_COST_QUERY.start();
+        Int2DoubleOpenHashMap total = new Int2DoubleOpenHashMap();
+        for (Int2DoubleMap.Entry item : items.int2DoubleEntrySet()) {
+            addScaled(total, resolve(item.getIntKey(), 0).cost(), item.getDoubleValue());
+        }
+        queryMemo.clear();
+        EditorMetrics.RAW_COST_QUERY.stop(start);
+        return new Cost(total);
+    }
+
+    /**
+     * @param lowestDepth shallowest item on the resolution stack this result relied on being
+     *                    cut off at, {@link Integer#MAX_VALUE} if it didn't run into a cycle, or
+     *                    -1 if it used a result only valid within the query
+     */
+    private record Resolved(Cost cost, int lowestDepth) {
+    }
+
+    private Resolved resolve(int itemId, int depth) {
+        Cost known = memo.get(itemId);
+        if (known != null) return new Resolved(known, Integer.MAX_VALUE);
+        Cost approximate = queryMemo.get(itemId);
+        if (approximate != null) return new Resolved(approximate, -1);
+
+        int onStack = resolving.get(itemId);
+        if (onStack >= 0) return new Resolved(null, onStack);
+        if (depth >= MAX_DEPTH) return new Resolved(Cost.raw(itemId), -1);
+
+        resolving.put(itemId, depth);
+        Cost best = null;
+        int lowestDepth = Integer.MAX_VALUE;
+        for (int recipe : index.producersOf(itemId)) {
+            Resolved candidate = costVia(recipe, depth);
+            lowestDepth = Math.min(lowestDepth, candidate.lowestDepth());
+            if (candidate.cost() != null && (best == null || candidate.cost().total() < best.total())) {
+                best = candidate.cost();
+            }
+        }
+        resolving.remove(itemId);
+
+        if (best == null) {
+            // Made only by recipes needing something further up the tree: not an option from here
+            if (lowestDepth < depth) return new Resolved(null, lowestDepth);
+            best = Cost.raw(itemId);
+        }
+        // Only the item's own cycles were cut, so the result holds wherever the query starts
+        if (lowestDepth >= depth) {
+            memo.put(itemId, best);
+            lowestDepth = Integer.MAX_VALUE;
+        } else {
+            queryMemo.put(itemId, best);
+        }
+        return new Resolved(best, lowestDepth);
+    }
+
+    /**
+     * Cost of one result of the recipe, or a null cost if an ingredient is already being resolved.
+     */
+    private Resolved costVia(int recipe, int depth) {
+        int resultCount = index.getResultCount(recipe);
+        if (resultCount <= 0) return new Resolved(null, Integer.MAX_VALUE);
+
+        Int2DoubleOpenHashMap amounts = new Int2DoubleOpenHashMap();
+        int lowestDepth = Integer.MAX_VALUE;
+        for (int ingredient : index.getIngredientItems(recipe)) {
+            if (ingredient < 0) continue;
+            Resolved resolved = resolve(ingredient, depth + 1);
+            lowestDepth = Math.min(lowestDepth, resolved.lowestDepth());
+            if (resolved.cost() == null) return new Resolved(null, lowestDepth);
+            addScaled(amounts, resolved.cost(), 1.0 / resultCount);
+        }
+        return amounts.isEmpty() ? new Resolved(null, lowestDepth) : new Resolved(new Cost(amounts), lowestDepth);
+    }
+
+    private static void addScaled(Int2DoubleOpenHashMap into, Cost cost, double factor) {
+        for (Int2DoubleMap.Entry entry : cost.amounts().int2DoubleEntrySet()) {
+            into.addTo(entry.getIntKey(), entry.getDoubleValue() * factor);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.examplemod.recipe;
+
+import com.mojang.logging.LogUtils;
+import net.minecraft.Util;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * The recipe types a player exported most recently, most recent first, stored per player under
+ * {@code local/recipe_editor/recent}. The editor lists these ahead of the census order.
+ */
+public final class RecentRecipeTypes {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final Path DIRECTORY = Path.of("local", "recipe_editor", "recent");
+    private static final int MAX_ENTRIES = 16;
+
+    private static RecentRecipeTypes loaded;
+
+    private final UUID player;
+    private final Path file;
+    private volatile List<String> types;
+
+    private RecentRecipeTypes(UUID player, List<String> types) {
+        this.player = player;
+        this.file = DIRECTORY.resolve(player + ".txt");
+        this.types = types;
+    }
+
+    /**
+     * Gets the list of a player, reading it from disk the first time.
+     */
+    public static synchronized RecentRecipeTypes forPlayer(UUID player) {
+        if (loaded == null || !loaded.player.equals(player)) {
+            loaded = new RecentRecipeTypes(player, List.of());
+            loaded.types = loaded.read();
+        }
+        return loaded;
+    }
+
+    public List<String> types() {
+        return types;
+    }
+
+    /**
+     * Moves a type to the front of the list and saves the list in the background.
+     */
+    public synchronized void record(String recipeType) {
+        if (!types.isEmpty() && types.get(0).equals(recipeType)) return;
+
+        List<String> updated = new ArrayList<>(MAX_ENTRIES);
+        updated.add(recipeType);
+        for (String type : types) {
+            if (updated.size() >= MAX_ENTRIES) break;
+            if (!type.equals(recipeType)) updated.add(type);
+        }
+        types = List.copyOf(updated);
+        Util.ioPool().execute(this::write);
+    }
+
+    /**
+     * Namespaces of the recent types, most recent first.
+     */
+    public List<String> mods() {
+        Set<String> mods = new LinkedHashSet<>();
+        for (String type : types) {
+            int separator = type.indexOf(':');
+            mods.add(separator < 0 ? "minecraft" : type.substring(0, separator));
+        }
+        return List.copyOf(mods);
+    }
+
+    /**
+     * Reorders {@code items} so the ones whose key is in {@code recent} come first, in recent order,
+     * followed by the rest in their original order.
+     */
+    public static <T> List<T> promote(List<T> items, List<String> recent, Function<T, String> key) {
+        if (recent.isEmpty()) return items;
+
+        List<T> ordered = new ArrayList<>(items.size());
+        for (String wanted : recent) {
+            for (T item : items) {
+                if (key.apply(item).equals(wanted)) {
+                    ordered.add(item);
+                    break;
+                }
+            }
+        }
+        for (T item : items) {
+            if (!recent.contains(key.apply(item))) ordered.add(item);
+        }
+        return ordered;
+    }
+
+    private List<String> read() {
+        if (!Files.isRegularFile(file)) return List.of();
+        try {
+            return Files.readAllLines(file, StandardCharsets.UTF_8).stream()
+                .filter(line -> !line.isBlank())
+                .limit(MAX_ENTRIES)
+                .toList();
+        } catch (IOException e) {
+            LOGGER.warn("Ignoring unreadable recent recipe types {}", file, e);
+            return List.of();
+        }
+    }
+
+    /**
+     * Saves the list as it is when the write runs rather than when it was queued, as the I/O pool
+     * may run queued writes out of order; whichever runs last then saves the newest list.
+     */
+    private synchronized void write() {
+        try {
+            Files.createDirectories(DIRECTORY);
+            Files.write(file, types, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to save recent recipe types {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.examplemod.recipe;
+
+import com.example.examplemod.export.ItemRef;
+import com.example.examplemod.export.RecipeDraft;
+import com.example.examplemod.util.EditorMetrics;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.crafting.RecipeManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * What a draft changes compared to the loaded recipe it replaces: the recipe type and every
+ * slot whose item or count differs. Both sides are compared in editor slot order, as
+ * {@link RecipeImporter} lays out the live recipe the way the editor would show it.
+ *
+ * @param changes changed slots, inputs before outputs, each in slot order
+ */
+public record RecipeDiff(ResourceLocation recipeId, String liveType, String draftType, List<SlotChange> changes) {
+
+    public enum Kind {
+        /** The slot was empty in the live recipe. */
+        ADDED,
+        /** The slot is empty in the draft. */
+        REMOVED,
+        /** A different item. */
+        ITEM,
+        /** The same item in a different count. */
+        COUNT
+    }
+
+    public record SlotChange(boolean output, int slot, ItemRef before, ItemRef after) {
+
+        public Kind kind() {
+            if (before.isEmpty()) return Kind.ADDED;
+            if (after.isEmpty()) return Kind.REMOVED;
+            return before.id().equals(after.id()) ? Kind.COUNT : Kind.ITEM;
+        }
+    }
+
+    public RecipeDiff {
+        changes = List.copyOf(changes);
+    }
+
+    /**
+     * Diffs the draft against the recipe currently loaded under {@code recipeId}, or nothing if
+     * there is no such recipe any more.
+     */
+    public static Optional<RecipeDiff> against(RecipeManager recipeManager, RegistryAccess registryAccess,
+                                               ResourceLocation recipeId, RecipeDraft draft, int maxInputs) {
+        long start = EditorMetrics.RECIPE_DIFF.start();
+        try {
+            return RecipeImporter.load(recipeManager, registryAccess, recipeId, maxInputs)
+                .map(live -> between(recipeId, live.toDraft(), draft));
+        } finally {
+            EditorMetrics.RECIPE_DIFF.stop(start);
+        }
+    }
+
+    public static RecipeDiff between(ResourceLocation recipeId, RecipeDraft live, RecipeDraft draft) {
+        List<SlotChange> changes = new ArrayList<>();
+        int inputs = Math.max(live.inputs().size(), draft.inputs().size());
+        for (int slot = 0; slot < inputs; slot++) {
+            compare(changes, false, slot, live.input(slot), draft.input(slot));
+        }
+        int outputs = Math.max(live.outputs().size(), draft.outputs().size());
+        for (int slot = 0; slot < outputs; slot++) {
+            compare(changes, true, slot, live.output(slot), draft.output(slot));
+        }
+        return new RecipeDiff(recipeId, live.type(), draft.type(), changes);
+    }
+
+    private static void compare(List<SlotChange> changes, boolean output, int slot, ItemRef before, ItemRef after) {
+        if (before.isEmpty() && after.isEmpty()) return;
+        if (!before.equals(after)) {
+            changes.add(new SlotChange(output, slot, before, after));
+        }
+    }
+
+    public boolean typeChanged() {
+        return !liveType.equals(draftType);
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty() && !typeChanged();
+    }
+}
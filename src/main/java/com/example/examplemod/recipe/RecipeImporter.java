@@ -0,0 +1,92 @@
+package com.example.examplemod.recipe;
+
+import com.example.examplemod.export.ItemRef;
+import com.example.examplemod.export.RecipeDraft;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.crafting.Ingredient;
+import net.minecraft.world.item.crafting.RecipeManager;
+import net.minecraftforge.common.crafting.IShapedRecipe;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Turns an existing recipe from the recipe manager back into editor slot contents, so it can be
+ * edited and exported as a replacement. Ingredients matching several items (tags) are loaded as
+ * their first item.
+ */
+public class RecipeImporter {
+
+    private static final int GRID_SIZE = 3;
+
+    private RecipeImporter() {
+    }
+
+    /**
+     * An existing recipe laid out for the editor: the editor recipe type and the stacks of each
+     * input and output slot.
+     */
+    public record Imported(ResourceLocation id, String recipeType, List<ItemStack> inputs, List<ItemStack> outputs) {
+
+        /**
+         * The recipe as the editor would snapshot it with these slot contents.
+         */
+        public RecipeDraft toDraft() {
+            return RecipeDraft.of(recipeType, refs(inputs), refs(outputs));
+        }
+
+        private static List<ItemRef> refs(List<ItemStack> stacks) {
+            List<ItemRef> refs = new ArrayList<>(stacks.size());
+            for (ItemStack stack : stacks) {
+                refs.add(stack.isEmpty() ? ItemRef.EMPTY
+                    : new ItemRef(BuiltInRegistries.ITEM.getKey(stack.getItem()).toString(), stack.getCount()));
+            }
+            return refs;
+        }
+    }
+
+    public static Optional<Imported> load(RecipeManager recipeManager, RegistryAccess registryAccess,
+                                          ResourceLocation id, int maxInputs) {
+        return recipeManager.byKey(id).map(recipe -> {
+            List<ItemStack> inputs = recipe instanceof IShapedRecipe<?> shaped
+                ? shapedInputs(shaped, recipe.getIngredients(), maxInputs)
+                : listInputs(recipe.getIngredients(), maxInputs);
+            ItemStack result = recipe.getResultItem(registryAccess);
+            List<ItemStack> outputs = result.isEmpty() ? List.of() : List.of(result.copy());
+            return new Imported(id, RecipeTypeRegistry.editorTypeOf(recipe).toString(), inputs, outputs);
+        });
+    }
+
+    private static List<ItemStack> shapedInputs(IShapedRecipe<?> recipe, List<Ingredient> ingredients, int maxInputs) {
+        List<ItemStack> inputs = new ArrayList<>(Collections.nCopies(Math.min(maxInputs, GRID_SIZE * GRID_SIZE), ItemStack.EMPTY));
+        int width = recipe.getRecipeWidth();
+        for (int i = 0; i < ingredients.size() && width > 0; i++) {
+            int slot = (i / width) * GRID_SIZE + i % width;
+            if (i % width < GRID_SIZE && slot < inputs.size()) {
+                inputs.set(slot, firstItem(ingredients.get(i)));
+            }
+        }
+        return inputs;
+    }
+
+    private static List<ItemStack> listInputs(List<Ingredient> ingredients, int maxInputs) {
+        List<ItemStack> inputs = new ArrayList<>();
+        for (Ingredient ingredient : ingredients) {
+            if (inputs.size() >= maxInputs) break;
+            if (!ingredient.isEmpty()) {
+                inputs.add(firstItem(ingredient));
+            }
+        }
+        return inputs;
+    }
+
+    private static ItemStack firstItem(Ingredient ingredient) {
+        ItemStack[] items = ingredient.getItems();
+        return items.length == 0 ? ItemStack.EMPTY : items[0].copy();
+    }
+}
@@ -0,0 +1,394 @@
+package com.example.examplemod.recipe;
+
+import com.example.examplemod.export.ItemRef;
+import com.example.examplemod.export.RecipeDraft;
+import com.example.examplemod.util.EditorMetrics;
+import it.unimi.dsi.fastutil.ints.Int2IntLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.resources.ResourceLocation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Finds the loops a draft would close in the recipe graph, and whether going round one yields
+ * more than it costs, i.e. duplicates items.
+ * <p>
+ * The graph has an edge from every item to the result of every recipe accepting it, weighted by
+ * the result count over the number of ingredients taking that item. It is built once per
+ * {@link RecipeUsageIndex} snapshot. For a draft, Tarjan's algorithm is run from the draft's
+ * outputs with the draft's own edges added; every draft input that lands in the same strongly
+ * connected component as an output closes a loop. The best yield of each such loop is then found
+ * in parallel by a longest-path search over log yields confined to that component, so even on very
+ * large packs only the handful of items actually involved are visited.
+ */
+public final class RecipeLoopDetector {
+
+    // Longer loops aren't worth reporting, and the cap bounds the search when the component
+    // already contains a gain loop of its own
+    private static final int MAX_LOOP_LENGTH = 32;
+    private static final double GAIN_TOLERANCE = 1e-6;
+
+    /**
+     * A loop through the draft: {@code items} runs from a draft output back to a draft input along
+     * the existing {@code recipes}, the draft itself closing it.
+     *
+     * @param gain how many of the first item one trip round the loop turns one of it into
+     */
+    public record Loop(List<ResourceLocation> items, List<ResourceLocation> recipes, double gain) {
+
+        public boolean isExploit() {
+            return gain > 1 + GAIN_TOLERANCE;
+        }
+
+        public String describe() {
+            StringBuilder text = new StringBuilder();
+            for (ResourceLocation item : items) {
+                text.append(item).append(" → ");
+            }
+            return text.append(items.get(0)).toString();
+        }
+    }
+
+    private record DraftEdge(int input, int output, double logGain) {
+    }
+
+    private static ItemGraph cachedGraph;
+    private static RecipeUsageIndex cachedIndex;
+
+    private RecipeLoopDetector() {
+    }
+
+    /**
+     * Finds the loops the draft closes, the worst first: exploits by decreasing gain, then plain loops.
+     *
+     * @param replacedRecipe recipe the draft replaces and which is left out of the graph, or null
+     */
+    public static List<Loop> findLoops(RecipeUsageIndex index, RecipeDraft draft, ResourceLocation replacedRecipe) {
+        long start = EditorMetrics.LOOP_ANALYSIS.start();
+        try {
+            List<DraftEdge> draftEdges = draftEdges(index, draft);
+            if (draftEdges.isEmpty() || index.isEmpty()) return List.of();
+
+            ItemGraph graph = graphFor(index);
+            int excluded = replacedRecipe == null ? -1 : graph.recipeIndexOf(replacedRecipe);
+            Components components = Components.find(graph, draftEdges, excluded);
+
+            return draftEdges.parallelStream()
+                .filter(edge -> components.sameComponent(edge.input(), edge.output()))
+                .map(edge -> bestLoop(index, graph, components, edge, excluded))
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparingDouble(Loop::gain).reversed())
+                .toList();
+        } finally {
+            EditorMetrics.LOOP_ANALYSIS.stop(start);
+        }
+    }
+
+    private static synchronized ItemGraph graphFor(RecipeUsageIndex index) {
+        if (cachedIndex != index) {
+            cachedGraph = ItemGraph.build(index);
+            cachedIndex = index;
+        }
+        return cachedGraph;
+    }
+
+    private static List<DraftEdge> draftEdges(RecipeUsageIndex index, RecipeDraft draft) {
+        // Inputs of the same item add up, as one craft consumes all of them
+        Int2IntMap inputs = new Int2IntLinkedOpenHashMap();
+        for (ItemRef input : draft.inputs()) {
+            int item = itemId(index, input);
+            if (item >= 0) inputs.mergeInt(item, input.count(), Integer::sum);
+        }
+
+        List<DraftEdge> edges = new ArrayList<>();
+        for (ItemRef output : draft.outputs()) {
+            int item = itemId(index, output);
+            if (item < 0) continue;
+            for (Int2IntMap.Entry input : inputs.int2IntEntrySet()) {
+                edges.add(new DraftEdge(input.getIntKey(), item, Math.log((double) output.count() / input.getIntValue())));
+            }
+        }
+        return edges;
+    }
+
+    private static int itemId(RecipeUsageIndex index, ItemRef ref) {
+        if (ref.count() <= 0) return -1;
+        ResourceLocation id = ResourceLocation.tryParse(ref.id());
+        return id == null ? -1 : index.itemIdOf(id);
+    }
+
+    /**
+     * Longest path by log gain from the draft edge's output back to its input using at most
+     * {@link #MAX_LOOP_LENGTH} recipes, all within the edge's component.
+     */
+    private static Loop bestLoop(RecipeUsageIndex index, ItemGraph graph, Components components, DraftEdge edge, int excluded) {
+        int[] members = components.membersOf(edge.output());
+        int[] local = new int[components.nodeCount()];
+        Arrays.fill(local, -1);
+        for (int i = 0; i < members.length; i++) {
+            local[members[i]] = i;
+        }
+
+        double[] best = new double[members.length];
+        Arrays.fill(best, Double.NEGATIVE_INFINITY);
+        best[local[edge.output()]] = 0;
+        // Which edge improved a node in each round, -1 where the previous round's value stands
+        int[][] via = new int[MAX_LOOP_LENGTH + 1][];
+
+        int rounds = 0;
+        for (int round = 1; round <= MAX_LOOP_LENGTH && edge.input() != edge.output(); round++) {
+            double[] next = best.clone();
+            int[] improvedVia = new int[members.length];
+            Arrays.fill(improvedVia, -1);
+            boolean improved = false;
+
+            for (int from = 0; from < members.length; from++) {
+                if (best[from] == Double.NEGATIVE_INFINITY) continue;
+                int node = members[from];
+                if (node >= graph.nodeCount()) continue;
+                for (int e = graph.offsets[node]; e < graph.offsets[node + 1]; e++) {
+                    int to = local[graph.targets[e]];
+                    if (to < 0 || graph.recipes[e] == excluded) continue;
+                    double candidate = best[from] + graph.logGains[e];
+                    if (candidate > next[to] + GAIN_TOLERANCE) {
+                        next[to] = candidate;
+                        improvedVia[to] = e;
+                        improved = true;
+                    }
+                }
+            }
+            if (!improved) break;
+            best = next;
+            via[round] = improvedVia;
+            rounds = round;
+        }
+
+        int target = local[edge.input()];
+        if (best[target] == Double.NEGATIVE_INFINITY) return null;
+
+        // Walk the improving edges back from the input to the output
+        List<ResourceLocation> items = new ArrayList<>();
+        List<ResourceLocation> recipes = new ArrayList<>();
+        int node = edge.input();
+        for (int round = rounds; round >= 1; round--) {
+            int e = via[round][local[node]];
+            if (e < 0) continue;
+            items.add(index.itemKeyOf(node));
+            recipes.add(graph.recipeIds[graph.recipes[e]]);
+            node = graph.sources[e];
+        }
+        items.add(index.itemKeyOf(node));
+        Collections.reverse(items);
+        Collections.reverse(recipes);
+        return new Loop(items, recipes, Math.exp(best[target] + edge.logGain()));
+    }
+
+    /**
+     * Item graph of the existing recipes in compressed sparse row form: the edges leaving item
+     * {@code i} are {@code offsets[i]} up to {@code offsets[i + 1]}.
+     */
+    private static final class ItemGraph {
+
+        final int[] offsets;
+        final int[] sources;
+        final int[] targets;
+        final int[] recipes;
+        final double[] logGains;
+        final ResourceLocation[] recipeIds;
+
+        private ItemGraph(int[] offsets, int[] sources, int[] targets, int[] recipes, double[] logGains,
+                          ResourceLocation[] recipeIds) {
+            this.offsets = offsets;
+            this.sources = sources;
+            this.targets = targets;
+            this.recipes = recipes;
+            this.logGains = logGains;
+            this.recipeIds = recipeIds;
+        }
+
+        static ItemGraph build(RecipeUsageIndex index) {
+            int[] items = index.consumedItems();
+            Arrays.sort(items);
+
+            int nodeCount = items.length == 0 ? 0 : items[items.length - 1] + 1;
+            int edgeCount = 0;
+            for (int recipe = 0; recipe < index.recipeCount(); recipe++) {
+                nodeCount = Math.max(nodeCount, index.getResultItem(recipe) + 1);
+            }
+            for (int item : items) {
+                edgeCount += index.consumersOf(item).length;
+            }
+
+            int[] offsets = new int[nodeCount + 1];
+            int[] sources = new int[edgeCount];
+            int[] targets = new int[edgeCount];
+            int[] recipes = new int[edgeCount];
+            double[] logGains = new double[edgeCount];
+            int edges = 0;
+            int nextNode = 0;
+            for (int item : items) {
+                while (nextNode <= item) {
+                    offsets[nextNode++] = edges;
+                }
+                for (int recipe : index.consumersOf(item)) {
+                    int result = index.getResultItem(recipe);
+                    if (result < 0 || index.getResultCount(recipe) <= 0) continue;
+                    sources[edges] = item;
+                    targets[edges] = result;
+                    recipes[edges] = recipe;
+                    logGains[edges] = Math.log((double) index.getResultCount(recipe) / amountOf(index, recipe, item));
+                    edges++;
+                }
+            }
+            while (nextNode <= nodeCount) {
+                offsets[nextNode++] = edges;
+            }
+
+            ResourceLocation[] recipeIds = new ResourceLocation[index.recipeCount()];
+            for (int recipe = 0; recipe < recipeIds.length; recipe++) {
+                recipeIds[recipe] = index.getRecipeId(recipe);
+            }
+            return new ItemGraph(offsets, sources, targets, recipes, logGains, recipeIds);
+        }
+
+        /**
+         * Ingredients of the recipe taking the item. The index only keeps the first accepted item of
+         * each ingredient, so an item that is only an alternative counts once.
+         */
+        private static int amountOf(RecipeUsageIndex index, int recipe, int item) {
+            int amount = 0;
+            for (int ingredient : index.getIngredientItems(recipe)) {
+                if (ingredient == item) amount++;
+            }
+            return Math.max(1, amount);
+        }
+
+        int nodeCount() {
+            return offsets.length - 1;
+        }
+
+        int recipeIndexOf(ResourceLocation id) {
+            for (int recipe = 0; recipe < recipeIds.length; recipe++) {
+                if (id.equals(recipeIds[recipe])) return recipe;
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Strongly connected components reachable from the draft outputs, found with an iterative
+     * Tarjan's algorithm so deep recipe chains can't overflow the stack.
+     */
+    private static final class Components {
+
+        private final int[] componentOf;
+        private final List<int[]> members = new ArrayList<>();
+
+        private Components(int nodeCount) {
+            componentOf = new int[nodeCount];
+            Arrays.fill(componentOf, -1);
+        }
+
+        static Components find(ItemGraph graph, List<DraftEdge> draftEdges, int excluded) {
+            int nodeCount = graph.nodeCount();
+            for (DraftEdge edge : draftEdges) {
+                nodeCount = Math.max(nodeCount, Math.max(edge.input(), edge.output()) + 1);
+            }
+            Components components = new Components(nodeCount);
+
+            int[] order = new int[nodeCount];
+            int[] lowLink = new int[nodeCount];
+            Arrays.fill(order, -1);
+            boolean[] onStack = new boolean[nodeCount];
+            IntArrayList stack = new IntArrayList();
+            IntArrayList callStack = new IntArrayList();
+            IntArrayList nextEdge = new IntArrayList();
+            int counter = 0;
+
+            for (DraftEdge root : draftEdges) {
+                if (order[root.output()] >= 0) continue;
+
+                order[root.output()] = lowLink[root.output()] = counter++;
+                stack.add(root.output());
+                onStack[root.output()] = true;
+                callStack.add(root.output());
+                nextEdge.add(0);
+
+                while (!callStack.isEmpty()) {
+                    int depth = callStack.size() - 1;
+                    int node = callStack.getInt(depth);
+                    int edge = nextEdge.getInt(depth);
+                    int next = successor(graph, draftEdges, node, edge, excluded);
+
+                    if (next != Integer.MIN_VALUE) {
+                        nextEdge.set(depth, edge + 1);
+                        if (next < 0) continue;
+                        if (order[next] < 0) {
+                            order[next] = lowLink[next] = counter++;
+                            stack.add(next);
+                            onStack[next] = true;
+                            callStack.add(next);
+                            nextEdge.add(0);
+                        } else if (onStack[next]) {
+                            lowLink[node] = Math.min(lowLink[node], order[next]);
+                        }
+                        continue;
+                    }
+
+                    callStack.removeInt(depth);
+                    nextEdge.removeInt(depth);
+                    if (depth > 0) {
+                        int parent = callStack.getInt(depth - 1);
+                        lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+                    }
+                    if (lowLink[node] == order[node]) {
+                        IntArrayList component = new IntArrayList();
+                        int member;
+                        do {
+                            member = stack.removeInt(stack.size() - 1);
+                            onStack[member] = false;
+                            components.componentOf[member] = components.members.size();
+                            component.add(member);
+                        } while (member != node);
+                        components.members.add(component.toIntArray());
+                    }
+                }
+            }
+            return components;
+        }
+
+        /**
+         * The target of the node's {@code edge}-th outgoing edge, counting the graph's edges first and
+         * then the draft's; -1 for a skipped edge, or {@link Integer#MIN_VALUE} past the last one.
+         */
+        private static int successor(ItemGraph graph, List<DraftEdge> draftEdges, int node, int edge, int excluded) {
+            int graphEdges = node < graph.nodeCount() ? graph.offsets[node + 1] - graph.offsets[node] : 0;
+            if (edge < graphEdges) {
+                int e = graph.offsets[node] + edge;
+                return graph.recipes[e] == excluded ? -1 : graph.targets[e];
+            }
+            int draftEdge = edge - graphEdges;
+            if (draftEdge >= draftEdges.size()) return Integer.MIN_VALUE;
+            DraftEdge candidate = draftEdges.get(draftEdge);
+            return candidate.input() == node ? candidate.output() : -1;
+        }
+
+        int nodeCount() {
+            return componentOf.length;
+        }
+
+        boolean sameComponent(int a, int b) {
+            return componentOf[a] >= 0 && componentOf[a] == componentOf[b];
+        }
+
+        int[] membersOf(int node) {
+            return members.get(componentOf[node]);
+        }
+    }
+}
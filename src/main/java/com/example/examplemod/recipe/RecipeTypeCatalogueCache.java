@@ -0,0 +1,128 @@
+package com.example.examplemod.recipe;
+
+import com.mojang.logging.LogUtils;
+import org.slf4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Binary cache of the recipe type catalogue, so a launch with an unchanged mod list doesn't have
+ * to rescan recipe types. Layout: magic, 32 byte fingerprint, type count, then per type its
+ * UTF-8 ID (length prefixed), recipe count and inferred slot layout (three bytes, inputs 0 if
+ * none was inferred).
+ */
+final class RecipeTypeCatalogueCache {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+    // Bumped whenever layout inference changes, so layouts cached by an older version are rebuilt
+    private static final int MAGIC = 0x52544333; // "RTC3"
+    static final int FINGERPRINT_LENGTH = 32;
+
+    /**
+     * What is cached per recipe type. {@code layout} is null if the type had no recipes to sample.
+     */
+    record CachedType(int recipeCount, SlotLayout layout) {
+    }
+
+    /**
+     * Recipe types by ID, as stored under {@code fingerprint}.
+     */
+    record Catalogue(byte[] fingerprint, Map<String, CachedType> types) {
+    }
+
+    private RecipeTypeCatalogueCache() {
+    }
+
+    /**
+     * Reads the cache in one go. Missing, truncated or foreign files yield nothing. The file is
+     * read into memory rather than mapped, as a mapping would keep it locked on Windows and make
+     * the next save fail to replace it.
+     */
+    static Optional<Catalogue> load(Path file) {
+        if (!Files.isRegularFile(file)) return Optional.empty();
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            if (buffer.getInt() != MAGIC) return Optional.empty();
+
+            byte[] fingerprint = new byte[FINGERPRINT_LENGTH];
+            buffer.get(fingerprint);
+            int count = buffer.getInt();
+            Map<String, CachedType> types = new LinkedHashMap<>(Math.max(16, count * 2));
+            for (int i = 0; i < count; i++) {
+                byte[] id = new byte[Short.toUnsignedInt(buffer.getShort())];
+                buffer.get(id);
+                int recipeCount = buffer.getInt();
+                int inputs = Byte.toUnsignedInt(buffer.get());
+                int outputs = Byte.toUnsignedInt(buffer.get());
+                boolean shaped = buffer.get() != 0;
+                SlotLayout layout = inputs > 0 && outputs > 0 ? new SlotLayout(inputs, outputs, shaped) : null;
+                types.put(new String(id, StandardCharsets.UTF_8), new CachedType(recipeCount, layout));
+            }
+            return Optional.of(new Catalogue(fingerprint, types));
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            LOGGER.warn("Ignoring unreadable recipe type cache {}", file, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Replaces the cache file. Saves are serialized and each writes its own temporary file, so
+     * overlapping rebuilds can't interleave their writes or move each other's half-written file.
+     */
+    static synchronized void save(Path file, Catalogue catalogue) {
+        Path temp = null;
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(temp));
+                 DataOutputStream out = new DataOutputStream(stream)) {
+                out.writeInt(MAGIC);
+                out.write(Arrays.copyOf(catalogue.fingerprint(), FINGERPRINT_LENGTH));
+                out.writeInt(catalogue.types().size());
+                for (Map.Entry<String, CachedType> entry : catalogue.types().entrySet()) {
+                    byte[] id = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                    out.writeShort(id.length);
+                    out.write(id);
+                    CachedType type = entry.getValue();
+                    out.writeInt(type.recipeCount());
+                    SlotLayout layout = type.layout();
+                    out.writeByte(layout != null ? Math.min(layout.inputs(), 255) : 0);
+                    out.writeByte(layout != null ? Math.min(layout.outputs(), 255) : 0);
+                    out.writeByte(layout != null && layout.shaped() ? 1 : 0);
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Failed to save recipe type cache {}", file, e);
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // Left behind; the next save writes a new one
+                }
+            }
+        }
+    }
+}
@@ -1,64 +1,310 @@
 package com.example.examplemod.recipe;
 
+import com.example.examplemod.util.EditorMetrics;
+import com.mojang.logging.LogUtils;
+import net.minecraft.Util;
 import net.minecraft.client.Minecraft;
+import net.minecraft.client.multiplayer.ServerData;
+import net.minecraft.client.server.IntegratedServer;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.crafting.Ingredient;
+import net.minecraft.world.item.crafting.Recipe;
+import net.minecraft.world.item.crafting.RecipeManager;
 import net.minecraft.world.item.crafting.RecipeType;
+import net.minecraft.world.item.crafting.ShapedRecipe;
+import net.minecraft.world.item.crafting.ShapelessRecipe;
+import net.minecraftforge.common.crafting.IShapedRecipe;
+import net.minecraftforge.fml.ModList;
 import net.minecraftforge.registries.ForgeRegistries;
+import org.slf4j.Logger;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collector;
 import java.util.stream.Collectors;
 
 /**
  * Manages detection and categorization of all recipe types from loaded mods.
+ * <p>
+ * The catalogue is cached on disk keyed by a fingerprint of the loaded mods and selected
+ * datapacks. It is read from the cache at startup and only rebuilt, in the background, once
+ * the recipes of a world arrive with a different fingerprint. Rebuilding also samples each
+ * type's recipes to infer the {@link SlotLayout} the editor should offer for it.
  */
 public class RecipeTypeRegistry {
 
-    private static Map<String, List<RecipeTypeInfo>> recipeTypesByMod = new LinkedHashMap<>();
-    private static boolean initialized = false;
+    private static final Logger LOGGER = LogUtils.getLogger();
+    // Kept under local/ next to the export manifest, as it only describes this installation
+    private static final Path CACHE_FILE = Path.of("local", "recipe_editor", "recipe_types.bin");
+    private static final ResourceLocation CRAFTING_SHAPED = new ResourceLocation("minecraft", "crafting_shaped");
+    private static final ResourceLocation CRAFTING_SHAPELESS = new ResourceLocation("minecraft", "crafting_shapeless");
+    // Recipes per type looked at for layout inference; types are rarely irregular beyond that
+    private static final int LAYOUT_SAMPLES_PER_TYPE = 64;
+    private static final int GRID_SLOTS = 9;
+    // Stands for "as many as the editor has"; the screen caps layouts to the menu's slots
+    private static final int UNKNOWN_SLOTS = 255;
+
+    private static volatile Map<String, List<RecipeTypeInfo>> recipeTypesByMod = Map.of();
+    private static volatile Map<String, SlotLayout> layoutsByType = Map.of();
+    private static volatile Map<String, Integer> recipeCountsByMod = Map.of();
+    private static volatile boolean initialized = false;
+    // Fingerprint the current catalogue was built for
+    private static volatile byte[] catalogueFingerprint = new byte[0];
+    private static final AtomicInteger buildGeneration = new AtomicInteger();
+
+    /**
+     * Loads the cached catalogue, if any, so the editor can open without scanning.
+     * Cheap enough to run during client setup.
+     */
+    public static void loadCachedCatalogue() {
+        RecipeTypeCatalogueCache.load(CACHE_FILE).ifPresentOrElse(catalogue -> {
+            Map<ResourceLocation, RecipeTypeCatalogueCache.CachedType> types = new HashMap<>();
+            catalogue.types().forEach((id, type) -> {
+                ResourceLocation location = ResourceLocation.tryParse(id);
+                if (location != null) {
+                    types.put(location, type);
+                }
+            });
+            publish(types);
+            catalogueFingerprint = catalogue.fingerprint();
+            initialized = true;
+            EditorMetrics.TYPE_CACHE_HITS.increment();
+            LOGGER.debug("Loaded {} recipe types from {}", types.size(), CACHE_FILE);
+        }, EditorMetrics.TYPE_CACHE_MISSES::increment);
+    }
+
+    /**
+     * Rebuilds the catalogue in the background if the loaded mods or datapacks changed since it
+     * was built. Called on the client thread whenever the recipes are (re)synced; the only work
+     * done on the calling thread is copying the recipe list.
+     */
+    public static CompletableFuture<Void> refreshAsync(RecipeManager recipeManager, RegistryAccess registryAccess) {
+        byte[] fingerprint = fingerprint(currentPackIds());
+        if (initialized && Arrays.equals(fingerprint, catalogueFingerprint)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        int generation = buildGeneration.incrementAndGet();
+        List<Recipe<?>> recipes = new ArrayList<>(recipeManager.getRecipes());
+        return CompletableFuture.runAsync(() -> {
+            long start = EditorMetrics.TYPE_SCAN.start();
+            Map<ResourceLocation, RecipeTypeCatalogueCache.CachedType> types = summarize(recipes, registryAccess);
+            synchronized (RecipeTypeRegistry.class) {
+                if (generation != buildGeneration.get()) return;
+                publish(types);
+                catalogueFingerprint = fingerprint;
+                initialized = true;
+            }
+            LOGGER.debug("Rebuilt {} recipe types in {} us", types.size(), EditorMetrics.TYPE_SCAN.stop(start) / 1_000);
+            // Checked under the lock, so a newer rebuild's catalogue is always the one saved last
+            synchronized (RecipeTypeRegistry.class) {
+                if (generation == buildGeneration.get()) {
+                    RecipeTypeCatalogueCache.save(CACHE_FILE, toCacheEntry(fingerprint, types));
+                }
+            }
+        }, Util.backgroundExecutor()).exceptionally(error -> {
+            LOGGER.error("Failed to rebuild the recipe type catalogue", error);
+            return null;
+        });
+    }
 
     /**
-     * Scans all loaded recipe types and organizes them by mod namespace.
+     * Makes the recipe types available if neither the cache nor a background build has yet.
+     * Only the type registry is read here; recipe counts and layouts follow from a background build.
      */
     public static void scanRecipeTypes() {
         if (initialized) return;
 
-        recipeTypesByMod.clear();
-
-        // Get all recipe types from the registry
-        Set<ResourceLocation> recipeTypes = new HashSet<>();
+        long start = EditorMetrics.TYPE_SCAN.start();
+        Map<ResourceLocation, RecipeTypeCatalogueCache.CachedType> types = summarize(List.of(), null);
+        synchronized (RecipeTypeRegistry.class) {
+            if (initialized) return;
+            publish(types);
+            // Left unset so the next refresh always fills in counts and layouts
+            catalogueFingerprint = new byte[0];
+            initialized = true;
+        }
+        LOGGER.debug("Scanned {} recipe types from {} mods in {} us",
+            types.size(), recipeTypesByMod.size(), EditorMetrics.TYPE_SCAN.stop(start) / 1_000);
 
-        // Scan recipe manager for all known recipe types
         Minecraft mc = Minecraft.getInstance();
-        if (mc.level != null && mc.level.getRecipeManager() != null) {
-            mc.level.getRecipeManager().getRecipes().forEach(recipe -> {
-                String typeId = recipe.getType().toString();
-                recipeTypes.add(new ResourceLocation(typeId));
-            });
+        if (mc.level != null) {
+            refreshAsync(mc.level.getRecipeManager(), mc.level.registryAccess());
         }
+    }
 
-        // Also add standard recipe types from registry
-        ForgeRegistries.RECIPE_TYPES.getKeys().forEach(recipeTypes::add);
+    /**
+     * The slot layout inferred for a recipe type from its recipes, if it has any.
+     */
+    public static Optional<SlotLayout> getLayout(String recipeType) {
+        return Optional.ofNullable(layoutsByType.get(recipeType));
+    }
+
+    /**
+     * The type the editor exports a recipe as. Vanilla reports every crafting recipe as
+     * {@code minecraft:crafting}, so the shaped and shapeless variants are told apart here.
+     */
+    public static ResourceLocation editorTypeOf(Recipe<?> recipe) {
+        if (recipe instanceof ShapedRecipe) {
+            return CRAFTING_SHAPED;
+        } else if (recipe instanceof ShapelessRecipe) {
+            return CRAFTING_SHAPELESS;
+        }
+        RecipeType<?> type = recipe.getType();
+        ResourceLocation typeId = BuiltInRegistries.RECIPE_TYPE.getKey(type);
+        return typeId != null ? typeId : new ResourceLocation(type.toString());
+    }
 
+    /**
+     * Recipe census: counts the recipes of every type as a parallel reduction and infers each
+     * type's layout from a sample of them.
+     */
+    static Map<ResourceLocation, RecipeTypeCatalogueCache.CachedType> summarize(Collection<Recipe<?>> recipes,
+                                                                                      RegistryAccess registryAccess) {
+        Map<ResourceLocation, TypeCensus> census = recipes.parallelStream().collect(Collectors.groupingBy(
+            RecipeTypeRegistry::editorTypeOf,
+            Collector.of(TypeCensus::new, (tally, recipe) -> tally.add(recipe, registryAccess), TypeCensus::merge)));
+
+        Map<ResourceLocation, RecipeTypeCatalogueCache.CachedType> types = new HashMap<>();
+        // Every registered type, including ones without recipes in this world
+        ForgeRegistries.RECIPE_TYPES.getKeys().forEach(type -> types.put(type, new RecipeTypeCatalogueCache.CachedType(0, null)));
         // Always expose standard crafting subtypes so users can target them directly.
-        recipeTypes.add(new ResourceLocation("minecraft", "crafting_shaped"));
-        recipeTypes.add(new ResourceLocation("minecraft", "crafting_shapeless"));
+        types.put(CRAFTING_SHAPED, new RecipeTypeCatalogueCache.CachedType(0, null));
+        types.put(CRAFTING_SHAPELESS, new RecipeTypeCatalogueCache.CachedType(0, null));
+        census.forEach((typeId, tally) -> types.put(typeId, new RecipeTypeCatalogueCache.CachedType(tally.recipes, tally.layout)));
+        return types;
+    }
 
-        // Organize by mod namespace
-        for (ResourceLocation typeId : recipeTypes) {
-            String modId = typeId.getNamespace();
-            String recipePath = typeId.getPath();
+    /**
+     * Per-type accumulator of the census. Each parallel partition samples on its own, so a type
+     * may be sampled a little more than {@link #LAYOUT_SAMPLES_PER_TYPE} times in total.
+     */
+    private static final class TypeCensus {
+        int recipes;
+        int sampled;
+        SlotLayout layout;
 
-            RecipeTypeInfo info = new RecipeTypeInfo(typeId, modId, recipePath);
+        void add(Recipe<?> recipe, RegistryAccess registryAccess) {
+            recipes++;
+            if (sampled < LAYOUT_SAMPLES_PER_TYPE) {
+                sampled++;
+                include(layoutOf(recipe, registryAccess));
+            }
+        }
 
-            recipeTypesByMod.computeIfAbsent(modId, k -> new ArrayList<>()).add(info);
+        TypeCensus merge(TypeCensus other) {
+            recipes += other.recipes;
+            sampled += other.sampled;
+            include(other.layout);
+            return this;
         }
 
-        // Sort each mod's recipe types alphabetically
-        recipeTypesByMod.values().forEach(list ->
-            list.sort(Comparator.comparing(RecipeTypeInfo::getPath))
-        );
+        private void include(SlotLayout other) {
+            if (other != null) {
+                layout = layout == null ? other : layout.union(other);
+            }
+        }
+    }
+
+    /**
+     * Slots one recipe needs. Shaped recipes use the crafting grid. The vanilla recipe API only
+     * exposes a single result, so recipes reporting none (typically modded multi-output
+     * machines) leave the output side unconstrained. Likewise recipes reporting no ingredients,
+     * which is the default for modded recipes that don't implement {@code getIngredients},
+     * leave the input side unconstrained.
+     */
+    private static SlotLayout layoutOf(Recipe<?> recipe, RegistryAccess registryAccess) {
+        try {
+            if (recipe instanceof IShapedRecipe<?>) {
+                return new SlotLayout(GRID_SLOTS, 1, true);
+            }
+            int inputs = 0;
+            for (Ingredient ingredient : recipe.getIngredients()) {
+                if (!ingredient.isEmpty()) inputs++;
+            }
+            ItemStack result = recipe.getResultItem(registryAccess);
+            int outputs = result == null || result.isEmpty() ? UNKNOWN_SLOTS : 1;
+            return new SlotLayout(inputs > 0 ? inputs : UNKNOWN_SLOTS, outputs, false);
+        } catch (RuntimeException e) {
+            // Some modded recipes can't report results or ingredients outside a live level
+            return null;
+        }
+    }
+
+    private static void publish(Map<ResourceLocation, RecipeTypeCatalogueCache.CachedType> types) {
+        Map<String, List<RecipeTypeInfo>> byMod = new HashMap<>();
+        Map<String, Integer> modCounts = new HashMap<>();
+        Map<String, SlotLayout> layouts = new HashMap<>();
+        types.forEach((typeId, type) -> {
+            byMod.computeIfAbsent(typeId.getNamespace(), k -> new ArrayList<>())
+                .add(new RecipeTypeInfo(typeId, typeId.getNamespace(), typeId.getPath(), type.recipeCount()));
+            modCounts.merge(typeId.getNamespace(), type.recipeCount(), Integer::sum);
+            if (type.layout() != null) {
+                layouts.put(typeId.toString(), type.layout());
+            }
+        });
+
+        // Mods and each mod's types with the most recipes first, ties alphabetically
+        Map<String, List<RecipeTypeInfo>> organized = new LinkedHashMap<>();
+        byMod.keySet().stream()
+            .sorted(Comparator.comparing((String modId) -> -modCounts.get(modId)).thenComparing(Comparator.naturalOrder()))
+            .forEach(modId -> {
+                List<RecipeTypeInfo> modTypes = byMod.get(modId);
+                modTypes.sort(Comparator.comparing((RecipeTypeInfo info) -> -info.getRecipeCount())
+                    .thenComparing(RecipeTypeInfo::getPath));
+                organized.put(modId, List.copyOf(modTypes));
+            });
+        recipeTypesByMod = Collections.unmodifiableMap(organized);
+        recipeCountsByMod = Map.copyOf(modCounts);
+        layoutsByType = Map.copyOf(layouts);
+    }
+
+    private static RecipeTypeCatalogueCache.Catalogue toCacheEntry(byte[] fingerprint,
+                                                                   Map<ResourceLocation, RecipeTypeCatalogueCache.CachedType> types) {
+        Map<String, RecipeTypeCatalogueCache.CachedType> entries = new TreeMap<>();
+        types.forEach((typeId, type) -> entries.put(typeId.toString(), type));
+        return new RecipeTypeCatalogueCache.Catalogue(fingerprint, entries);
+    }
+
+    /**
+     * Hash of the loaded mod IDs and versions plus the given datapack IDs.
+     */
+    private static byte[] fingerprint(Collection<String> packIds) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        ModList.get().getMods().stream()
+            .map(mod -> mod.getModId() + "@" + mod.getVersion())
+            .sorted()
+            .forEach(mod -> digest.update((mod + "\n").getBytes(StandardCharsets.UTF_8)));
+        digest.update((byte) 0);
+        packIds.stream().sorted().forEach(pack -> digest.update((pack + "\n").getBytes(StandardCharsets.UTF_8)));
+        return digest.digest();
+    }
 
-        initialized = true;
+    /**
+     * Datapacks of the integrated server; for remote servers, which don't tell clients their
+     * datapacks, the server address stands in for them.
+     */
+    private static Collection<String> currentPackIds() {
+        Minecraft mc = Minecraft.getInstance();
+        IntegratedServer server = mc.getSingleplayerServer();
+        if (server != null) {
+            return server.getPackRepository().getSelectedIds();
+        }
+        ServerData serverData = mc.getCurrentServer();
+        return serverData != null ? List.of("server:" + serverData.ip) : List.of();
     }
 
     /**
@@ -68,11 +314,11 @@ public class RecipeTypeRegistry {
         if (!initialized) {
             scanRecipeTypes();
         }
-        return Collections.unmodifiableMap(recipeTypesByMod);
+        return recipeTypesByMod;
     }
 
     /**
-     * Gets all mod namespaces that have recipes, sorted alphabetically.
+     * Gets all mod namespaces that have recipe types, the ones with the most recipes first.
      */
     public static List<String> getModNamespaces() {
         if (!initialized) {
@@ -82,7 +328,14 @@ public class RecipeTypeRegistry {
     }
 
     /**
-     * Gets recipe types for a specific mod.
+     * Total number of recipes of a mod's recipe types when the catalogue was built.
+     */
+    public static int getRecipeCount(String modId) {
+        return recipeCountsByMod.getOrDefault(modId, 0);
+    }
+
+    /**
+     * Gets recipe types for a specific mod, the ones with the most recipes first.
      */
     public static List<RecipeTypeInfo> getRecipeTypesForMod(String modId) {
         if (!initialized) {
@@ -98,11 +351,17 @@ public class RecipeTypeRegistry {
         private final ResourceLocation id;
         private final String modId;
         private final String path;
+        private final int recipeCount;
 
         public RecipeTypeInfo(ResourceLocation id, String modId, String path) {
+            this(id, modId, path, 0);
+        }
+
+        public RecipeTypeInfo(ResourceLocation id, String modId, String path, int recipeCount) {
             this.id = id;
             this.modId = modId;
             this.path = path;
+            this.recipeCount = recipeCount;
         }
 
         public ResourceLocation getId() {
@@ -117,6 +376,13 @@ public class RecipeTypeRegistry {
             return path;
         }
 
+        /**
+         * Number of recipes of this type when the catalogue was built.
+         */
+        public int getRecipeCount() {
+            return recipeCount;
+        }
+
         public String getFullId() {
             return id.toString();
         }
@@ -0,0 +1,354 @@
+package com.example.examplemod.recipe;
+
+import com.example.examplemod.util.EditorMetrics;
+import com.mojang.logging.LogUtils;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.Util;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.crafting.Ingredient;
+import net.minecraft.world.item.crafting.Recipe;
+import net.minecraft.world.item.crafting.RecipeManager;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Inverted index over the recipe manager answering "which recipes make this item" and
+ * "which recipes use this item". Items are keyed by their raw registry id and recipes by
+ * their position in the snapshot, so lookups are a single primitive hash probe.
+ * <p>
+ * The index is rebuilt off-thread whenever the recipe manager is reloaded; readers always
+ * see a complete, immutable snapshot. An index can also be built from a {@link RegistrySnapshot},
+ * in which case item ids and keys are resolved against the snapshot instead of the registry.
+ */
+public class RecipeUsageIndex {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final int[] NO_RECIPES = new int[0];
+
+    /**
+     * Maps between items' raw ids and their IDs.
+     */
+    private interface ItemNames {
+        int idOf(ResourceLocation item);
+
+        ResourceLocation keyOf(int itemId);
+    }
+
+    private static final ItemNames REGISTRY_NAMES = new ItemNames() {
+        @Override
+        public int idOf(ResourceLocation item) {
+            return BuiltInRegistries.ITEM.getOptional(item).map(RecipeUsageIndex::itemId).orElse(-1);
+        }
+
+        @Override
+        public ResourceLocation keyOf(int itemId) {
+            return BuiltInRegistries.ITEM.getKey(BuiltInRegistries.ITEM.byId(itemId));
+        }
+    };
+
+    private static final RecipeUsageIndex EMPTY = new Builder(0).build(REGISTRY_NAMES);
+
+    private static volatile RecipeUsageIndex current = EMPTY;
+    private static final AtomicInteger buildGeneration = new AtomicInteger();
+
+    private final ResourceLocation[] recipeIds;
+    private final ResourceLocation[] recipeTypes;
+    private final int[] resultItems;
+    private final int[] resultCounts;
+    private final int[][] ingredientItems;
+    private final Int2ObjectMap<int[]> producers;
+    private final Int2ObjectMap<int[]> consumers;
+    private final ItemNames itemNames;
+
+    private RecipeUsageIndex(ResourceLocation[] recipeIds, ResourceLocation[] recipeTypes,
+                             int[] resultItems, int[] resultCounts, int[][] ingredientItems,
+                             Int2ObjectMap<int[]> producers, Int2ObjectMap<int[]> consumers, ItemNames itemNames) {
+        this.recipeIds = recipeIds;
+        this.recipeTypes = recipeTypes;
+        this.resultItems = resultItems;
+        this.resultCounts = resultCounts;
+        this.ingredientItems = ingredientItems;
+        this.producers = producers;
+        this.consumers = consumers;
+        this.itemNames = itemNames;
+    }
+
+    /**
+     * Gets the most recently built index. Never null; empty until the first build completes.
+     */
+    public static RecipeUsageIndex get() {
+        return current;
+    }
+
+    /**
+     * Schedules a rebuild from the given recipe manager on the shared background executor.
+     * Builds that finish after a newer one was requested are discarded.
+     */
+    public static CompletableFuture<RecipeUsageIndex> rebuildAsync(RecipeManager recipeManager, RegistryAccess registryAccess) {
+        final int generation = buildGeneration.incrementAndGet();
+        final List<Recipe<?>> recipes = new ArrayList<>(recipeManager.getRecipes());
+
+        return CompletableFuture.supplyAsync(() -> build(recipes, registryAccess), Util.backgroundExecutor())
+            .whenComplete((index, error) -> {
+                if (error != null) {
+                    LOGGER.error("Failed to build recipe usage index", error);
+                } else if (generation == buildGeneration.get()) {
+                    current = index;
+                }
+            });
+    }
+
+    /**
+     * Drops the current index, e.g. when leaving a world.
+     */
+    public static void clear() {
+        buildGeneration.incrementAndGet();
+        current = EMPTY;
+    }
+
+    /**
+     * Builds an index synchronously. Callers on the render thread should use {@link #rebuildAsync} instead.
+     */
+    public static RecipeUsageIndex build(Collection<Recipe<?>> recipes, RegistryAccess registryAccess) {
+        long start = EditorMetrics.USAGE_INDEX_BUILD.start();
+        Builder builder = new Builder(recipes.size());
+
+        for (Recipe<?> recipe : recipes) {
+            int index = builder.add(recipe.getId(), BuiltInRegistries.RECIPE_TYPE.getKey(recipe.getType()));
+            try {
+                ItemStack result = recipe.getResultItem(registryAccess);
+                if (result != null && !result.isEmpty()) {
+                    builder.setResult(index, itemId(result.getItem()), result.getCount());
+                }
+
+                List<Ingredient> ingredients = recipe.getIngredients();
+                int[] firstChoices = new int[ingredients.size()];
+                for (int i = 0; i < ingredients.size(); i++) {
+                    ItemStack[] choices = ingredients.get(i).getItems();
+                    firstChoices[i] = choices.length > 0 ? itemId(choices[0].getItem()) : -1;
+                    for (ItemStack choice : choices) {
+                        builder.addConsumer(itemId(choice.getItem()), index);
+                    }
+                }
+                builder.ingredientItems[index] = firstChoices;
+            } catch (RuntimeException e) {
+                // Some modded recipes can't report results or ingredients outside a live level; skip them.
+                LOGGER.debug("Skipping recipe {} in usage index: {}", builder.recipeIds[index], e.toString());
+            }
+        }
+
+        RecipeUsageIndex built = builder.build(REGISTRY_NAMES);
+        LOGGER.info("Built recipe usage index for {} recipes in {} ms", recipes.size(),
+            EditorMetrics.USAGE_INDEX_BUILD.stop(start) / 1_000_000);
+        return built;
+    }
+
+    /**
+     * Builds an index of a snapshot's recipes, for use without a running game. It is not
+     * published as {@link #get()}.
+     */
+    public static RecipeUsageIndex build(RegistrySnapshot snapshot) {
+        Builder builder = new Builder(snapshot.recipes().size());
+        for (RegistrySnapshot.RecipeEntry recipe : snapshot.recipes()) {
+            ResourceLocation recipeId = ResourceLocation.tryParse(recipe.id());
+            ResourceLocation type = ResourceLocation.tryParse(recipe.type());
+            if (recipeId == null || type == null) {
+                LOGGER.debug("Skipping snapshot recipe {} of type {} in usage index: not a valid ID", recipe.id(), recipe.type());
+                continue;
+            }
+            int index = builder.add(recipeId, type);
+            if (recipe.resultItem() >= 0) {
+                builder.setResult(index, recipe.resultItem(), recipe.resultCount());
+            }
+            int[] firstChoices = new int[recipe.ingredients().length];
+            for (int i = 0; i < firstChoices.length; i++) {
+                int[] choices = recipe.ingredients()[i];
+                firstChoices[i] = choices.length > 0 ? choices[0] : -1;
+                for (int choice : choices) {
+                    builder.addConsumer(choice, index);
+                }
+            }
+            builder.ingredientItems[index] = firstChoices;
+        }
+
+        return builder.build(new ItemNames() {
+            @Override
+            public int idOf(ResourceLocation item) {
+                return snapshot.itemId(item.toString());
+            }
+
+            @Override
+            public ResourceLocation keyOf(int itemId) {
+                return new ResourceLocation(snapshot.itemKey(itemId));
+            }
+        });
+    }
+
+    /**
+     * Collects recipes in order; each recipe's position is its index.
+     */
+    private static final class Builder {
+        final ResourceLocation[] recipeIds;
+        final ResourceLocation[] recipeTypes;
+        final int[] resultItems;
+        final int[] resultCounts;
+        final int[][] ingredientItems;
+        final Int2ObjectOpenHashMap<IntArrayList> producing = new Int2ObjectOpenHashMap<>();
+        final Int2ObjectOpenHashMap<IntArrayList> consuming = new Int2ObjectOpenHashMap<>();
+        int size;
+
+        Builder(int capacity) {
+            recipeIds = new ResourceLocation[capacity];
+            recipeTypes = new ResourceLocation[capacity];
+            resultItems = new int[capacity];
+            resultCounts = new int[capacity];
+            ingredientItems = new int[capacity][];
+        }
+
+        int add(ResourceLocation id, ResourceLocation type) {
+            int index = size++;
+            recipeIds[index] = id;
+            recipeTypes[index] = type;
+            resultItems[index] = -1;
+            ingredientItems[index] = NO_RECIPES;
+            return index;
+        }
+
+        void setResult(int index, int itemId, int count) {
+            resultItems[index] = itemId;
+            resultCounts[index] = count;
+            append(producing, itemId, index);
+        }
+
+        void addConsumer(int itemId, int index) {
+            append(consuming, itemId, index);
+        }
+
+        RecipeUsageIndex build(ItemNames itemNames) {
+            // Recipes can be skipped, leaving fewer than were allowed for
+            return new RecipeUsageIndex(Arrays.copyOf(recipeIds, size), Arrays.copyOf(recipeTypes, size),
+                Arrays.copyOf(resultItems, size), Arrays.copyOf(resultCounts, size), Arrays.copyOf(ingredientItems, size),
+                freeze(producing), freeze(consuming), itemNames);
+        }
+    }
+
+    /**
+     * Adds a recipe to an item's list unless it was the last one added, which de-duplicates
+     * ingredients that accept the same item more than once within a recipe.
+     */
+    private static void append(Int2ObjectOpenHashMap<IntArrayList> map, int itemId, int recipeIndex) {
+        IntArrayList list = map.get(itemId);
+        if (list == null) {
+            list = new IntArrayList(4);
+            map.put(itemId, list);
+        }
+        if (list.isEmpty() || list.getInt(list.size() - 1) != recipeIndex) {
+            list.add(recipeIndex);
+        }
+    }
+
+    private static Int2ObjectMap<int[]> freeze(Int2ObjectOpenHashMap<IntArrayList> lists) {
+        Int2ObjectOpenHashMap<int[]> frozen = new Int2ObjectOpenHashMap<>(lists.size());
+        for (Int2ObjectMap.Entry<IntArrayList> entry : lists.int2ObjectEntrySet()) {
+            frozen.put(entry.getIntKey(), entry.getValue().toIntArray());
+        }
+        frozen.trim();
+        return frozen;
+    }
+
+    public static int itemId(Item item) {
+        return BuiltInRegistries.ITEM.getId(item);
+    }
+
+    /**
+     * Raw id of the item with the given ID in this index's registry, or -1 if there is none.
+     */
+    public int itemIdOf(ResourceLocation item) {
+        return itemNames.idOf(item);
+    }
+
+    public ResourceLocation itemKeyOf(int itemId) {
+        return itemNames.keyOf(itemId);
+    }
+
+    /**
+     * Recipe indices whose result is the given item.
+     */
+    public int[] producersOf(Item item) {
+        return producers.getOrDefault(itemId(item), NO_RECIPES);
+    }
+
+    /**
+     * Recipe indices that accept the given item in any ingredient.
+     */
+    public int[] consumersOf(Item item) {
+        return consumers.getOrDefault(itemId(item), NO_RECIPES);
+    }
+
+    /**
+     * Recipe indices whose result is the item with the given raw id.
+     */
+    public int[] producersOf(int itemId) {
+        return producers.getOrDefault(itemId, NO_RECIPES);
+    }
+
+    /**
+     * Recipe indices that accept the item with the given raw id in any ingredient.
+     */
+    public int[] consumersOf(int itemId) {
+        return consumers.getOrDefault(itemId, NO_RECIPES);
+    }
+
+    /**
+     * Raw ids of every item accepted by at least one recipe, in no particular order.
+     */
+    public int[] consumedItems() {
+        return consumers.keySet().toIntArray();
+    }
+
+    public int recipeCount() {
+        return recipeIds.length;
+    }
+
+    public boolean isEmpty() {
+        return recipeIds.length == 0;
+    }
+
+    public ResourceLocation getRecipeId(int recipeIndex) {
+        return recipeIds[recipeIndex];
+    }
+
+    public ResourceLocation getRecipeType(int recipeIndex) {
+        return recipeTypes[recipeIndex];
+    }
+
+    /**
+     * Raw item id of the recipe's result, or -1 if it has none.
+     */
+    public int getResultItem(int recipeIndex) {
+        return resultItems[recipeIndex];
+    }
+
+    public int getResultCount(int recipeIndex) {
+        return resultCounts[recipeIndex];
+    }
+
+    /**
+     * Raw item ids of the first accepted item of each ingredient, -1 for empty ingredients.
+     */
+    public int[] getIngredientItems(int recipeIndex) {
+        return ingredientItems[recipeIndex];
+    }
+}
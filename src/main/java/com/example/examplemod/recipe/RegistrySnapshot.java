@@ -0,0 +1,348 @@
+package com.example.examplemod.recipe;
+
+import com.example.examplemod.export.ItemRef;
+import com.example.examplemod.export.RecipeDraft;
+import com.mojang.logging.LogUtils;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.crafting.Ingredient;
+import net.minecraft.world.item.crafting.Recipe;
+import org.slf4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Frozen copy of what the editor reads from the game's registries: items in raw id order,
+ * fluids, item tags, recipe types with their inferred {@link SlotLayout}s and the recipes
+ * themselves as item ids.
+ * <p>
+ * Captured in game with {@code /recipeeditor snapshot} and loaded without one, so exports can be
+ * checked against a pack's real content from the headless exporter, and {@link RecipeUsageIndex},
+ * {@link RawMaterialCalculator} and {@link RecipeLoopDetector} can run in plain unit tests and
+ * benchmarks. Reading and querying a snapshot never touches the live registries.
+ * <p>
+ * File layout, gzip compressed: magic, format version, then the item, fluid, tag, recipe type
+ * and recipe tables, each count prefixed. Recipes refer to items by raw id and to their type by
+ * position in a table of the raw type IDs.
+ */
+public final class RegistrySnapshot {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final int MAGIC = 0x52455331; // "RES1"
+    public static final int FORMAT_VERSION = 1;
+
+    /**
+     * One recipe. {@code resultItem} is -1 if it reports no result; each ingredient lists the raw
+     * ids of every item it accepts.
+     */
+    public record RecipeEntry(String id, String type, int resultItem, int resultCount, int[][] ingredients) {
+    }
+
+    private final List<String> items;
+    private final Map<String, Integer> itemIds;
+    private final Set<String> fluids;
+    private final Map<String, int[]> itemTags;
+    private final Map<String, RecipeTypeCatalogueCache.CachedType> recipeTypes;
+    private final List<RecipeEntry> recipes;
+
+    RegistrySnapshot(List<String> items, Set<String> fluids, Map<String, int[]> itemTags,
+                     Map<String, RecipeTypeCatalogueCache.CachedType> recipeTypes, List<RecipeEntry> recipes) {
+        this.items = List.copyOf(items);
+        this.itemIds = new HashMap<>(items.size() * 2);
+        for (int i = 0; i < items.size(); i++) {
+            itemIds.putIfAbsent(items.get(i), i);
+        }
+        this.fluids = Collections.unmodifiableSet(fluids);
+        this.itemTags = Collections.unmodifiableMap(itemTags);
+        this.recipeTypes = Collections.unmodifiableMap(recipeTypes);
+        this.recipes = List.copyOf(recipes);
+    }
+
+    /**
+     * Copies the live registries and the given recipes. Run on the server thread.
+     */
+    public static RegistrySnapshot capture(Collection<Recipe<?>> recipes, RegistryAccess registryAccess) {
+        List<String> items = new ArrayList<>(BuiltInRegistries.ITEM.size());
+        for (int id = 0; id < BuiltInRegistries.ITEM.size(); id++) {
+            items.add(BuiltInRegistries.ITEM.getKey(BuiltInRegistries.ITEM.byId(id)).toString());
+        }
+
+        Set<String> fluids = new TreeSet<>();
+        BuiltInRegistries.FLUID.keySet().forEach(id -> fluids.add(id.toString()));
+
+        Map<String, int[]> itemTags = new TreeMap<>();
+        BuiltInRegistries.ITEM.getTags().forEach(tag -> itemTags.put(tag.getFirst().location().toString(),
+            tag.getSecond().stream().mapToInt(holder -> RecipeUsageIndex.itemId(holder.value())).toArray()));
+
+        Map<String, RecipeTypeCatalogueCache.CachedType> recipeTypes = new TreeMap<>();
+        RecipeTypeRegistry.summarize(recipes, registryAccess).forEach((type, summary) -> recipeTypes.put(type.toString(), summary));
+
+        List<RecipeEntry> entries = new ArrayList<>(recipes.size());
+        for (Recipe<?> recipe : recipes) {
+            ResourceLocation type = BuiltInRegistries.RECIPE_TYPE.getKey(recipe.getType());
+            if (type == null) {
+                // A type nobody registered has no ID to write, and nothing could be exported for it
+                LOGGER.debug("Leaving recipe {} of unregistered type {} out of the snapshot", recipe.getId(), recipe.getType());
+                continue;
+            }
+            int resultItem = -1;
+            int resultCount = 0;
+            int[][] ingredients = new int[0][];
+            try {
+                ItemStack result = recipe.getResultItem(registryAccess);
+                if (result != null && !result.isEmpty()) {
+                    resultItem = RecipeUsageIndex.itemId(result.getItem());
+                    resultCount = result.getCount();
+                }
+                List<Ingredient> recipeIngredients = recipe.getIngredients();
+                ingredients = new int[recipeIngredients.size()][];
+                for (int i = 0; i < ingredients.length; i++) {
+                    ItemStack[] choices = recipeIngredients.get(i).getItems();
+                    ingredients[i] = new int[choices.length];
+                    for (int choice = 0; choice < choices.length; choice++) {
+                        ingredients[i][choice] = RecipeUsageIndex.itemId(choices[choice].getItem());
+                    }
+                }
+            } catch (RuntimeException e) {
+                // Kept without result or ingredients, as the usage index does
+            }
+            entries.add(new RecipeEntry(recipe.getId().toString(), type.toString(), resultItem, resultCount, ingredients));
+        }
+        return new RegistrySnapshot(items, fluids, itemTags, recipeTypes, entries);
+    }
+
+    public void write(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        // A temporary file of its own, so concurrent snapshot commands never write into each other's
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(temp))))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+
+                writeStrings(out, items);
+                writeStrings(out, fluids);
+                out.writeInt(itemTags.size());
+                for (Map.Entry<String, int[]> tag : itemTags.entrySet()) {
+                    out.writeUTF(tag.getKey());
+                    writeInts(out, tag.getValue());
+                }
+                out.writeInt(recipeTypes.size());
+                for (Map.Entry<String, RecipeTypeCatalogueCache.CachedType> type : recipeTypes.entrySet()) {
+                    out.writeUTF(type.getKey());
+                    out.writeInt(type.getValue().recipeCount());
+                    SlotLayout layout = type.getValue().layout();
+                    out.writeByte(layout != null ? Math.min(layout.inputs(), 255) : 0);
+                    out.writeByte(layout != null ? Math.min(layout.outputs(), 255) : 0);
+                    out.writeByte(layout != null && layout.shaped() ? 1 : 0);
+                }
+
+                Map<String, Integer> typeIndices = new LinkedHashMap<>();
+                recipes.forEach(recipe -> typeIndices.putIfAbsent(recipe.type(), typeIndices.size()));
+                writeStrings(out, typeIndices.keySet());
+                out.writeInt(recipes.size());
+                for (RecipeEntry recipe : recipes) {
+                    out.writeUTF(recipe.id());
+                    out.writeInt(typeIndices.get(recipe.type()));
+                    out.writeInt(recipe.resultItem());
+                    out.writeInt(recipe.resultCount());
+                    out.writeInt(recipe.ingredients().length);
+                    for (int[] ingredient : recipe.ingredients()) {
+                        writeInts(out, ingredient);
+                    }
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Loads a snapshot written by {@link #write}.
+     *
+     * @throws IOException if the file can't be read, isn't a snapshot or has another format version
+     */
+    public static RegistrySnapshot read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " is not a registry snapshot");
+            }
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException(file + " has snapshot format " + version + ", expected " + FORMAT_VERSION);
+            }
+
+            List<String> items = readStrings(in);
+            Set<String> fluids = new TreeSet<>(readStrings(in));
+            int tagCount = in.readInt();
+            Map<String, int[]> itemTags = new TreeMap<>();
+            for (int i = 0; i < tagCount; i++) {
+                itemTags.put(in.readUTF(), readInts(in));
+            }
+            int typeCount = in.readInt();
+            Map<String, RecipeTypeCatalogueCache.CachedType> recipeTypes = new TreeMap<>();
+            for (int i = 0; i < typeCount; i++) {
+                String id = in.readUTF();
+                int recipeCount = in.readInt();
+                int inputs = in.readUnsignedByte();
+                int outputs = in.readUnsignedByte();
+                boolean shaped = in.readUnsignedByte() != 0;
+                SlotLayout layout = inputs > 0 && outputs > 0 ? new SlotLayout(inputs, outputs, shaped) : null;
+                recipeTypes.put(id, new RecipeTypeCatalogueCache.CachedType(recipeCount, layout));
+            }
+
+            List<String> types = readStrings(in);
+            int recipeCount = in.readInt();
+            List<RecipeEntry> recipes = new ArrayList<>(recipeCount);
+            for (int i = 0; i < recipeCount; i++) {
+                String id = in.readUTF();
+                String type = types.get(in.readInt());
+                int resultItem = in.readInt();
+                int resultCount = in.readInt();
+                int[][] ingredients = new int[in.readInt()][];
+                for (int ingredient = 0; ingredient < ingredients.length; ingredient++) {
+                    ingredients[ingredient] = readInts(in);
+                }
+                recipes.add(new RecipeEntry(id, type, resultItem, resultCount, ingredients));
+            }
+            return new RegistrySnapshot(items, fluids, itemTags, recipeTypes, recipes);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException(file + " is corrupt: " + e.getMessage(), e);
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, Collection<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<String> values = new ArrayList<>(Math.min(count, 1 << 16));
+        for (int i = 0; i < count; i++) {
+            values.add(in.readUTF());
+        }
+        return values;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int[] values = new int[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    /**
+     * Item IDs, indexed by raw id.
+     */
+    public List<String> items() {
+        return items;
+    }
+
+    /**
+     * Raw id of an item, or -1 if the snapshot has no such item.
+     */
+    public int itemId(String id) {
+        Integer itemId = itemIds.get(id);
+        return itemId != null ? itemId : -1;
+    }
+
+    public String itemKey(int itemId) {
+        return items.get(itemId);
+    }
+
+    public boolean hasFluid(String id) {
+        return fluids.contains(id);
+    }
+
+    /**
+     * Raw ids of the items in an item tag, given without the leading {@code #}.
+     */
+    public Optional<int[]> itemTag(String id) {
+        return Optional.ofNullable(itemTags.get(id));
+    }
+
+    /**
+     * Every recipe type the editor would offer, including the crafting subtypes.
+     */
+    public Set<String> recipeTypes() {
+        return recipeTypes.keySet();
+    }
+
+    public int recipeCount(String recipeType) {
+        RecipeTypeCatalogueCache.CachedType type = recipeTypes.get(recipeType);
+        return type != null ? type.recipeCount() : 0;
+    }
+
+    /**
+     * The slot layout the game would have inferred for a recipe type.
+     */
+    public Optional<SlotLayout> layout(String recipeType) {
+        RecipeTypeCatalogueCache.CachedType type = recipeTypes.get(recipeType);
+        return type != null ? Optional.ofNullable(type.layout()) : Optional.empty();
+    }
+
+    public List<RecipeEntry> recipes() {
+        return recipes;
+    }
+
+    /**
+     * Checks that a draft only uses a recipe type and items this snapshot has.
+     *
+     * @throws IllegalArgumentException naming the first unknown type or item
+     */
+    public void validate(RecipeDraft draft) {
+        if (!recipeTypes.containsKey(draft.type())) {
+            throw new IllegalArgumentException("Unknown recipe type " + draft.type());
+        }
+        validate(draft.inputs());
+        validate(draft.outputs());
+    }
+
+    private void validate(List<ItemRef> refs) {
+        for (ItemRef ref : refs) {
+            if (!ref.isEmpty() && itemId(ref.id()) < 0) {
+                throw new IllegalArgumentException("Unknown item " + ref.id());
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.examplemod.recipe;
+
+/**
+ * Editor slots a recipe type needs, inferred from its existing recipes: the most non-empty
+ * ingredients and results any sampled recipe has, and whether ingredients are laid out on a
+ * crafting grid.
+ */
+public record SlotLayout(int inputs, int outputs, boolean shaped) {
+
+    public SlotLayout {
+        if (inputs < 1 || outputs < 1) {
+            throw new IllegalArgumentException("A layout needs at least one input and one output slot");
+        }
+    }
+
+    /**
+     * The larger of two layouts in every dimension.
+     */
+    public SlotLayout union(SlotLayout other) {
+        return new SlotLayout(Math.max(inputs, other.inputs), Math.max(outputs, other.outputs), shaped || other.shaped);
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.examplemod.session;
+
+import com.example.examplemod.menu.RecipeEditorMenu;
+import com.example.examplemod.network.ModNetworking;
+import com.example.examplemod.network.SessionDeltaPacket;
+import com.example.examplemod.util.EditorMetrics;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.item.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A recipe draft shared by several players.
+ * <p>
+ * The server holds the authoritative slots. Edits are applied in the order the server thread
+ * handles them, each bumping the session revision, and are mirrored into the other members'
+ * open editor menus straight away. Their clients are told in batched {@link SessionDeltaPacket}s
+ * holding only the latest contents of each changed slot, sent at most once per broadcast interval.
+ * <p>
+ * Only accessed from the server thread.
+ */
+public class EditingSession {
+
+    private record PendingEdit(boolean output, int slot, ItemStack stack, UUID origin) {
+    }
+
+    private final String name;
+    private final Set<UUID> members = new LinkedHashSet<>();
+    private final ItemStack[] inputs = new ItemStack[RecipeEditorMenu.getMaxInputSlots()];
+    private final ItemStack[] outputs = new ItemStack[RecipeEditorMenu.getMaxOutputSlots()];
+    private String recipeType = "minecraft:crafting_shaped";
+    private long revision;
+
+    // Keyed by menu slot index, so repeated edits of one slot between broadcasts collapse
+    private final Map<Integer, PendingEdit> pending = new LinkedHashMap<>();
+    private UUID pendingTypeOrigin;
+    private int ticksSinceBroadcast = Integer.MAX_VALUE;
+
+    EditingSession(String name) {
+        this.name = name;
+        Arrays.fill(inputs, ItemStack.EMPTY);
+        Arrays.fill(outputs, ItemStack.EMPTY);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Set<UUID> getMembers() {
+        return Collections.unmodifiableSet(members);
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    void addMember(ServerPlayer player) {
+        members.add(player.getUUID());
+    }
+
+    void removeMember(ServerPlayer player) {
+        members.remove(player.getUUID());
+        if (player.containerMenu instanceof RecipeEditorMenu menu) {
+            menu.setSlotChangeListener(null);
+        }
+    }
+
+    boolean isEmpty() {
+        return members.isEmpty();
+    }
+
+    /**
+     * Hooks a member's freshly opened (or already open) editor into the session and brings it
+     * up to date with a snapshot.
+     */
+    void attach(ServerPlayer player, RecipeEditorMenu menu) {
+        UUID editor = player.getUUID();
+        menu.setSlotChangeListener((output, slot, stack, remote) -> {
+            if (!remote) {
+                onLocalEdit(player.server, editor, output, slot, stack);
+            }
+        });
+
+        if (revision == 0 && members.size() == 1) {
+            // The first member's draft becomes the shared one instead of being cleared
+            for (int slot = 0; slot < inputs.length; slot++) {
+                inputs[slot] = menu.getInputItems().getStackInSlot(slot).copy();
+            }
+            for (int slot = 0; slot < outputs.length; slot++) {
+                outputs[slot] = menu.getOutputItems().getStackInSlot(slot).copy();
+            }
+        }
+
+        List<SessionDeltaPacket.SlotDelta> slots = new ArrayList<>(inputs.length + outputs.length);
+        for (int slot = 0; slot < inputs.length; slot++) {
+            menu.applyRemoteSlot(false, slot, inputs[slot]);
+            slots.add(new SessionDeltaPacket.SlotDelta(false, slot, inputs[slot]));
+        }
+        for (int slot = 0; slot < outputs.length; slot++) {
+            menu.applyRemoteSlot(true, slot, outputs[slot]);
+            slots.add(new SessionDeltaPacket.SlotDelta(true, slot, outputs[slot]));
+        }
+        ModNetworking.sendToPlayer(player, new SessionDeltaPacket(name, revision, true, recipeType, slots));
+    }
+
+    private void onLocalEdit(MinecraftServer server, UUID editor, boolean output, int slot, ItemStack stack) {
+        ItemStack copy = stack.copy();
+        (output ? outputs : inputs)[slot] = copy;
+        revision++;
+
+        for (UUID member : members) {
+            if (member.equals(editor)) continue;
+            ServerPlayer player = server.getPlayerList().getPlayer(member);
+            if (player != null && player.containerMenu instanceof RecipeEditorMenu menu) {
+                menu.applyRemoteSlot(output, slot, copy);
+            }
+        }
+
+        PendingEdit previous = pending.put(RecipeEditorMenu.menuSlotIndex(output, slot),
+            new PendingEdit(output, slot, copy, editor));
+        if (previous != null) {
+            EditorMetrics.SESSION_EDITS_COALESCED.increment();
+        }
+    }
+
+    void onRecipeTypeChanged(ServerPlayer player, String type) {
+        if (type.equals(recipeType)) return;
+        recipeType = type;
+        revision++;
+        pendingTypeOrigin = player.getUUID();
+    }
+
+    /**
+     * Broadcasts pending edits if any, unless the last broadcast was less than
+     * {@code intervalTicks} ago.
+     */
+    void tick(MinecraftServer server, int intervalTicks) {
+        if (ticksSinceBroadcast < Integer.MAX_VALUE) {
+            ticksSinceBroadcast++;
+        }
+        if ((pending.isEmpty() && pendingTypeOrigin == null) || ticksSinceBroadcast < intervalTicks) return;
+        ticksSinceBroadcast = 0;
+
+        for (UUID member : members) {
+            ServerPlayer player = server.getPlayerList().getPlayer(member);
+            if (player == null || !(player.containerMenu instanceof RecipeEditorMenu)) continue;
+
+            // A member's own edits already reached their client through the regular container sync
+            List<SessionDeltaPacket.SlotDelta> slots = new ArrayList<>();
+            for (PendingEdit edit : pending.values()) {
+                if (!edit.origin().equals(member)) {
+                    slots.add(new SessionDeltaPacket.SlotDelta(edit.output(), edit.slot(), edit.stack()));
+                }
+            }
+            boolean typeChanged = pendingTypeOrigin != null && !pendingTypeOrigin.equals(member);
+            if (slots.isEmpty() && !typeChanged) continue;
+
+            ModNetworking.sendToPlayer(player, new SessionDeltaPacket(name, revision, false,
+                typeChanged ? recipeType : "", slots));
+            EditorMetrics.SESSION_DELTAS_SENT.add(slots.size());
+        }
+        pending.clear();
+        pendingTypeOrigin = null;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.examplemod.session;
+
+import com.example.examplemod.Config;
+import com.example.examplemod.ExampleMod;
+import com.example.examplemod.menu.RecipeEditorMenu;
+import com.example.examplemod.network.ModNetworking;
+import com.example.examplemod.network.SessionDeltaPacket;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Registry of the shared editing sessions on this server, joined with
+ * {@code /recipeeditor session join <name>}. Only accessed from the server thread.
+ */
+@Mod.EventBusSubscriber(modid = ExampleMod.MODID)
+public class EditingSessions {
+
+    private static final Map<String, EditingSession> SESSIONS = new LinkedHashMap<>();
+    private static final Map<UUID, EditingSession> BY_PLAYER = new HashMap<>();
+
+    private EditingSessions() {
+    }
+
+    /**
+     * Moves the player into the named session, creating it if needed, and syncs their editor if open.
+     */
+    public static EditingSession join(ServerPlayer player, String name) {
+        leave(player, false);
+        EditingSession session = SESSIONS.computeIfAbsent(name, EditingSession::new);
+        session.addMember(player);
+        BY_PLAYER.put(player.getUUID(), session);
+        if (player.containerMenu instanceof RecipeEditorMenu menu) {
+            session.attach(player, menu);
+        }
+        return session;
+    }
+
+    /**
+     * Removes the player from their session, discarding the session once it is empty.
+     *
+     * @return whether the player was in a session
+     */
+    public static boolean leave(ServerPlayer player) {
+        return leave(player, true);
+    }
+
+    private static boolean leave(ServerPlayer player, boolean notifyClient) {
+        EditingSession session = BY_PLAYER.remove(player.getUUID());
+        if (session == null) return false;
+
+        session.removeMember(player);
+        if (session.isEmpty()) {
+            SESSIONS.remove(session.getName());
+        }
+        if (notifyClient) {
+            ModNetworking.sendToPlayer(player, SessionDeltaPacket.left());
+        }
+        return true;
+    }
+
+    public static Collection<EditingSession> all() {
+        return Collections.unmodifiableCollection(SESSIONS.values());
+    }
+
+    /**
+     * Called whenever a player opens the editor, so session members start from the shared draft.
+     */
+    public static void onEditorOpened(ServerPlayer player, RecipeEditorMenu menu) {
+        EditingSession session = BY_PLAYER.get(player.getUUID());
+        if (session != null) {
+            session.attach(player, menu);
+        }
+    }
+
+    public static void onRecipeTypeChanged(ServerPlayer player, String recipeType) {
+        EditingSession session = BY_PLAYER.get(player.getUUID());
+        if (session != null) {
+            session.onRecipeTypeChanged(player, recipeType);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || SESSIONS.isEmpty()) return;
+
+        int interval = Config.sessionBroadcastIntervalTicks;
+        for (EditingSession session : SESSIONS.values()) {
+            session.tick(event.getServer(), interval);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+        if (event.getEntity() instanceof ServerPlayer player) {
+            leave(player, false);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        SESSIONS.clear();
+        BY_PLAYER.clear();
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.examplemod.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide counters and latency histograms for the recipe editor.
+ * Recording is lock-free so it can be called from the render, server and worker threads.
+ */
+public final class EditorMetrics {
+
+    private static final Map<String, Timer> TIMERS = new ConcurrentHashMap<>();
+    private static final Map<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+
+    public static final Timer SCRIPT_GENERATION = timer("script_generation");
+    public static final Timer FILE_WRITE = timer("file_write");
+    public static final Timer TYPE_SCAN = timer("type_scan");
+    public static final Timer PACKET_HANDLING = timer("packet_handling");
+    public static final Timer USAGE_INDEX_BUILD = timer("usage_index_build");
+    public static final Timer LOOP_ANALYSIS = timer("loop_analysis");
+    public static final Timer RAW_COST_QUERY = timer("raw_cost_query");
+    public static final Timer RECIPE_DIFF = timer("recipe_diff");
+
+    public static final Counter EXPORTS_SUCCEEDED = counter("exports_succeeded");
+    public static final Counter EXPORTS_FAILED = counter("exports_failed");
+    public static final Counter FILES_WRITTEN = counter("files_written");
+    public static final Counter FILES_UNCHANGED = counter("files_unchanged");
+    public static final Counter PACKETS_RATE_LIMITED = counter("packets_rate_limited");
+    public static final Counter PACKETS_COALESCED = counter("packets_coalesced");
+    public static final Counter PACKETS_DENIED = counter("packets_denied");
+    public static final Counter SESSION_DELTAS_SENT = counter("session_deltas_sent");
+    public static final Counter SESSION_EDITS_COALESCED = counter("session_edits_coalesced");
+    public static final Counter SCRIPTS_REINDEXED = counter("scripts_reindexed");
+    public static final Counter TYPE_CACHE_HITS = counter("type_cache_hits");
+    public static final Counter TYPE_CACHE_MISSES = counter("type_cache_misses");
+    public static final Counter JOURNAL_RECORDS = counter("journal_records");
+    public static final Counter JOURNAL_COMMITS = counter("journal_commits");
+    public static final Counter JOURNAL_REPLAYED = counter("journal_replayed");
+
+    private EditorMetrics() {
+    }
+
+    /**
+     * Gets or creates the timer with the given name.
+     */
+    public static Timer timer(String name) {
+        return TIMERS.computeIfAbsent(name, Timer::new);
+    }
+
+    /**
+     * Gets or creates the counter with the given name.
+     */
+    public static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, Counter::new);
+    }
+
+    /**
+     * One human-readable line per metric, timers first, both sorted by name.
+     */
+    public static List<String> report() {
+        List<String> lines = new ArrayList<>();
+        TIMERS.values().stream()
+            .sorted((a, b) -> a.name.compareTo(b.name))
+            .forEach(timer -> lines.add(timer.describe()));
+        COUNTERS.values().stream()
+            .sorted((a, b) -> a.name.compareTo(b.name))
+            .forEach(counter -> lines.add(counter.name + ": " + counter.get()));
+        return lines;
+    }
+
+    /**
+     * Writes the current report to the given file, replacing any previous dump.
+     */
+    public static void dump(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("# Recipe editor metrics at " + Instant.now());
+        lines.addAll(report());
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Monotonic event counter.
+     */
+    public static final class Counter {
+        private final String name;
+        private final LongAdder value = new LongAdder();
+
+        private Counter(String name) {
+            this.name = name;
+        }
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+    }
+
+    /**
+     * Latency histogram with power-of-two microsecond buckets.
+     * Usage: {@code long start = TIMER.start(); ... TIMER.stop(start);}
+     */
+    public static final class Timer {
+        private static final int BUCKETS = 32;
+
+        private final String name;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+        private Timer(String name) {
+            this.name = name;
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        public long start() {
+            return System.nanoTime();
+        }
+
+        /**
+         * Records the time elapsed since {@code startNanos} and returns it.
+         */
+        public long stop(long startNanos) {
+            long elapsed = System.nanoTime() - startNanos;
+            record(elapsed);
+            return elapsed;
+        }
+
+        public void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            long micros = nanos / 1_000;
+            int bucket = micros <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+            buckets[bucket].increment();
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Upper bound, in nanoseconds, of the bucket containing the given percentile (0-100).
+         */
+        public long percentileUpperBound(double percentile) {
+            long total = count.sum();
+            if (total == 0) return 0;
+            long threshold = (long) Math.ceil(total * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets[i].sum();
+                if (seen >= threshold) {
+                    return (1L << i) * 1_000L;
+                }
+            }
+            return maxNanos.get();
+        }
+
+        private String describe() {
+            long samples = count.sum();
+            if (samples == 0) {
+                return name + ": no samples";
+            }
+            return String.format(Locale.ROOT, "%s: count=%d mean=%.3fms p50<=%.3fms p99<=%.3fms max=%.3fms",
+                name, samples,
+                totalNanos.sum() / (double) samples / 1_000_000.0,
+                percentileUpperBound(50) / 1_000_000.0,
+                percentileUpperBound(99) / 1_000_000.0,
+                maxNanos.get() / 1_000_000.0);
+        }
+    }
+}
@@ -1,318 +1,259 @@
 package com.example.examplemod.util;
 
-import net.minecraft.world.item.ItemStack;
-import net.minecraftforge.items.ItemStackHandler;
-import net.minecraft.core.registries.BuiltInRegistries;
-import net.minecraft.resources.ResourceLocation;
+import com.example.examplemod.Config;
+import com.example.examplemod.export.ExportAction;
+import com.example.examplemod.export.ExportException;
+import com.example.examplemod.export.ExportSettings;
+import com.example.examplemod.export.ExportWriter;
+import com.example.examplemod.export.RecipeDraft;
+import com.example.examplemod.export.RecipeSchema;
+import com.example.examplemod.export.ScriptRenderer;
+import com.example.examplemod.export.WriteResult;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.mojang.logging.LogUtils;
+import org.slf4j.Logger;
 
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 
 /**
- * Utility class for generating and exporting KubeJS recipe scripts.
+ * Utility class for generating and exporting KubeJS recipe scripts, or plain datapack recipe
+ * JSON when the datapack output format is configured.
  */
 public class KubeJSExporter {
 
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+
+    // Template expansions are generated in chunks; chunks of large expansions are generated in parallel
+    private static final int TEMPLATE_CHUNK_SIZE = 256;
+    private static final int TEMPLATE_PARALLEL_THRESHOLD = 64;
+
     /**
-     * Generates a KubeJS recipe script from the given parameters.
+     * Generates a complete KubeJS recipe script for a draft.
      */
-    public static String generateRecipeScript(String recipeType, String recipeId,
-                                               ItemStackHandler inputs, ItemStackHandler outputs,
-                                               int activeInputSlots, int activeOutputSlots) {
+    public static String generateRecipeScript(RecipeDraft draft, String recipeId) {
+        return wrapScript(generateRecipeBody(draft, recipeId, Config.exportSettings));
+    }
+
+    /**
+     * Wraps recipe bodies into a complete server script.
+     */
+    public static String wrapScript(String body) {
         StringBuilder script = new StringBuilder();
 
         script.append("// Generated by Recipe Editor GUI\n");
         script.append("ServerEvents.recipes(event => {\n");
-        script.append("  event.custom({\n");
-        script.append("    type: \"").append(recipeType).append("\",\n");
-
-        // Handle different recipe types
-        String lowerType = recipeType.toLowerCase();
-
-        if (lowerType.contains("shaped") || lowerType.contains("crafting_shaped")) {
-            generateShapedCrafting(script, inputs, outputs, activeInputSlots, activeOutputSlots);
-        } else if (lowerType.contains("shapeless") || lowerType.contains("crafting_shapeless")) {
-            generateShapelessCrafting(script, recipeType, inputs, outputs, activeInputSlots, activeOutputSlots);
-        } else if (lowerType.contains("smelting") || lowerType.contains("blasting") ||
-                   lowerType.contains("smoking") || lowerType.contains("campfire")) {
-            generateSmeltingRecipe(script, inputs, outputs, recipeType);
-        } else if (lowerType.contains("stonecutting")) {
-            generateStonecuttingRecipe(script, inputs, outputs);
-        } else if (lowerType.contains("smithing")) {
-            generateSmithingRecipe(script, inputs, outputs);
-        } else {
-            // Generic recipe format
-            generateGenericRecipe(script, inputs, outputs, activeInputSlots, activeOutputSlots);
-        }
-
-        script.append("  }).id(\"kubejs:").append(recipeId).append("\");\n");
+        script.append(body);
         script.append("});\n");
 
         return script.toString();
     }
 
-    private static void generateShapedCrafting(StringBuilder script, ItemStackHandler inputs,
-                                                ItemStackHandler outputs, int activeInputSlots, int activeOutputSlots) {
-        script.append("        pattern: [\n");
-
-        // Generate 3x3 pattern
-        for (int row = 0; row < 3; row++) {
-            script.append("            \"");
-            for (int col = 0; col < 3; col++) {
-                int index = row * 3 + col;
-                ItemStack stack = inputs.getStackInSlot(index);
-                if (!stack.isEmpty()) {
-                    script.append((char) ('A' + index));
-                } else {
-                    script.append(' ');
-                }
-            }
-            script.append("\"");
-            if (row < 2) script.append(",");
-            script.append("\n");
-        }
-        script.append("        ],\n");
-
-        script.append("        key: {\n");
-        for (int i = 0; i < 9; i++) {
-            ItemStack stack = inputs.getStackInSlot(i);
-            if (!stack.isEmpty()) {
-                String itemId = getItemId(stack);
-                script.append("            \"").append((char) ('A' + i)).append("\": { item: \"")
-                      .append(itemId).append("\" }");
-
-                // Add comma if not last
-                boolean hasMore = false;
-                for (int j = i + 1; j < 9; j++) {
-                    if (!inputs.getStackInSlot(j).isEmpty()) {
-                        hasMore = true;
-                        break;
-                    }
-                }
-                if (hasMore) script.append(",");
-                script.append("\n");
-            }
-        }
-        script.append("        },\n");
-
-        // Add result
-        if (activeOutputSlots > 0 && !outputs.getStackInSlot(0).isEmpty()) {
-            ItemStack result = outputs.getStackInSlot(0);
-            String itemId = getItemId(result);
-            script.append("        result: { item: \"").append(itemId).append("\"");
-            if (result.getCount() > 1) {
-                script.append(", count: ").append(result.getCount());
-            }
-            script.append(" }\n");
-        }
+    /**
+     * Generates the {@code event.custom(...)} statement for a single recipe, without the
+     * surrounding {@code ServerEvents.recipes} callback, so it can be combined with others.
+     * Doesn't touch the game's registries, so it can run on any thread and headless.
+     */
+    public static String generateRecipeBody(RecipeDraft draft, String recipeId, ExportSettings settings) {
+        long start = EditorMetrics.SCRIPT_GENERATION.start();
+        JsonObject recipe = RecipeSchema.build(draft, settings);
+        String body = settings.scriptStyle() == ExportSettings.ScriptStyle.MINIFIED
+            ? ScriptRenderer.renderMinified(List.of(recipeId), List.of(recipe))
+            : ScriptRenderer.renderCustom(recipe, recipeId);
+        EditorMetrics.SCRIPT_GENERATION.stop(start);
+        return body;
     }
 
-    private static void generateShapelessCrafting(StringBuilder script, String recipeType, ItemStackHandler inputs,
-                                                   ItemStackHandler outputs, int activeInputSlots, int activeOutputSlots) {
-        script.append("    ingredients: [\n");
-
-        for (int i = 0; i < activeInputSlots; i++) {
-            ItemStack stack = inputs.getStackInSlot(i);
-            if (!stack.isEmpty()) {
-                String itemId = getItemId(stack);
-                script.append("      { item: \"").append(itemId).append("\" }");
-
-                // Check if there are more items
-                boolean hasMore = false;
-                for (int j = i + 1; j < activeInputSlots; j++) {
-                    if (!inputs.getStackInSlot(j).isEmpty()) {
-                        hasMore = true;
-                        break;
-                    }
-                }
-                if (hasMore) script.append(",");
-                script.append("\n");
+    /**
+     * Generates the statements of several recipes as one piece. In the minified style, strings
+     * repeated anywhere among these recipes are shared, so larger groups give smaller output.
+     */
+    public static String generateRecipeBodies(List<String> recipeIds, List<RecipeDraft> drafts, ExportSettings settings) {
+        if (settings.scriptStyle() != ExportSettings.ScriptStyle.MINIFIED) {
+            StringBuilder bodies = new StringBuilder();
+            for (int i = 0; i < drafts.size(); i++) {
+                bodies.append(generateRecipeBody(drafts.get(i), recipeIds.get(i), settings));
             }
+            return bodies.toString();
         }
-        script.append("    ],\n");
 
-        // Add result
-        if (activeOutputSlots > 0 && !outputs.getStackInSlot(0).isEmpty()) {
-            ItemStack result = outputs.getStackInSlot(0);
-            String itemId = getItemId(result);
-            boolean isCraftingTableRecipe = recipeType.toLowerCase().contains("crafting");
-
-            if (isCraftingTableRecipe) {
-                script.append("    result: { item: \"").append(itemId).append("\"");
-                if (result.getCount() > 1) {
-                    script.append(", count: ").append(result.getCount());
-                }
-                script.append(" }\n");
-            } else {
-                script.append("    results: [\n");
-                script.append("      { item: \"").append(itemId).append("\"");
-                if (result.getCount() > 1) {
-                    script.append(", count: ").append(result.getCount());
-                }
-                script.append(" }");
-                script.append("\n    ]\n");
-            }
+        long start = EditorMetrics.SCRIPT_GENERATION.start();
+        IntStream indices = IntStream.range(0, drafts.size());
+        if (drafts.size() >= TEMPLATE_PARALLEL_THRESHOLD) {
+            indices = indices.parallel();
         }
+        List<JsonObject> recipes = indices.mapToObj(i -> RecipeSchema.build(drafts.get(i), settings)).toList();
+        String bodies = ScriptRenderer.renderMinified(recipeIds, recipes);
+        EditorMetrics.SCRIPT_GENERATION.stop(start);
+        return bodies;
     }
 
-    private static void generateSmeltingRecipe(StringBuilder script, ItemStackHandler inputs,
-                                                ItemStackHandler outputs, String recipeType) {
-        if (!inputs.getStackInSlot(0).isEmpty()) {
-            String itemId = getItemId(inputs.getStackInSlot(0));
-            script.append("        ingredient: { item: '").append(itemId).append("' },\n");
-        }
-
-        if (!outputs.getStackInSlot(0).isEmpty()) {
-            String itemId = getItemId(outputs.getStackInSlot(0));
-            script.append("        result: '").append(itemId).append("',\n");
-        }
-
-        // Add experience and cooking time defaults
-        script.append("        experience: 0.1,\n");
-
-        if (recipeType.contains("blasting")) {
-            script.append("        cookingtime: 100\n");
-        } else if (recipeType.contains("smoking")) {
-            script.append("        cookingtime: 100\n");
-        } else if (recipeType.contains("campfire")) {
-            script.append("        cookingtime: 600\n");
-        } else {
-            script.append("        cookingtime: 200\n");
-        }
+    /**
+     * Generates the recipe as a datapack recipe JSON document.
+     */
+    public static String generateRecipeJson(RecipeDraft draft, ExportSettings settings) {
+        long start = EditorMetrics.SCRIPT_GENERATION.start();
+        String json = GSON.toJson(RecipeSchema.build(draft, settings));
+        EditorMetrics.SCRIPT_GENERATION.stop(start);
+        return json;
     }
 
-    private static void generateStonecuttingRecipe(StringBuilder script, ItemStackHandler inputs,
-                                                     ItemStackHandler outputs) {
-        if (!inputs.getStackInSlot(0).isEmpty()) {
-            String itemId = getItemId(inputs.getStackInSlot(0));
-            script.append("        ingredient: { item: '").append(itemId).append("' },\n");
-        }
+    /**
+     * Generates the recipe and hands it to the export writer using the configured output mode.
+     * The future completes once the file is on disk, or is known to be up to date already.
+     */
+    public static CompletableFuture<WriteResult> export(RecipeDraft draft, String recipeId) {
+        return export(draft, recipeId, Config.exportSettings);
+    }
 
-        if (!outputs.getStackInSlot(0).isEmpty()) {
-            ItemStack result = outputs.getStackInSlot(0);
-            String itemId = getItemId(result);
-            script.append("        result: '").append(itemId).append("',\n");
-            script.append("        count: ").append(result.getCount()).append("\n");
-        }
+    /**
+     * Same as {@link #export(RecipeDraft, String)} with explicit settings instead of the config.
+     */
+    public static CompletableFuture<WriteResult> export(RecipeDraft draft, String recipeId, ExportSettings settings) {
+        return export(draft, recipeId, ExportAction.ADD, null, settings);
     }
 
-    private static void generateSmithingRecipe(StringBuilder script, ItemStackHandler inputs,
-                                                ItemStackHandler outputs) {
-        script.append("        base: ");
-        if (!inputs.getStackInSlot(1).isEmpty()) {
-            String itemId = getItemId(inputs.getStackInSlot(1));
-            script.append("{ item: '").append(itemId).append("' }");
-        } else {
-            script.append("{ item: 'minecraft:air' }");
-        }
-        script.append(",\n");
+    /**
+     * Exports the draft as {@code recipeId} and/or removes the existing recipe {@code replacedId},
+     * depending on {@code action}. Scripts remove with {@code event.remove}; datapacks shadow the
+     * removed recipe with one that is never loaded.
+     *
+     * @throws IllegalArgumentException if the action removes a recipe but no {@code replacedId} is given
+     */
+    public static CompletableFuture<WriteResult> export(RecipeDraft draft, String recipeId, ExportAction action,
+                                                        String replacedId, ExportSettings settings) {
+        return export(draft, recipeId, action, replacedId, ExportWriter.forSettings(settings));
+    }
 
-        script.append("        addition: ");
-        if (!inputs.getStackInSlot(2).isEmpty()) {
-            String itemId = getItemId(inputs.getStackInSlot(2));
-            script.append("{ item: '").append(itemId).append("' }");
-        } else {
-            script.append("{ item: 'minecraft:air' }");
+    /**
+     * Same as {@link #export(RecipeDraft, String, ExportAction, String, ExportSettings)} through the
+     * given writer, using its settings.
+     */
+    public static CompletableFuture<WriteResult> export(RecipeDraft draft, String recipeId, ExportAction action,
+                                                        String replacedId, ExportWriter writer) {
+        if (action.removes() && (replacedId == null || replacedId.isEmpty())) {
+            throw new IllegalArgumentException(action + " needs the ID of the recipe to remove");
         }
-        script.append(",\n");
-
-        script.append("        template: ");
-        if (!inputs.getStackInSlot(0).isEmpty()) {
-            String itemId = getItemId(inputs.getStackInSlot(0));
-            script.append("{ item: '").append(itemId).append("' }");
+        ExportSettings settings = writer.getSettings();
+
+        CompletableFuture<WriteResult> written;
+        if (settings.outputFormat() == ExportSettings.OutputFormat.DATAPACK_JSON) {
+            // Datapacks have no batching: every recipe is its own JSON file
+            String json = action.adds() ? generateRecipeJson(draft, settings) : null;
+            written = writer.submitTask(() -> {
+                WriteResult removed = action.removes()
+                    ? writer.writeDatapackOverride(replacedId, GSON.toJson(RecipeSchema.removal())) : null;
+                if (json == null) return removed;
+                WriteResult added = writer.writeDatapackRecipe(recipeId, json);
+                return removed == null ? added : added.plus(removed);
+            });
+        } else if (settings.outputMode() == ExportSettings.OutputMode.BATCHED) {
+            written = writer.submitBatched(recipeId,
+                action.adds() ? generateRecipeBody(draft, recipeId, settings) : null,
+                action.removes() ? replacedId : null);
         } else {
-            script.append("{ item: 'minecraft:air' }");
+            String body = action.adds() ? generateRecipeBody(draft, recipeId, settings) : "";
+            if (action.removes()) {
+                body = ScriptRenderer.renderRemove(List.of(replacedId)) + body;
+            }
+            written = writer.submitFile(recipeId, wrapScript(body));
         }
-        script.append(",\n");
 
-        if (!outputs.getStackInSlot(0).isEmpty()) {
-            String itemId = getItemId(outputs.getStackInSlot(0));
-            script.append("        result: { item: '").append(itemId).append("' }\n");
-        }
+        return written.whenComplete((result, error) -> {
+            if (error != null) {
+                EditorMetrics.EXPORTS_FAILED.increment();
+                LOGGER.error("Failed to export recipe {}", recipeId, error);
+            } else {
+                EditorMetrics.EXPORTS_SUCCEEDED.increment();
+                LOGGER.info("Recipe {} exported to {}{}", recipeId, result.path().toAbsolutePath(),
+                    result.isUnchanged() ? " (unchanged)" : "");
+            }
+        });
     }
 
-    private static void generateGenericRecipe(StringBuilder script, ItemStackHandler inputs,
-                                               ItemStackHandler outputs, int activeInputSlots, int activeOutputSlots) {
-        script.append("    ingredients: [\n");
-
-        for (int i = 0; i < activeInputSlots; i++) {
-            ItemStack stack = inputs.getStackInSlot(i);
-            if (!stack.isEmpty()) {
-                String itemId = getItemId(stack);
-                script.append("      { item: \"").append(itemId).append("\" }");
-
-                boolean hasMore = false;
-                for (int j = i + 1; j < activeInputSlots; j++) {
-                    if (!inputs.getStackInSlot(j).isEmpty()) {
-                        hasMore = true;
-                        break;
-                    }
-                }
-                if (hasMore) script.append(",");
-                script.append("\n");
-            }
+    /**
+     * Expands a template over the current recipe and streams every resulting recipe into a single
+     * script named after {@code recipeId}.
+     *
+     * @throws IllegalArgumentException if the template doesn't match any slot of the recipe
+     */
+    public static CompletableFuture<RecipeTemplate.Result> exportTemplate(RecipeDraft draft, String recipeId,
+                                                                       RecipeTemplate template) {
+        ExportSettings settings = Config.exportSettings;
+        RecipeTemplate.Binding binding = template.bind(draft);
+
+        ExportWriter exportWriter = ExportWriter.forSettings(settings);
+        CompletableFuture<WriteResult> written;
+        if (settings.outputFormat() == ExportSettings.OutputFormat.DATAPACK_JSON) {
+            written = exportWriter.submitTask(() -> {
+                int[] counts = new int[2];
+                forEachTemplateChunk(binding.size(), chunk -> chunk
+                    .mapToObj(i -> generateRecipeJson(binding.draftFor(i), settings))
+                    .toList(), (i, json) -> {
+                        WriteResult result = exportWriter.writeDatapackRecipe(binding.recipeId(recipeId, i), json);
+                        counts[0] += result.written();
+                        counts[1] += result.unchanged();
+                    });
+                return new WriteResult(settings.datapackRecipesPath(), counts[0], counts[1]);
+            });
+        } else if (settings.scriptStyle() == ExportSettings.ScriptStyle.MINIFIED) {
+            // Rendered a chunk at a time so the chunk's recipes share hoisted constants
+            written = exportWriter.submitStream(recipeId + ".js", writer ->
+                forEachTemplateChunk(binding.size(), chunk -> {
+                    List<Integer> indices = chunk.sequential().boxed().toList();
+                    return List.of(generateRecipeBodies(
+                        indices.stream().map(i -> binding.recipeId(recipeId, i)).toList(),
+                        indices.stream().map(binding::draftFor).toList(),
+                        settings));
+                }, (i, body) -> writer.write(body)));
+        } else {
+            written = exportWriter.submitStream(recipeId + ".js", writer ->
+                forEachTemplateChunk(binding.size(), chunk -> chunk
+                    .mapToObj(i -> generateRecipeBody(binding.draftFor(i), binding.recipeId(recipeId, i), settings))
+                    .toList(), (i, body) -> writer.write(body)));
         }
-        script.append("    ],\n");
 
-        // Add outputs
-        script.append("    results: [\n");
-        for (int i = 0; i < activeOutputSlots; i++) {
-            ItemStack stack = outputs.getStackInSlot(i);
-            if (!stack.isEmpty()) {
-                String itemId = getItemId(stack);
-                script.append("      { item: \"").append(itemId).append("\",count: 1 }");
-
-                boolean hasMore = false;
-                for (int j = i + 1; j < activeOutputSlots; j++) {
-                    if (!outputs.getStackInSlot(j).isEmpty()) {
-                        hasMore = true;
-                        break;
-                    }
-                }
-                if (hasMore) script.append(",");
-                script.append("\n");
+        return written.handle((files, error) -> {
+            if (error != null) {
+                EditorMetrics.EXPORTS_FAILED.increment();
+                LOGGER.error("Failed to export template {}", recipeId, error);
+                throw new ExportException("Failed to export template " + recipeId, error);
             }
-        }
-        script.append("    ]\n");
+            EditorMetrics.EXPORTS_SUCCEEDED.add(binding.size());
+            LOGGER.info("Template {} expanded to {} recipes ({} skipped) in {}, {} files written, {} unchanged",
+                recipeId, binding.size(), binding.getSkipped(), files.path().toAbsolutePath(),
+                files.written(), files.unchanged());
+            return new RecipeTemplate.Result(files, binding.size(), binding.getSkipped());
+        });
     }
 
-    private static String getItemId(ItemStack stack) {
-        ResourceLocation id = BuiltInRegistries.ITEM.getKey(stack.getItem());
-        return id.toString();
+    @FunctionalInterface
+    private interface ChunkConsumer {
+        void accept(int index, String generated) throws IOException;
     }
 
     /**
-     * Exports the script to a file in the kubejs/server_scripts directory.
+     * Generates {@code total} outputs in chunks, in parallel for large expansions, and hands them
+     * to {@code consumer} in order so only one chunk is ever held in memory.
      */
-    public static boolean exportToFile(String script, String recipeId) {
-        try {
-            // Get the game directory
-            File gameDir = new File(".");
-            File kubeJSDir = new File(gameDir, "kubejs");
-            File serverScriptsDir = new File(kubeJSDir, "server_scripts");
-
-            // Create directories if they don't exist
-            if (!serverScriptsDir.exists()) {
-                serverScriptsDir.mkdirs();
+    private static void forEachTemplateChunk(int total, Function<IntStream, List<String>> generator,
+                                             ChunkConsumer consumer) throws IOException {
+        for (int chunkStart = 0; chunkStart < total; chunkStart += TEMPLATE_CHUNK_SIZE) {
+            IntStream chunk = IntStream.range(chunkStart, Math.min(total, chunkStart + TEMPLATE_CHUNK_SIZE));
+            if (total >= TEMPLATE_PARALLEL_THRESHOLD) {
+                chunk = chunk.parallel();
             }
-
-            // Write the script file
-            File scriptFile = new File(serverScriptsDir, recipeId + ".js");
-            try (FileWriter writer = new FileWriter(scriptFile)) {
-                writer.write(script);
+            List<String> generated = generator.apply(chunk);
+            for (int i = 0; i < generated.size(); i++) {
+                consumer.accept(chunkStart + i, generated.get(i));
             }
-
-            System.out.println("Recipe exported to: " + scriptFile.getAbsolutePath());
-            return true;
-
-        } catch (IOException e) {
-            System.err.println("Failed to export recipe: " + e.getMessage());
-            e.printStackTrace();
-            return false;
         }
     }
 }
@@ -0,0 +1,211 @@
+package com.example.examplemod.util;
+
+import com.example.examplemod.export.ItemRef;
+import com.example.examplemod.export.RecipeDraft;
+import com.example.examplemod.export.WriteResult;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.tags.TagKey;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Expands one hand-built recipe into many by substituting a template variable.
+ * <p>
+ * The variable is bound either to a comma separated list of materials ({@code iron, gold, copper})
+ * or to an item tag ({@code #forge:ingots}). With a material list, the editor recipe is built for
+ * the first material and every slot whose item path contains it becomes a placeholder, so
+ * {@code iron_ingot -> iron_plate} expands to {@code gold_ingot -> gold_plate} and so on.
+ * With a tag, every slot holding a member of the tag is replaced by each member in turn.
+ */
+public class RecipeTemplate {
+
+    private static final Pattern VALUE_SEPARATOR = Pattern.compile("\\s*,\\s*");
+    private static final Pattern INVALID_ID_CHARS = Pattern.compile("[^a-z0-9_./-]");
+
+    private final List<String> values;
+    private final boolean itemBinding;
+
+    private RecipeTemplate(List<String> values, boolean itemBinding) {
+        this.values = values;
+        this.itemBinding = itemBinding;
+    }
+
+    /**
+     * Parses a template binding as typed into the editor.
+     *
+     * @throws IllegalArgumentException if the binding is empty or names an invalid tag
+     */
+    public static RecipeTemplate parse(String binding) {
+        String trimmed = binding.trim();
+        if (trimmed.startsWith("#")) {
+            ResourceLocation tagId = ResourceLocation.tryParse(trimmed.substring(1));
+            if (tagId == null) {
+                throw new IllegalArgumentException("Invalid tag " + trimmed);
+            }
+            List<String> items = new ArrayList<>();
+            BuiltInRegistries.ITEM.getTagOrEmpty(TagKey.create(Registries.ITEM, tagId))
+                .forEach(holder -> items.add(BuiltInRegistries.ITEM.getKey(holder.value()).toString()));
+            if (items.isEmpty()) {
+                throw new IllegalArgumentException("Tag " + trimmed + " has no items");
+            }
+            return new RecipeTemplate(List.copyOf(items), true);
+        }
+
+        List<String> materials = Arrays.stream(VALUE_SEPARATOR.split(trimmed))
+            .filter(value -> !value.isEmpty())
+            .distinct()
+            .toList();
+        if (materials.isEmpty()) {
+            throw new IllegalArgumentException("Template binding is empty");
+        }
+        return new RecipeTemplate(materials, false);
+    }
+
+    /**
+     * Finds the placeholder slots in the given recipe and resolves every value of the template
+     * against the item registry. Values whose substituted items don't exist are skipped.
+     *
+     * @throws IllegalArgumentException if no slot matches the template
+     */
+    public Binding bind(RecipeDraft draft) {
+        String[] inputPatterns = placeholders(draft.inputs());
+        String[] outputPatterns = placeholders(draft.outputs());
+        if (Arrays.stream(inputPatterns).allMatch(Objects::isNull)
+            && Arrays.stream(outputPatterns).allMatch(Objects::isNull)) {
+            throw new IllegalArgumentException(itemBinding
+                ? "No slot holds an item from the template tag"
+                : "No slot item contains \"" + values.get(0) + "\"");
+        }
+
+        List<String> resolved = new ArrayList<>(values.size());
+        for (String value : values) {
+            if (allExist(inputPatterns, value) && allExist(outputPatterns, value)) {
+                resolved.add(value);
+            }
+        }
+        return new Binding(draft, inputPatterns, outputPatterns, resolved, values.size() - resolved.size());
+    }
+
+    private String[] placeholders(List<ItemRef> slots) {
+        String[] patterns = new String[slots.size()];
+        for (int slot = 0; slot < patterns.length; slot++) {
+            ItemRef stack = slots.get(slot);
+            if (stack.isEmpty()) continue;
+
+            ResourceLocation id = new ResourceLocation(stack.id());
+            if (itemBinding) {
+                if (values.contains(id.toString())) {
+                    patterns[slot] = "{}";
+                }
+            } else if (id.getPath().contains(values.get(0))) {
+                patterns[slot] = id.getNamespace() + ":" + id.getPath().replace(values.get(0), "{}");
+            }
+        }
+        return patterns;
+    }
+
+    private static boolean allExist(String[] patterns, String value) {
+        for (String pattern : patterns) {
+            if (pattern == null) continue;
+            ResourceLocation id = ResourceLocation.tryParse(pattern.replace("{}", value));
+            if (id == null || !BuiltInRegistries.ITEM.containsKey(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A template resolved against a concrete recipe. Expansion only reads the immutable draft
+     * it was bound to, so it is safe to run on worker threads.
+     */
+    public static class Binding {
+        private final RecipeDraft draft;
+        private final String[] inputPatterns;
+        private final String[] outputPatterns;
+        private final List<String> values;
+        private final List<String> idSuffixes;
+        private final int skipped;
+
+        private Binding(RecipeDraft draft, String[] inputPatterns, String[] outputPatterns,
+                        List<String> values, int skipped) {
+            this.draft = draft;
+            this.inputPatterns = inputPatterns;
+            this.outputPatterns = outputPatterns;
+            this.values = values;
+            this.idSuffixes = idSuffixes(values);
+            this.skipped = skipped;
+        }
+
+        /**
+         * One ID suffix per value. Item values keep their namespace, as a tag often holds the same
+         * path from several mods; suffixes that still clash get a counter so no expansion
+         * overwrites another.
+         */
+        private static List<String> idSuffixes(List<String> values) {
+            List<String> suffixes = new ArrayList<>(values.size());
+            Set<String> used = new HashSet<>();
+            for (String value : values) {
+                String base = INVALID_ID_CHARS.matcher(value.toLowerCase(Locale.ROOT).replace(':', '_')).replaceAll("_");
+                String suffix = base;
+                for (int n = 2; !used.add(suffix); n++) {
+                    suffix = base + "_" + n;
+                }
+                suffixes.add(suffix);
+            }
+            return suffixes;
+        }
+
+        public int size() {
+            return values.size();
+        }
+
+        /**
+         * Number of template values dropped because a substituted item doesn't exist.
+         */
+        public int getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * Recipe ID for the i-th expansion, derived from the base ID and the template value.
+         */
+        public String recipeId(String baseId, int index) {
+            return baseId + "_" + idSuffixes.get(index);
+        }
+
+        /**
+         * The bound recipe with the i-th template value substituted into every placeholder slot.
+         */
+        public RecipeDraft draftFor(int index) {
+            String value = values.get(index);
+            return new RecipeDraft(draft.type(), substitute(draft.inputs(), inputPatterns, value),
+                substitute(draft.outputs(), outputPatterns, value), draft.extras());
+        }
+
+        private static List<ItemRef> substitute(List<ItemRef> source, String[] patterns, String value) {
+            List<ItemRef> substituted = new ArrayList<>(source.size());
+            for (int slot = 0; slot < patterns.length; slot++) {
+                ItemRef original = source.get(slot);
+                substituted.add(patterns[slot] == null ? original
+                    : new ItemRef(patterns[slot].replace("{}", value), original.count()));
+            }
+            return substituted;
+        }
+    }
+
+    /**
+     * Outcome of a template export.
+     */
+    public record Result(WriteResult files, int recipes, int skipped) {
+    }
+}
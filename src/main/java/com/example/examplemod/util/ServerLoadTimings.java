@@ -0,0 +1,52 @@
+package com.example.examplemod.util;
+
+import com.example.examplemod.ExampleMod;
+import com.mojang.logging.LogUtils;
+import net.minecraftforge.event.AddReloadListenerEvent;
+import net.minecraftforge.event.OnDatapackSyncEvent;
+import net.minecraftforge.event.server.ServerAboutToStartEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import org.slf4j.Logger;
+
+/**
+ * Records how long loading the server's datapacks takes, at world load and on {@code /reload},
+ * so the cost of exported recipes (scripts vs. datapack JSON) shows up in {@code /recipeeditor stats}.
+ * <p>
+ * Both start when the server resources begin to load, which is when reload listeners are
+ * collected. The initial load ends when the server is about to start, as the server is only
+ * created from the loaded resources; a reload ends when the result is synced to the players.
+ */
+@Mod.EventBusSubscriber(modid = ExampleMod.MODID)
+public class ServerLoadTimings {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    public static final EditorMetrics.Timer INITIAL_LOAD = EditorMetrics.timer("initial_datapack_load");
+    public static final EditorMetrics.Timer DATAPACK_RELOAD = EditorMetrics.timer("datapack_reload");
+
+    // The initial load runs on the world loading thread, not the server thread
+    private static volatile long loadStartNanos = -1;
+
+    @SubscribeEvent
+    public static void onAddReloadListeners(AddReloadListenerEvent event) {
+        loadStartNanos = System.nanoTime();
+    }
+
+    @SubscribeEvent
+    public static void onServerAboutToStart(ServerAboutToStartEvent event) {
+        long start = loadStartNanos;
+        if (start < 0) return;
+        loadStartNanos = -1;
+        LOGGER.info("Datapacks loaded in {} ms", INITIAL_LOAD.stop(start) / 1_000_000);
+    }
+
+    // Fired once for all players (player == null) after a reload has been applied
+    @SubscribeEvent
+    public static void onDatapackSync(OnDatapackSyncEvent event) {
+        long start = loadStartNanos;
+        if (event.getPlayer() != null || start < 0) return;
+        loadStartNanos = -1;
+        LOGGER.info("Datapack reload took {} ms", DATAPACK_RELOAD.stop(start) / 1_000_000);
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.examplemod.recipe;
+
+import com.example.examplemod.export.ItemRef;
+import com.example.examplemod.export.RecipeDraft;
+import net.minecraft.resources.ResourceLocation;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Round-trips a small iron recipe tree through a snapshot file and runs the analyses the headless
+ * exporter relies on against the index built from what was read back.
+ */
+class RegistrySnapshotTest {
+
+    private static final List<String> ITEMS = List.of("minecraft:air", "minecraft:iron_ore", "minecraft:iron_ingot",
+        "minecraft:iron_nugget", "minecraft:iron_block");
+    private static final int ORE = 1;
+    private static final int INGOT = 2;
+    private static final int NUGGET = 3;
+    private static final int BLOCK = 4;
+
+    private static final String CRAFTING = "minecraft:crafting";
+    private static final String SMELTING = "minecraft:smelting";
+
+    private static RegistrySnapshot snapshot;
+    private static RecipeUsageIndex index;
+
+    @BeforeAll
+    static void writeAndReadBack(@TempDir Path directory) throws IOException {
+        RegistrySnapshot original = new RegistrySnapshot(ITEMS, Set.of("minecraft:water"),
+            Map.of("forge:ingots/iron", new int[]{INGOT}),
+            Map.of(CRAFTING, new RecipeTypeCatalogueCache.CachedType(3, new SlotLayout(9, 1, true)),
+                SMELTING, new RecipeTypeCatalogueCache.CachedType(1, new SlotLayout(1, 1, false))),
+            List.of(
+                new RegistrySnapshot.RecipeEntry("minecraft:iron_ingot_from_smelting", SMELTING, INGOT, 1, ingredients(ORE, 1)),
+                new RegistrySnapshot.RecipeEntry("minecraft:iron_block", CRAFTING, BLOCK, 1, ingredients(INGOT, 9)),
+                new RegistrySnapshot.RecipeEntry("minecraft:iron_nugget", CRAFTING, NUGGET, 9, ingredients(INGOT, 1)),
+                new RegistrySnapshot.RecipeEntry("minecraft:iron_ingot_from_nuggets", CRAFTING, INGOT, 1, ingredients(NUGGET, 9))));
+
+        Path file = directory.resolve("snapshot.bin");
+        original.write(file);
+        snapshot = RegistrySnapshot.read(file);
+        index = RecipeUsageIndex.build(snapshot);
+    }
+
+    @Test
+    void readsBackWhatWasWritten() {
+        assertEquals(ITEMS, snapshot.items());
+        assertEquals(NUGGET, snapshot.itemId("minecraft:iron_nugget"));
+        assertEquals(-1, snapshot.itemId("minecraft:gold_ingot"));
+        assertTrue(snapshot.hasFluid("minecraft:water"));
+        assertArrayEquals(new int[]{INGOT}, snapshot.itemTag("forge:ingots/iron").orElseThrow());
+        assertEquals(Set.of(CRAFTING, SMELTING), snapshot.recipeTypes());
+        assertEquals(3, snapshot.recipeCount(CRAFTING));
+        assertEquals(new SlotLayout(9, 1, true), snapshot.layout(CRAFTING).orElseThrow());
+        assertEquals(4, snapshot.recipes().size());
+        assertEquals(9, snapshot.recipes().get(1).ingredients().length);
+    }
+
+    @Test
+    void validatesDraftsAgainstTheSnapshot() {
+        snapshot.validate(RecipeDraft.of(CRAFTING, List.of(ItemRef.of("minecraft:iron_nugget")),
+            List.of(ItemRef.of("minecraft:iron_ingot"))));
+        assertThrows(IllegalArgumentException.class, () -> snapshot.validate(RecipeDraft.of(CRAFTING,
+            List.of(ItemRef.of("minecraft:gold_nugget")), List.of(ItemRef.of("minecraft:iron_ingot")))));
+        assertThrows(IllegalArgumentException.class, () -> snapshot.validate(RecipeDraft.of("minecraft:blasting",
+            List.of(ItemRef.of("minecraft:iron_ore")), List.of(ItemRef.of("minecraft:iron_ingot")))));
+    }
+
+    @Test
+    void indexResolvesItemsThroughTheSnapshot() {
+        assertEquals(4, index.recipeCount());
+        assertEquals(INGOT, index.itemIdOf(new ResourceLocation("minecraft:iron_ingot")));
+        assertEquals(-1, index.itemIdOf(new ResourceLocation("minecraft:gold_ingot")));
+        assertEquals(new ResourceLocation("minecraft:iron_block"), index.itemKeyOf(BLOCK));
+
+        assertEquals(List.of(new ResourceLocation("minecraft:iron_ingot_from_smelting"),
+            new ResourceLocation("minecraft:iron_ingot_from_nuggets")), recipeIds(index.producersOf(INGOT)));
+        assertEquals(List.of(new ResourceLocation("minecraft:iron_block"), new ResourceLocation("minecraft:iron_nugget")),
+            recipeIds(index.consumersOf(INGOT)));
+        assertEquals(new ResourceLocation(SMELTING), index.getRecipeType(index.producersOf(INGOT)[0]));
+        assertEquals(9, index.getResultCount(index.producersOf(NUGGET)[0]));
+    }
+
+    @Test
+    void findsLoopsThroughSnapshotRecipes() {
+        RecipeDraft exploit = RecipeDraft.of(CRAFTING, List.of(ItemRef.of("minecraft:iron_ingot")),
+            List.of(new ItemRef("minecraft:iron_nugget", 10)));
+        List<RecipeLoopDetector.Loop> loops = RecipeLoopDetector.findLoops(index, exploit,
+            new ResourceLocation("minecraft:iron_nugget"));
+        assertFalse(loops.isEmpty());
+        RecipeLoopDetector.Loop worst = loops.get(0);
+        assertTrue(worst.isExploit());
+        assertEquals(10 / 9.0, worst.gain(), 1e-9);
+        assertEquals(List.of(new ResourceLocation("minecraft:iron_ingot_from_nuggets")), worst.recipes());
+
+        RecipeDraft balanced = exploit.withOutput(0, new ItemRef("minecraft:iron_nugget", 9));
+        assertTrue(RecipeLoopDetector.findLoops(index, balanced, new ResourceLocation("minecraft:iron_nugget")).stream()
+            .noneMatch(RecipeLoopDetector.Loop::isExploit));
+    }
+
+    @Test
+    void costsItemsInSnapshotRawMaterials() {
+        RawMaterialCalculator calculator = RawMaterialCalculator.forIndex(index);
+
+        // Smelting one ore beats nine nuggets, which can only be made from the ingot itself
+        RawMaterialCalculator.Cost block = calculator.costOf(new ResourceLocation("minecraft:iron_block"), 2);
+        assertEquals(1, block.amounts().size());
+        assertEquals(18, block.amounts().get(ORE), 1e-9);
+
+        assertTrue(calculator.costOf(new ResourceLocation("minecraft:iron_ore"), 1).isRaw(ORE));
+        assertTrue(calculator.costOf(new ResourceLocation("minecraft:gold_ingot"), 1).amounts().isEmpty());
+    }
+
+    private static int[][] ingredients(int item, int count) {
+        int[][] ingredients = new int[count][];
+        Arrays.fill(ingredients, new int[]{item});
+        return ingredients;
+    }
+
+    private static List<ResourceLocation> recipeIds(int[] recipes) {
+        return Arrays.stream(recipes).mapToObj(index::getRecipeId).toList();
+    }
+}